@@ -0,0 +1,113 @@
+!compiler_flags: --dump INT --exec INT --optimize FOLD
+
+!name: Unary minus and negation
+!code:
+fun main(x: integer): integer = (
+    { a = 5 },
+    { b = true },
+    print_int(-3 + 10),
+    print_int(-(2 * 4)),
+    print_int(-a + 1),
+    print_int(-(-a)),
+    print_log(!true),
+    print_log(!(1 < 2)),
+    print_log(!b),
+    print_log(!(!b)),
+    0
+) { where
+    var a: integer;
+    var b: logical
+}
+!expected:
+7
+-8
+-4
+5
+false
+false
+false
+true
+!end
+
+!name: Multiplication by zero keeps the call
+!code:
+var g: integer;
+
+fun tick(n: integer): integer = (
+    { g = g + n },
+    g
+);
+
+fun main(x: integer): integer = (
+    { g = 0 },
+    print_int(tick(1) * 0),
+    print_int(0 * tick(2)),
+    print_int(tick(3) * (1 - 1)),
+    print_int(g),
+    0
+)
+!expected:
+0
+0
+0
+6
+!end
+
+!name: Division by a constant zero
+!code:
+fun main(x: integer): integer = (
+    { a = 7 },
+    print_int(a / 0),
+    0
+) { where
+    var a: integer
+}
+!failure:
+1
+!end
+
+!name: Remainder by a constant zero
+!code:
+fun main(x: integer): integer = (
+    { a = 7 },
+    print_int(a % (2 - 2)),
+    0
+) { where
+    var a: integer
+}
+!failure:
+1
+!end
+
+!name: Constant-index array elements
+!code:
+var a: arr[4] integer;
+
+fun fill(t: arr[3] integer): integer = (
+    { t[0] = 1 },
+    { t[2] = 3 },
+    t[0] + t[2]
+);
+
+fun main(x: integer): integer = (
+    { a[0] = 10 },
+    { a[3] = 40 },
+    { a[1 + 1] = 30 },
+    print_int(a[0] + a[3]),
+    print_int(a[2 * 1]),
+    { b[1] = 5 },
+    { b[2] = 6 },
+    print_int(b[1] * b[2]),
+    print_int(fill(b)),
+    print_int(b[0] + b[1] + b[2]),
+    0
+) { where
+    var b: arr[3] integer
+}
+!expected:
+50
+30
+30
+4
+9
+!end
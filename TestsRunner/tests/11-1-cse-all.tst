@@ -0,0 +1,107 @@
+!compiler_flags: --dump INT --exec INT --optimize TAIL,FOLD,CSE,DEAD,COPY,THREAD,LAYOUT
+
+!name: Callee changes a global between two identical loads
+!code:
+var g: integer;
+
+fun bump(d: integer): integer = (
+    { g = g + d },
+    0
+);
+
+fun main(x: integer): integer = (
+    { g = 5 },
+    print_int(g + 1),
+    bump(10),
+    print_int(g + 1),
+    { a = g * 2 },
+    bump(1),
+    { b = g * 2 },
+    print_int(a),
+    print_int(b),
+    0
+) { where
+    var a: integer;
+    var b: integer
+}
+!expected:
+6
+16
+30
+32
+!end
+
+!name: Nested function changes an outer variable inside a loop
+!code:
+fun main(x: integer): integer = (
+    { n = 0 },
+    { s = 0 },
+    { while n < 5 : (
+        { s = s + n * 3 },
+        inc(1),
+        { s = s + n * 3 }
+    ) },
+    print_int(s),
+    print_int(n),
+    print_int(probe(2)),
+    print_int(n),
+    0
+) { where
+    var n: integer;
+    var s: integer;
+    fun inc(d: integer): integer = (
+        { n = n + d },
+        0
+    );
+    fun probe(d: integer): integer = (
+        { p = n * 10 },
+        inc(d),
+        { q = n * 10 },
+        p + q
+    ) { where
+        var p: integer;
+        var q: integer
+    }
+}
+!expected:
+75
+5
+120
+7
+!end
+
+!name: Store to a variable index, then load of a constant index
+!code:
+var a: arr[5] integer;
+
+fun main(x: integer): integer = (
+    { a[2] = 7 },
+    { i = 2 },
+    { s = a[2] + 1 },
+    { a[i] = 40 },
+    { t = a[2] + 1 },
+    print_int(s),
+    print_int(t),
+    { b[1] = 3 },
+    { j = 1 },
+    { u = b[1] * 2 },
+    { b[j] = 9 },
+    { w = b[1] * 2 },
+    print_int(u),
+    print_int(w),
+    0
+) { where
+    var i: integer;
+    var j: integer;
+    var s: integer;
+    var t: integer;
+    var u: integer;
+    var w: integer;
+    var b: arr[3] integer
+}
+!expected:
+8
+41
+6
+18
+!end
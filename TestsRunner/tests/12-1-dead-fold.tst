@@ -0,0 +1,78 @@
+!compiler_flags: --dump INT --exec INT --optimize FOLD,DEAD
+
+!name: Constant conditions
+!code:
+var g: integer;
+
+fun main(x: integer): integer = (
+    { g = 1 },
+    { if 1 == 1 then { g = g + 10 } else { g = g + 100 } },
+    { if 2 < 1 then { g = g + 1000 } },
+    { while 0 == 1 : { g = g + 10000 } },
+    { if !(1 == 2) then { g = g * 2 } },
+    print_int(g),
+    { i = 0 },
+    { while 1 == 1 & i < 3 : { i = i + 1 } },
+    print_int(i),
+    0
+) { where
+    var i: integer
+}
+!expected:
+22
+3
+!end
+
+!name: Empty branches
+!code:
+fun pick(n: integer): integer = (
+    { r = n },
+    { if n > 5 then { r = r } else { r = r + 1 } },
+    { if n < 0 then { n = n } },
+    { if n == 3 then { r = r } else { r = r } },
+    r
+) { where
+    var r: integer
+};
+
+fun main(x: integer): integer = (
+    print_int(pick(1)),
+    print_int(pick(7)),
+    print_int(pick(3)),
+    0
+)
+!expected:
+2
+7
+4
+!end
+
+!name: Code after a jump that never runs
+!code:
+var g: integer;
+
+fun count(n: integer): integer = (
+    { c = 0 },
+    { while n > 0 : (
+        { n = n - 1 },
+        { if 0 == 1 then { c = c + 100 } else { c = c + 1 } }
+    ) },
+    { while 1 == 2 : { c = c - 1 } },
+    c
+) { where
+    var c: integer
+};
+
+fun main(x: integer): integer = (
+    { g = 0 },
+    { for i = 0, 3, 1 : { if 1 == 0 then { g = g - 1 } else { g = g + count(i) } } },
+    print_int(g),
+    print_int(count(0)),
+    0
+) { where
+    var i: integer
+}
+!expected:
+3
+0
+!end
@@ -0,0 +1,83 @@
+!compiler_flags: --dump INT --exec INT --optimize CSE,COPY
+
+!name: Constant arguments in loops and branches
+!code:
+var a: arr[4] integer;
+
+fun add(x: integer, y: integer): integer = x + y;
+
+fun main(x: integer): integer = (
+    { s = 0 },
+    { for i = 0, 4, 1 : (
+        { a[i] = add(i, 10) },
+        { if i % 2 == 0 then { s = add(s, 7) } else { s = add(s, -1) } }
+    ) },
+    print_int(s),
+    print_int(add(a[0], a[3])),
+    print_int(add(3, 4) * i),
+    0
+) { where
+    var s: integer;
+    var i: integer
+}
+!expected:
+12
+23
+28
+!end
+
+!name: Call results copied into other temps
+!code:
+fun sq(n: integer): integer = n * n;
+
+fun add(a: integer, b: integer): integer = a + b;
+
+fun main(x: integer): integer = (
+    print_int(sq(3) + sq(4)),
+    print_int(add(sq(2), sq(3))),
+    { y = sq(sq(2)) },
+    print_int(y - sq(1)),
+    0
+) { where
+    var y: integer
+}
+!expected:
+25
+13
+15
+!end
+
+!name: Pure expression used after a store to the memory it reads
+!code:
+var g: integer;
+var a: arr[3] integer;
+
+fun set(v: integer): integer = (
+    { g = v },
+    0
+);
+
+fun main(x: integer): integer = (
+    { g = 4 },
+    { p = g * 3 + 1 },
+    { g = 100 },
+    print_int(p),
+    { a[1] = 5 },
+    { q = a[1] + g },
+    { a[1] = 6 },
+    set(1),
+    print_int(q),
+    print_int(g * 2 + a[1]),
+    set(2),
+    print_int(g * 2 + a[1]),
+    0
+) { where
+    var p: integer;
+    var q: integer
+}
+!expected:
+13
+105
+8
+10
+!end
@@ -0,0 +1,99 @@
+!compiler_flags: --dump INT --exec INT --optimize THREAD,LAYOUT,DEAD
+
+!name: Nested while with if without else
+!code:
+fun main(x: integer): integer = (
+    { i = 0 },
+    { s = 0 },
+    { c = 0 },
+    { while i < 3 : (
+        { j = 0 },
+        { while j < 3 : (
+            { if (i + j) % 2 == 0 then { s = s + i * j } },
+            { if j == i then { c = c + 1 } },
+            { j = j + 1 }
+        ) },
+        { i = i + 1 }
+    ) },
+    print_int(s),
+    print_int(c),
+    print_int(i * 10 + j),
+    0
+) { where
+    var i: integer;
+    var j: integer;
+    var s: integer;
+    var c: integer
+}
+!expected:
+5
+3
+33
+!end
+
+!name: Loop with if and else around a counter
+!code:
+fun collatz(n: integer): integer = (
+    { steps = 0 },
+    { while n != 1 : (
+        { if n % 2 == 0 then { n = n / 2 } else { n = 3 * n + 1 } },
+        { steps = steps + 1 }
+    ) },
+    steps
+) { where
+    var steps: integer
+};
+
+fun main(x: integer): integer = (
+    print_int(collatz(1)),
+    print_int(collatz(6)),
+    print_int(collatz(27)),
+    0
+)
+!expected:
+0
+8
+111
+!end
+
+!name: Functions that end with a loop
+!code:
+var g: integer;
+
+fun last(n: integer): integer = (
+    { while n > 0 : { n = n - 2 } },
+    n
+);
+
+fun drain(n: integer): integer = (
+    { while n > 0 : ( { if n % 2 == 0 then { g = g + n } }, { n = n - 1 } ) },
+    g
+);
+
+fun sum(n: integer): integer = (
+    { t = 0 },
+    { for k = 1, n + 1, 1 : { if k % 3 != 0 then { t = t + k } } },
+    t
+) { where
+    var t: integer;
+    var k: integer
+};
+
+fun main(x: integer): integer = (
+    { g = 0 },
+    print_int(last(7)),
+    print_int(last(0)),
+    print_int(drain(0)),
+    print_int(drain(4)),
+    print_int(sum(10)),
+    print_int(sum(0)),
+    0
+)
+!expected:
+-1
+0
+0
+6
+37
+0
+!end
@@ -0,0 +1,42 @@
+!compiler_flags: --dump INT --exec INT --optimize TAIL
+
+!name: Tail call into a local variable
+!code:
+fun main(x: integer): integer = (
+    print_int(sum(100, 0)),
+    0
+);
+
+fun sum(n: integer, acc: integer): integer = (
+    {if n == 0 then {r = acc} else {r = sum(n - 1, acc + n)}},
+    r
+) { where
+    var r: integer
+}
+!expected:
+5050
+!end
+
+!name: Tail call into a global array element
+!code:
+var a: arr[5] integer;
+
+fun main(x: integer): integer = (
+    f(3),
+    print_int(a[0]),
+    print_int(a[1]),
+    print_int(a[2]),
+    print_int(a[3]),
+    0
+);
+
+fun f(i: integer): integer = (
+    {if i == 0 then {a[0] = 42} else {a[i] = f(i - 1)}},
+    a[i]
+)
+!expected:
+42
+42
+42
+42
+!end
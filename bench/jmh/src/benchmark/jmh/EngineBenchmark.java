@@ -0,0 +1,76 @@
+/**
+ * @ Author: tevz
+ * @ Description: Primerjava interpreterja drevesa vmesne kode
+ * in izvajanja kode, prevedene v drevesa zaprtij (JMH).
+ */
+
+package benchmark.jmh;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import benchmark.Pipeline;
+import benchmark.Programs;
+import compiler.interpret.Interpreter;
+import compiler.interpret.closure.ClosureCompiler;
+import compiler.interpret.closure.ClosureFunction;
+import compiler.interpret.closure.ClosureMachine;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+    @Param({ "FIB", "LOOP", "ARRAY" })
+    public String program;
+
+    private Pipeline pipeline;
+    private ClosureMachine machine;
+    private ClosureFunction main;
+
+    @Setup
+    public void setup() {
+        pipeline = Pipeline.compile(Programs.forName(program), 1 << 20);
+        machine = new ClosureMachine(pipeline.memory, Optional.empty());
+        main = new ClosureCompiler(pipeline.memory, machine).compile(pipeline.main);
+    }
+
+    /**
+     * Interpreter drevesa vmesne kode.
+     */
+    @Benchmark
+    public void tree() {
+        new Interpreter(pipeline.memory, Optional.empty()).interpret(pipeline.main);
+    }
+
+    /**
+     * Izvajanje že prevedenih zaprtij.
+     */
+    @Benchmark
+    public void closure() {
+        machine.run(main);
+    }
+
+    /**
+     * Prevajanje v zaprtja in izvajanje.
+     */
+    @Benchmark
+    public void closureWithCompile() {
+        var machine = new ClosureMachine(pipeline.memory, Optional.empty());
+        machine.run(new ClosureCompiler(pipeline.memory, machine).compile(pipeline.main));
+    }
+}
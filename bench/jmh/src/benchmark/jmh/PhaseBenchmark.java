@@ -0,0 +1,163 @@
+/**
+ * @ Author: tevz
+ * @ Description: Meritve posameznih faz prevajanja (JMH).
+ *
+ * Vsaka meritev izvede eno fazo nad rezultati prejšnjih faz, ki se
+ * pripravijo enkrat na začetku (`setup`). Vhodi so različnih velikosti
+ * (`Sources`).
+ */
+
+package benchmark.jmh;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import benchmark.Sources;
+import compiler.frm.Access;
+import compiler.frm.Frame;
+import compiler.frm.FrameEvaluator;
+import compiler.gen.LinCodeGenerator;
+import compiler.gen.Linker;
+import compiler.gen.Memory;
+import compiler.interpret.Interpreter;
+import compiler.ir.IRCodeGenerator;
+import compiler.ir.chunk.Chunk;
+import compiler.ir.chunk.Chunk.LinkedCodeChunk;
+import compiler.lexer.Lexer;
+import compiler.lexer.Symbol;
+import compiler.parser.Parser;
+import compiler.parser.ast.Ast;
+import compiler.parser.ast.def.Def;
+import compiler.seman.common.NodeDescription;
+import compiler.seman.name.NameChecker;
+import compiler.seman.name.env.FastSymbolTable;
+import compiler.seman.name.env.SimpleSymbolTable;
+import compiler.seman.type.TypeChecker;
+import compiler.seman.type.type.Type;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xss64m" })
+public class PhaseBenchmark {
+    /**
+     * Velikost pomnilnika navideznega stroja.
+     */
+    private static final int memorySize = 1 << 20;
+
+    /**
+     * Velikost pomnilnika pri linearizaciji (le globalne spremenljivke
+     * in nizi), da meritve ne prevlada alokacija pomnilnika.
+     */
+    private static final int codeMemorySize = 1 << 16;
+
+    @Param({ "SMALL", "MEDIUM", "HUGE" })
+    public String size;
+
+    // --------- rezultati faz ----------
+
+    private String source;
+    private List<Symbol> symbols;
+    private Ast ast;
+    private NodeDescription<Def> definitions;
+    private NodeDescription<Type> types;
+    private NodeDescription<Frame> frames;
+    private NodeDescription<Access> accesses;
+    private List<Chunk> chunks;
+    private Memory memory;
+    private LinkedCodeChunk main;
+
+    @Setup
+    public void setup() {
+        source = Sources.forSize(size);
+        symbols = new Lexer(source).scan();
+        ast = new Parser(new ArrayList<>(symbols), Optional.empty()).parse();
+        definitions = new NodeDescription<>();
+        ast.accept(new NameChecker(definitions, new FastSymbolTable()));
+        types = new NodeDescription<>();
+        ast.accept(new TypeChecker(definitions, types));
+        frames = new NodeDescription<>();
+        accesses = new NodeDescription<>();
+        ast.accept(new FrameEvaluator(frames, accesses, definitions, types));
+        var generator = new IRCodeGenerator(new NodeDescription<>(), frames, accesses, definitions, types);
+        ast.accept(generator);
+        chunks = generator.chunks;
+        memory = new Memory(memorySize);
+        var codeChunks = new LinCodeGenerator(memory).generateCode(chunks);
+        main = new Linker(memory).link(codeChunks).get();
+    }
+
+    @Benchmark
+    public List<Symbol> lexer() {
+        return new Lexer(source).scan();
+    }
+
+    /**
+     * Razčlenjevalnik obrne podan seznam simbolov, zato mu podamo kopijo.
+     */
+    @Benchmark
+    public Ast parser() {
+        return new Parser(new ArrayList<>(symbols), Optional.empty()).parse();
+    }
+
+    @Benchmark
+    public NodeDescription<Def> nameCheckerFast() {
+        var result = new NodeDescription<Def>();
+        ast.accept(new NameChecker(result, new FastSymbolTable()));
+        return result;
+    }
+
+    @Benchmark
+    public NodeDescription<Def> nameCheckerSimple() {
+        var result = new NodeDescription<Def>();
+        ast.accept(new NameChecker(result, new SimpleSymbolTable()));
+        return result;
+    }
+
+    @Benchmark
+    public NodeDescription<Type> typeChecker() {
+        var result = new NodeDescription<Type>();
+        ast.accept(new TypeChecker(definitions, result));
+        return result;
+    }
+
+    @Benchmark
+    public NodeDescription<Frame> frameEvaluator() {
+        var resultFrames = new NodeDescription<Frame>();
+        ast.accept(new FrameEvaluator(resultFrames, new NodeDescription<>(), definitions, types));
+        return resultFrames;
+    }
+
+    @Benchmark
+    public List<Chunk> irCodeGenerator() {
+        var generator = new IRCodeGenerator(new NodeDescription<>(), frames, accesses, definitions, types);
+        ast.accept(generator);
+        return generator.chunks;
+    }
+
+    @Benchmark
+    public List<Chunk.CodeChunk> linCodeGenerator() {
+        return new LinCodeGenerator(new Memory(codeMemorySize)).generateCode(chunks);
+    }
+
+    @Benchmark
+    public void interpreter() {
+        new Interpreter(memory, Optional.empty()).interpret(main);
+    }
+}
@@ -0,0 +1,232 @@
+/**
+ * @ Author: tevz
+ * @ Description: Meritev posamezne funkcije programa PINS.
+ *
+ * Program se prevede enkrat, nato interpreter funkcijo na vrhnjem nivoju
+ * pokliče z argumenti iz ukazne vrstice (`Interpreter.interpret(chunk,
+ * arguments)`), najprej `--warmup`-krat za ogrevanje in nato še
+ * `--iterations`-krat za meritev. Izpiše čas in alocirani pomnilnik JVM
+ * na klic ter rezultat funkcije.
+ *
+ * Program je podan s potjo do izvorne datoteke ali z imenom programa
+ * iz `Programs`, npr.
+ * `make bench BENCH="benchmark.FunctionBenchmark FIB --function fib --args 15"`.
+ *
+ * Z `--expect` meritev preveri še rezultat in se ob napačnem konča
+ * z neničelno kodo (`make bench-check`).
+ */
+
+package benchmark;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Optional;
+
+import ArgPar.Annotation.ParsableArgument;
+import ArgPar.Annotation.ParsableCommand;
+import ArgPar.Annotation.ParsableFlag;
+import ArgPar.Annotation.ParsableOption;
+import ArgPar.Exception.ParseException;
+import ArgPar.Parser.ArgumentParser;
+import cli.PINS;
+import compiler.frm.Frame;
+import compiler.interpret.Interpreter;
+import compiler.interpret.StackInterpreter;
+import compiler.interpret.jit.TieredInterpreter;
+
+public class FunctionBenchmark {
+    /**
+     * Velikost pomnilnika navideznega stroja.
+     */
+    private static final int memorySize = 1 << 20;
+
+    /**
+     * Število klicev, po katerem stroj `JIT` prevede funkcijo.
+     */
+    private static final int jitThreshold = 100;
+
+    public static void main(String[] args) throws InterruptedException {
+        var options = Options.parse(args);
+        if (options.function.isEmpty()) {
+            throw new IllegalArgumentException("Missing --function!");
+        }
+        if (options.warmup < 0 || options.iterations < 1) {
+            throw new IllegalArgumentException("Expected --warmup >= 0 and --iterations >= 1!");
+        }
+        // rekurzivne funkcije potrebujejo velik sklad
+        var thread = new Thread(null, () -> measure(options), "function", 1L << 26);
+        thread.setUncaughtExceptionHandler((__, e) -> {
+            e.printStackTrace();
+            System.exit(1);
+        });
+        thread.start();
+        thread.join();
+    }
+
+    private static void measure(Options options) {
+        var pipeline = Pipeline.compile(source(options.program), memorySize);
+        var interpreter = interpreter(options.engine, pipeline);
+        if (options.runMain) {
+            interpreter.interpret(pipeline.main);
+        }
+        var chunk = pipeline.memory.ldCode(Frame.Label.named(options.function));
+        var arguments = arguments(options.arguments);
+
+        int result = 0;
+        for (int i = 0; i < options.warmup; i++) {
+            result = interpreter.interpret(chunk, arguments);
+        }
+        var startBytes = allocatedBytes();
+        var start = System.nanoTime();
+        for (int i = 0; i < options.iterations; i++) {
+            result = interpreter.interpret(chunk, arguments);
+        }
+        var time = System.nanoTime() - start;
+        var bytes = allocatedBytes() - startBytes;
+
+        System.out.println("function, engine, calls, ns/op, bytes/op, result");
+        System.out.printf("%s, %s, %d, %.1f, %s, %d%n",
+            options.function,
+            options.engine,
+            options.iterations,
+            (double) time / options.iterations,
+            startBytes < 0 ? "?" : String.valueOf(bytes / options.iterations),
+            result);
+        if (!options.expected.isEmpty() && result != Integer.parseInt(options.expected)) {
+            System.err.println("Expected " + options.expected + ", got " + result + "!");
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Ustvari interpreter; podprti so le stroji, ki razširjajo `Interpreter`.
+     */
+    private static Interpreter interpreter(PINS.Engine engine, Pipeline pipeline) {
+        switch (engine) {
+            case TREE:
+                return new Interpreter(pipeline.memory, Optional.empty());
+            case JIT:
+                return new TieredInterpreter(pipeline.memory, Optional.empty(), jitThreshold);
+            case STACK:
+                return new StackInterpreter(pipeline.memory, Optional.empty());
+            default:
+                throw new IllegalArgumentException("Engine " + engine + " cannot call single functions (use TREE, JIT or STACK)!");
+        }
+    }
+
+    /**
+     * Prebere izvorno datoteko ali vrne program iz `Programs`.
+     */
+    private static String source(String program) {
+        var path = Paths.get(program);
+        if (!Files.exists(path)) {
+            return Programs.forName(program);
+        }
+        try {
+            return Files.readString(path);
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot read " + program + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Razčleni argumente funkcije: celoštevilske in logične (`true`, `false`) konstante.
+     */
+    private static int[] arguments(String arguments) {
+        if (arguments.isBlank()) {
+            return new int[0];
+        }
+        var literals = arguments.split(",");
+        var values = new int[literals.length];
+        for (int i = 0; i < literals.length; i++) {
+            var literal = literals[i].trim();
+            switch (literal) {
+                case "true":
+                    values[i] = 1;
+                    break;
+                case "false":
+                    values[i] = 0;
+                    break;
+                default:
+                    try {
+                        values[i] = Integer.parseInt(literal);
+                    } catch (NumberFormatException e) {
+                        throw new IllegalArgumentException("Unsupported argument '" + literal + "' (expected integer or logical constant)!");
+                    }
+            }
+        }
+        return values;
+    }
+
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    /**
+     * Argumenti ukazne vrstice.
+     */
+    @ParsableCommand(commandName = "FunctionBenchmark", description = "Meritev posamezne funkcije programa PINS")
+    public static class Options {
+        /**
+         * Pot do izvorne datoteke ali ime programa iz `Programs`.
+         */
+        @ParsableArgument
+        public String program;
+
+        /**
+         * Ime funkcije na vrhnjem nivoju.
+         */
+        @ParsableOption(name = "--function")
+        public String function = "";
+
+        /**
+         * Argumenti funkcije, ločeni z vejico.
+         */
+        @ParsableOption(name = "--args")
+        public String arguments = "";
+
+        @ParsableOption(name = "--engine")
+        public PINS.Engine engine = PINS.Engine.TREE;
+
+        @ParsableOption(name = "--warmup")
+        public int warmup = 1000;
+
+        @ParsableOption(name = "--iterations")
+        public int iterations = 10000;
+
+        /**
+         * Ali naj se pred meritvijo enkrat izvede `main` (npr. za
+         * inicializacijo globalnih spremenljivk)?
+         */
+        @ParsableFlag(name = "--main")
+        public boolean runMain = false;
+
+        /**
+         * Pričakovani rezultat funkcije (le, če ga želimo preveriti).
+         */
+        @ParsableOption(name = "--expect")
+        public String expected = "";
+
+        /**
+         * Razčleni argumente; ime ukaza, ki ga pričakuje `ArgumentParser`,
+         * doda samo.
+         */
+        static Options parse(String[] args) {
+            var command = new String[args.length + 1];
+            command[0] = "FunctionBenchmark";
+            System.arraycopy(args, 0, command, 1, args.length);
+            try {
+                return new ArgumentParser<Options>(Options.class).parse(command);
+            } catch (ParseException __) {
+                System.exit(2);
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * @ Author: tevz
+ * @ Description: Meritev cene skokov v dolgih funkcijah.
+ *
+ * Funkcija `main` vsebuje `n` nepomembnih stavkov, ki jim sledi
+ * zanka. Če je skok O(1), je čas ene iteracije zanke neodvisen
+ * od dolžine funkcije.
+ *
+ * Vsako dolžino izmerimo z dvema številoma iteracij zanke; razlika
+ * časov, deljena z razliko iteracij, je cena ene iteracije brez
+ * priprave interpreterja in izvajanja nepomembnih stavkov.
+ */
+
+package benchmark;
+
+public class JumpBenchmark {
+    private static final int[] lengths = { 10, 100, 1000, 10000 };
+    private static final int fewIterations = 20000;
+    private static final int manyIterations = 220000;
+    private static final int repetitions = 20;
+
+    public static void main(String[] args) throws InterruptedException {
+        // dolge funkcije potrebujejo velik sklad (rekurzivni razčlenjevalnik)
+        var thread = new Thread(null, JumpBenchmark::measure, "jumps", 1L << 26);
+        thread.start();
+        thread.join();
+    }
+
+    private static void measure() {
+        System.out.println("length, ns/iteration");
+        for (var length : lengths) {
+            var few = best(Pipeline.compile(program(length, fewIterations), 1024));
+            var many = best(Pipeline.compile(program(length, manyIterations), 1024));
+            System.out.println(length + ", " + (many - few) / (manyIterations - fewIterations));
+        }
+    }
+
+    /**
+     * Najkrajši čas izvedbe programa (v ns) izmed `repetitions` ponovitev.
+     */
+    private static long best(Pipeline pipeline) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < repetitions; i++) {
+            var start = System.nanoTime();
+            pipeline.run();
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        return best;
+    }
+
+    /**
+     * Ustvari program z `length` stavki pred zanko z `iterations` iteracijami.
+     */
+    private static String program(int length, int iterations) {
+        var sb = new StringBuilder();
+        sb.append("var s : integer;\n");
+        sb.append("var i : integer;\n");
+        sb.append("fun main(x : integer) : integer = (\n");
+        sb.append("    {s = 0},\n");
+        for (int i = 0; i < length; i++) {
+            sb.append("    {s = s + " + (i % 7) + "},\n");
+        }
+        sb.append("    {i = 0},\n");
+        sb.append("    {while i < " + iterations + " : ({s = s + i % 3}, {i = i + 1})},\n");
+        sb.append("    s\n");
+        sb.append(")\n");
+        return sb.toString();
+    }
+}
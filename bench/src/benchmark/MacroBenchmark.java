@@ -0,0 +1,307 @@
+/**
+ * @ Author: tevz
+ * @ Description: Makro meritve izvajalnih strojev nad zbirko programov.
+ *
+ * Vsak program zbirke (`Programs.MACRO`) se prevede enkrat, nato pa ga
+ * vsak izbrani izvajalni stroj najprej nekajkrat izvede za ogrevanje
+ * in nato še za meritev. Za vsak par (program, stroj) izpiše:
+ * - `ops_per_sec`: število izvedb programa na sekundo,
+ * - `peak_memory_bytes`: največjo porabo pomnilnika navideznega stroja
+ *   (ustvarjene strani shrambe `Storage.Paged`),
+ * - `allocated_bytes_per_op`: pomnilnik, ki ga JVM alocira na izvedbo,
+ * - `instructions`: število izvedenih stavkov vmesne kode,
+ * - `cycles`: abstraktni cikli po privzeti tabeli cen (`CostModel`).
+ *
+ * Števili `instructions` in `cycles` izmeri `CycleCounter`, zato sta
+ * deterministični in enaki za vse stroje.
+ *
+ * Pred meritvijo preveri, da vsi stroji izpišejo enak rezultat.
+ *
+ * Npr. `make bench BENCH="benchmark.MacroBenchmark --engine TREE,CLOSURE --format JSON --output macro.json"`.
+ */
+
+package benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+
+import ArgPar.Annotation.ParsableCommand;
+import ArgPar.Annotation.ParsableOption;
+import ArgPar.Exception.ParseException;
+import ArgPar.Parser.ArgumentParser;
+import cli.PINS;
+import compiler.gen.Memory;
+import compiler.gen.Storage;
+import compiler.interpret.Interpreter;
+import compiler.interpret.StackInterpreter;
+import compiler.interpret.bytecode.BytecodeCompiler;
+import compiler.interpret.bytecode.BytecodeVM;
+import compiler.interpret.closure.ClosureCompiler;
+import compiler.interpret.closure.ClosureMachine;
+import compiler.interpret.jit.TieredInterpreter;
+import compiler.interpret.cost.CostModel;
+import compiler.interpret.cost.CycleCounter;
+
+public class MacroBenchmark {
+    /**
+     * Velikost pomnilnika navideznega stroja.
+     */
+    private static final int memorySize = 1 << 20;
+
+    /**
+     * Število klicev, po katerem stroj `JIT` prevede funkcijo.
+     */
+    private static final int jitThreshold = 100;
+
+    public static void main(String[] args) throws InterruptedException {
+        var options = Options.parse(args);
+        List<PINS.Engine> engines = new ArrayList<>();
+        for (var engine : options.engines.split(",")) {
+            engines.add(PINS.Engine.valueOf(engine.trim()));
+        }
+        var programs = options.programs.isEmpty() ? Programs.MACRO : options.programs.split(",");
+        if (options.warmup < 0 || options.iterations < 1) {
+            throw new IllegalArgumentException("Expected --warmup >= 0 and --iterations >= 1!");
+        }
+
+        List<Result> results = new ArrayList<>();
+        // rekurzivni programi potrebujejo velik sklad
+        var thread = new Thread(null, () -> {
+            for (var program : programs) {
+                results.addAll(measure(program.trim(), engines, options));
+            }
+        }, "macro", 1L << 26);
+        thread.start();
+        thread.join();
+
+        try (var out = options.output.isEmpty() ? new PrintStream(System.out) : new PrintStream(Files.newOutputStream(Paths.get(options.output)))) {
+            switch (options.format) {
+                case CSV:
+                    writeCsv(results, out);
+                    break;
+                case JSON:
+                    writeJson(results, out);
+                    break;
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Cannot write results: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Izmeri program na vseh izbranih strojih.
+     */
+    private static List<Result> measure(String name, List<PINS.Engine> engines, Options options) {
+        var source = Programs.forName(name);
+        var counter = count(source);
+
+        String expected = null;
+        List<Result> results = new ArrayList<>();
+        for (var engine : engines) {
+            var storage = new Storage.Paged(Memory.words(memorySize));
+            var pipeline = Pipeline.compile(source, new Memory(memorySize, storage));
+
+            // preverjanje rezultata
+            var output = new ByteArrayOutputStream();
+            runner(engine, pipeline, Optional.of(new PrintStream(output))).run();
+            if (expected == null) {
+                expected = output.toString();
+            } else if (!expected.equals(output.toString())) {
+                throw new RuntimeException(name + ": " + engine + " printed '" + output + "', expected '" + expected + "'!");
+            }
+
+            var runner = runner(engine, pipeline, Optional.empty());
+            for (int i = 0; i < options.warmup; i++) {
+                runner.run();
+            }
+            var startBytes = allocatedBytes();
+            var start = System.nanoTime();
+            for (int i = 0; i < options.iterations; i++) {
+                runner.run();
+            }
+            var time = System.nanoTime() - start;
+            var bytes = allocatedBytes() - startBytes;
+
+            results.add(new Result(
+                name,
+                engine,
+                options.iterations,
+                options.iterations * 1e9 / time,
+                (long) storage.residentPages() * Storage.Paged.pageSize * Integer.BYTES,
+                startBytes < 0 ? -1 : bytes / options.iterations,
+                counter.executed(),
+                counter.cycles()));
+        }
+        return results;
+    }
+
+    /**
+     * Pripravi izvajanje programa na podanem stroju; prevajanje (zaprtja,
+     * zložna koda) se izvede le enkrat, stanje stroja `JIT` pa se ohrani
+     * med izvedbami.
+     */
+    private static Runnable runner(PINS.Engine engine, Pipeline pipeline, Optional<PrintStream> outputStream) {
+        var memory = pipeline.memory;
+        switch (engine) {
+            case TREE:
+                return () -> new Interpreter(memory, outputStream).interpret(pipeline.main);
+            case BYTECODE:
+                var program = new BytecodeCompiler(memory).compile(pipeline.codeChunks);
+                var vm = new BytecodeVM(memory, outputStream, program);
+                return () -> vm.run(program.main().get());
+            case CLOSURE:
+                var machine = new ClosureMachine(memory, outputStream);
+                var main = new ClosureCompiler(memory, machine).compile(pipeline.main);
+                return () -> machine.run(main);
+            case JIT:
+                var tiered = new TieredInterpreter(memory, outputStream, jitThreshold);
+                return () -> tiered.interpret(pipeline.main);
+            case STACK:
+                return () -> new StackInterpreter(memory, outputStream).interpret(pipeline.main);
+            default:
+                throw new IllegalArgumentException("Unknown engine " + engine + "!");
+        }
+    }
+
+    /**
+     * Prešteje stavke in cikle ene izvedbe programa.
+     */
+    private static CycleCounter count(String source) {
+        var pipeline = Pipeline.compile(source, memorySize);
+        var counter = new CycleCounter(pipeline.memory, Optional.empty(), new CostModel());
+        counter.interpret(pipeline.main);
+        return counter;
+    }
+
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported()) {
+            return threads.getCurrentThreadAllocatedBytes();
+        }
+        return -1;
+    }
+
+    // --------- izpis ----------
+
+    private static void writeCsv(List<Result> results, PrintStream out) {
+        out.println("program,engine,iterations,ops_per_sec,peak_memory_bytes,allocated_bytes_per_op,instructions,cycles");
+        for (var result : results) {
+            out.printf(Locale.ROOT, "%s,%s,%d,%.3f,%d,%d,%d,%d%n",
+                result.program,
+                result.engine,
+                result.iterations,
+                result.opsPerSecond,
+                result.peakMemory,
+                result.allocatedPerOp,
+                result.instructions,
+                result.cycles);
+        }
+    }
+
+    private static void writeJson(List<Result> results, PrintStream out) {
+        out.println("[");
+        for (int i = 0; i < results.size(); i++) {
+            var result = results.get(i);
+            out.printf(Locale.ROOT, "  {\"program\": \"%s\", \"engine\": \"%s\", \"iterations\": %d, \"ops_per_sec\": %.3f, "
+                    + "\"peak_memory_bytes\": %d, \"allocated_bytes_per_op\": %d, \"instructions\": %d, \"cycles\": %d}%s%n",
+                result.program,
+                result.engine,
+                result.iterations,
+                result.opsPerSecond,
+                result.peakMemory,
+                result.allocatedPerOp,
+                result.instructions,
+                result.cycles,
+                i + 1 < results.size() ? "," : "");
+        }
+        out.println("]");
+    }
+
+    // --------------------------------------------------------------
+
+    private static class Result {
+        final String program;
+        final PINS.Engine engine;
+        final int iterations;
+        final double opsPerSecond;
+        final long peakMemory;
+        final long allocatedPerOp;
+        final long instructions;
+        final long cycles;
+
+        Result(String program, PINS.Engine engine, int iterations, double opsPerSecond, long peakMemory, long allocatedPerOp, long instructions, long cycles) {
+            this.program = program;
+            this.engine = engine;
+            this.iterations = iterations;
+            this.opsPerSecond = opsPerSecond;
+            this.peakMemory = peakMemory;
+            this.allocatedPerOp = allocatedPerOp;
+            this.instructions = instructions;
+            this.cycles = cycles;
+        }
+    }
+
+    /**
+     * Oblike izpisa rezultatov.
+     */
+    public static enum Format {
+        CSV, JSON
+    }
+
+    /**
+     * Argumenti ukazne vrstice.
+     */
+    @ParsableCommand(commandName = "MacroBenchmark", description = "Makro meritve izvajalnih strojev")
+    public static class Options {
+        /**
+         * Izvajalni stroji, ločeni z vejico.
+         */
+        @ParsableOption(name = "--engine")
+        public String engines = "TREE";
+
+        /**
+         * Programi, ločeni z vejico (privzeto vsi programi zbirke).
+         */
+        @ParsableOption(name = "--programs")
+        public String programs = "";
+
+        @ParsableOption(name = "--warmup")
+        public int warmup = 5;
+
+        @ParsableOption(name = "--iterations")
+        public int iterations = 10;
+
+        @ParsableOption(name = "--format")
+        public Format format = Format.CSV;
+
+        /**
+         * Datoteka z rezultati (privzeto standardni izhod).
+         */
+        @ParsableOption(name = "--output")
+        public String output = "";
+
+        /**
+         * Razčleni argumente; ime ukaza, ki ga pričakuje `ArgumentParser`,
+         * doda samo.
+         */
+        static Options parse(String[] args) {
+            var command = new String[args.length + 1];
+            command[0] = "MacroBenchmark";
+            System.arraycopy(args, 0, command, 1, args.length);
+            try {
+                return new ArgumentParser<Options>(Options.class).parse(command);
+            } catch (ParseException __) {
+                System.exit(2);
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,86 @@
+/**
+ * @ Author: tevz
+ * @ Description: Prevajanje programa PINS za potrebe meritev.
+ */
+
+package benchmark;
+
+import java.util.List;
+import java.util.Optional;
+
+import compiler.frm.Access;
+import compiler.frm.Frame;
+import compiler.frm.FrameEvaluator;
+import compiler.gen.LinCodeGenerator;
+import compiler.gen.Linker;
+import compiler.gen.Memory;
+import compiler.interpret.Interpreter;
+import compiler.ir.IRCodeGenerator;
+import compiler.ir.chunk.Chunk.CodeChunk;
+import compiler.ir.chunk.Chunk.LinkedCodeChunk;
+import compiler.lexer.Lexer;
+import compiler.parser.Parser;
+import compiler.parser.ast.def.Def;
+import compiler.seman.common.NodeDescription;
+import compiler.seman.name.NameChecker;
+import compiler.seman.name.env.FastSymbolTable;
+import compiler.seman.type.TypeChecker;
+import compiler.seman.type.type.Type;
+
+public class Pipeline {
+    /**
+     * Pomnilnik prevedenega programa.
+     */
+    public final Memory memory;
+
+    /**
+     * Linearizirani fragmenti kode (vhod za `BytecodeCompiler`).
+     */
+    public final List<CodeChunk> codeChunks;
+
+    /**
+     * Povezana koda funkcije `main`.
+     */
+    public final LinkedCodeChunk main;
+
+    private Pipeline(Memory memory, List<CodeChunk> codeChunks, LinkedCodeChunk main) {
+        this.memory = memory;
+        this.codeChunks = codeChunks;
+        this.main = main;
+    }
+
+    /**
+     * Prevede program vse do povezane kode.
+     */
+    public static Pipeline compile(String sourceCode, int memorySize) {
+        return compile(sourceCode, new Memory(memorySize));
+    }
+
+    /**
+     * Prevede program vse do povezane kode v podan pomnilnik.
+     */
+    public static Pipeline compile(String sourceCode, Memory memory) {
+        var symbols = new Lexer(sourceCode).scan();
+        var ast = new Parser(symbols, Optional.empty()).parse();
+        var definitions = new NodeDescription<Def>();
+        ast.accept(new NameChecker(definitions, new FastSymbolTable()));
+        var types = new NodeDescription<Type>();
+        ast.accept(new TypeChecker(definitions, types));
+        var frames = new NodeDescription<Frame>();
+        var accesses = new NodeDescription<Access>();
+        ast.accept(new FrameEvaluator(frames, accesses, definitions, types));
+        var generator = new IRCodeGenerator(new NodeDescription<>(), frames, accesses, definitions, types);
+        ast.accept(generator);
+        var codeChunks = new LinCodeGenerator(memory).generateCode(generator.chunks);
+        var main = new Linker(memory).link(codeChunks)
+            .orElseThrow(() -> new IllegalArgumentException("Missing 'main'!"));
+        return new Pipeline(memory, codeChunks, main);
+    }
+
+    /**
+     * Izvede funkcijo `main`, izpis programa zavrže.
+     */
+    public void run() {
+        new Interpreter(memory, Optional.empty()).interpret(main);
+    }
+}
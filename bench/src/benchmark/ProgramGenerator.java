@@ -0,0 +1,226 @@
+/**
+ * @ Author: tevz
+ * @ Description: Generator sintetičnih programov PINS za meritve skaliranja.
+ *
+ * Velikost programa določajo nastavitve (javna polja):
+ * - `definitions`: število funkcij na vrhnjem nivoju,
+ * - `depth`: globina gnezdenja blokov `where` z gnezdenimi funkcijami,
+ * - `expressionLength`: število členov v aritmetičnih izrazih,
+ * - `typedefChain`: dolžina verige sinonimov tipov (`typ t1 : t0`),
+ * - `arrayDimensions` in `arraySize`: dimenzije globalne tabele,
+ * - `loopCount`: število ponovitev zank.
+ *
+ * Generirani program je veljaven (sledi `PINSgramm.txt`, imena so
+ * definirana, tipi se ujemajo) in deterministično odvisen od `seed`.
+ * Funkcija `f<i>` kliče `f<2i+1>` in `f<2i+2>`, zato je globina klicev
+ * le logaritemska v številu funkcij.
+ */
+
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public class ProgramGenerator {
+    public int definitions = 10;
+    public int depth = 2;
+    public int expressionLength = 8;
+    public int typedefChain = 3;
+    public int arrayDimensions = 2;
+    public int arraySize = 4;
+    public int loopCount = 10;
+    public long seed = 42;
+
+    private Random random;
+    private StringBuilder sb;
+
+    /**
+     * Razčleni nastavitve oblike `ime=vrednost,ime=vrednost` (namesto
+     * vejice je lahko podpičje, ker JMH parametre loči z vejicami).
+     */
+    public static ProgramGenerator parse(String spec) {
+        var generator = new ProgramGenerator();
+        for (var pair : spec.split("[,;]")) {
+            if (pair.isBlank()) {
+                continue;
+            }
+            var parts = pair.split("=");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected knob=value, got '" + pair + "'!");
+            }
+            generator.set(parts[0].trim(), Long.parseLong(parts[1].trim()));
+        }
+        return generator;
+    }
+
+    /**
+     * Nastavi nastavitev s podanim imenom.
+     */
+    public ProgramGenerator set(String knob, long value) {
+        switch (knob) {
+            case "definitions":
+                definitions = (int) value;
+                break;
+            case "depth":
+                depth = (int) value;
+                break;
+            case "expressionLength":
+                expressionLength = (int) value;
+                break;
+            case "typedefChain":
+                typedefChain = (int) value;
+                break;
+            case "arrayDimensions":
+                arrayDimensions = (int) value;
+                break;
+            case "arraySize":
+                arraySize = (int) value;
+                break;
+            case "loopCount":
+                loopCount = (int) value;
+                break;
+            case "seed":
+                seed = value;
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown knob " + knob + "!");
+        }
+        return this;
+    }
+
+    /**
+     * Ustvari program.
+     */
+    public String generate() {
+        if (definitions < 1 || expressionLength < 1 || arraySize < 1) {
+            throw new IllegalArgumentException("definitions, expressionLength and arraySize must be positive!");
+        }
+        random = new Random(seed);
+        sb = new StringBuilder();
+
+        // veriga sinonimov tipov
+        for (int i = 0; i < typedefChain; i++) {
+            sb.append("typ t").append(i).append(" : ").append(i == 0 ? "integer" : "t" + (i - 1)).append(";\n");
+        }
+        // globalna tabela
+        if (arrayDimensions > 0) {
+            sb.append("var g : ");
+            for (int i = 0; i < arrayDimensions; i++) {
+                sb.append("arr[").append(arraySize).append("] ");
+            }
+            sb.append("integer;\n");
+        }
+        for (int i = 0; i < definitions; i++) {
+            function(i);
+        }
+        sb.append("fun main(x : integer) : integer = (print_int(f0(").append(loopCount).append(")), 0)\n");
+        return sb.toString();
+    }
+
+    /**
+     * Funkcija na vrhnjem nivoju: zanka nad izrazom, dostop do tabele,
+     * gnezdene funkcije in klici naslednjih funkcij.
+     */
+    private void function(int index) {
+        var name = "f" + index;
+        var type = typedefChain > 0 ? "t" + (typedefChain - 1) : "integer";
+        List<String> variables = List.of("n", "s", "i");
+
+        sb.append("fun ").append(name).append("(n : ").append(type).append(") : ").append(type).append(" = (\n");
+        sb.append("    {s = ").append(index % 10).append("},\n");
+        sb.append("    {for i = 0, ").append(loopCount).append(", 1 : {s = (").append(expression(variables)).append(") % 1000}},\n");
+        if (arrayDimensions > 0) {
+            sb.append("    {").append(element()).append(" = s},\n");
+            sb.append("    {s = s + ").append(element()).append("},\n");
+        }
+        sb.append("    {if s < 0 then {s = 0 - s} else {s = s + 1}},\n");
+        if (depth > 0) {
+            sb.append("    {s = s + ").append(name).append("_1(s % 10)},\n");
+        }
+        var calls = new StringBuilder("s");
+        for (var callee : new int[] { 2 * index + 1, 2 * index + 2 }) {
+            if (callee < definitions) {
+                calls.append(" + f").append(callee).append("(n)");
+            }
+        }
+        sb.append("    ").append(calls).append("\n");
+        sb.append(") {where var s : ").append(type).append("; var i : integer");
+        if (depth > 0) {
+            sb.append(";\n");
+            nested(name, 1, "s");
+        }
+        sb.append("};\n");
+    }
+
+    /**
+     * Gnezdena funkcija na nivoju `level`, ki uporablja spremenljivko
+     * obdajajoče funkcije (dostop prek statične povezave).
+     */
+    private void nested(String prefix, int level, String outer) {
+        var name = prefix + "_" + level;
+        var local = "v" + level;
+        var indent = "    ".repeat(level);
+        List<String> variables = new ArrayList<>(List.of("m", local, outer));
+
+        sb.append(indent).append("fun ").append(name).append("(m : integer) : integer = (\n");
+        sb.append(indent).append("    {").append(local).append(" = m + ").append(outer).append(" % 10},\n");
+        sb.append(indent).append("    {while ").append(local).append(" > 100 : {").append(local).append(" = ").append(local).append(" / 2}},\n");
+        sb.append(indent).append("    {").append(local).append(" = (").append(expression(variables)).append(") % 1000},\n");
+        if (level < depth) {
+            sb.append(indent).append("    ").append(local).append(" + ").append(name).append("_").append(level + 1).append("(m)\n");
+        } else {
+            sb.append(indent).append("    ").append(local).append("\n");
+        }
+        sb.append(indent).append(") {where var ").append(local).append(" : integer");
+        if (level < depth) {
+            sb.append(";\n");
+            nested(name, level + 1, local);
+        }
+        sb.append("}");
+    }
+
+    /**
+     * Izraz z `expressionLength` členi (spremenljivke in konstante).
+     */
+    private String expression(List<String> variables) {
+        var expr = new StringBuilder();
+        for (int i = 0; i < expressionLength; i++) {
+            if (i > 0) {
+                switch (random.nextInt(4)) {
+                    case 0:
+                        expr.append(" + ");
+                        break;
+                    case 1:
+                        expr.append(" - ");
+                        break;
+                    case 2:
+                        expr.append(" * ");
+                        break;
+                    default:
+                        expr.append(" % ");
+                        // desni operand ostanka je neničelna konstanta
+                        expr.append(random.nextInt(9) + 1);
+                        continue;
+                }
+            }
+            if (random.nextBoolean()) {
+                expr.append(variables.get(random.nextInt(variables.size())));
+            } else {
+                expr.append(random.nextInt(10));
+            }
+        }
+        return expr.toString();
+    }
+
+    /**
+     * Element globalne tabele, indeksiran s števcem zanke.
+     */
+    private String element() {
+        var element = new StringBuilder("g");
+        for (int i = 0; i < arrayDimensions; i++) {
+            element.append("[(i + ").append(i).append(") % ").append(arraySize).append("]");
+        }
+        return element.toString();
+    }
+}
@@ -0,0 +1,213 @@
+/**
+ * @ Author: tevz
+ * @ Description: Programi PINS za meritve izvajalnih strojev.
+ *
+ * Programi svoje globalne spremenljivke inicializirajo sami,
+ * zato jih lahko nad istim pomnilnikom izvedemo večkrat.
+ *
+ * Programi zbirke `MACRO` izpišejo kontrolno vsoto, s katero
+ * preverimo, da vsi izvajalni stroji izračunajo enak rezultat.
+ */
+
+package benchmark;
+
+public class Programs {
+    /**
+     * Rekurzivni klici (fib(20)).
+     */
+    public static final String FIB = String.join("\n",
+        "fun fib(n : integer) : integer = ({if n < 2 then {r = n} else {r = fib(n - 1) + fib(n - 2)}}, r) {where var r : integer};",
+        "fun main(x : integer) : integer = (print_int(fib(20)), 0)");
+
+    /**
+     * Funkcija z dvema argumentoma (gcd(1071, 462) = 21).
+     */
+    public static final String GCD = String.join("\n",
+        "fun gcd(a : integer, b : integer) : integer = ({if b == 0 then {r = a} else {r = gcd(b, a % b)}}, r) {where var r : integer};",
+        "fun main(x : integer) : integer = (print_int(gcd(1071, 462)), 0)");
+
+    /**
+     * Aritmetika in skoki v zanki.
+     */
+    public static final String LOOP = String.join("\n",
+        "var s : integer;",
+        "var i : integer;",
+        "fun main(x : integer) : integer = (",
+        "    {s = 0},",
+        "    {for i = 0, 20000, 1 : {s = s + i % 3 * 2 - 1}},",
+        "    s",
+        ")");
+
+    /**
+     * Dostopi do tabele.
+     */
+    public static final String ARRAY = String.join("\n",
+        "var a : arr[1000] integer;",
+        "var i : integer;",
+        "var k : integer;",
+        "var s : integer;",
+        "fun main(x : integer) : integer = (",
+        "    {for i = 0, 1000, 1 : {a[i] = i}},",
+        "    {for k = 0, 10, 1 : {for i = 1, 1000, 1 : {a[i] = a[i] + a[i - 1] % 7}}},",
+        "    {s = 0},",
+        "    {for i = 0, 1000, 1 : {s = s + a[i]}},",
+        "    s",
+        ")");
+
+    /**
+     * Eratostenovo rešeto do 10000.
+     */
+    public static final String SIEVE = String.join("\n",
+        "var p : arr[10000] logical;",
+        "var i : integer;",
+        "var j : integer;",
+        "var c : integer;",
+        "fun main(x : integer) : integer = (",
+        "    {for i = 0, 10000, 1 : {p[i] = true}},",
+        "    {for i = 2, 100, 1 : (",
+        "        {j = 10000},",
+        "        {if p[i] then {j = i * i}},",
+        "        {while j < 10000 : ({p[j] = false}, {j = j + i})}",
+        "    )},",
+        "    {c = 0},",
+        "    {for i = 2, 10000, 1 : {if p[i] then {c = c + 1}}},",
+        "    print_int(c),",
+        "    0",
+        ")");
+
+    /**
+     * Množenje matrik 24x24, predstavljenih z gnezdenimi tabelami.
+     */
+    public static final String MATMUL = String.join("\n",
+        "typ row : arr[24] integer;",
+        "typ matrix : arr[24] row;",
+        "var a : matrix;",
+        "var b : matrix;",
+        "var c : matrix;",
+        "var i : integer;",
+        "var j : integer;",
+        "var k : integer;",
+        "var s : integer;",
+        "fun main(x : integer) : integer = (",
+        "    {for i = 0, 24, 1 : {for j = 0, 24, 1 : ({a[i][j] = (i + j) % 7}, {b[i][j] = i * j % 5 - 2})}},",
+        "    {for i = 0, 24, 1 : {for j = 0, 24, 1 : ({s = 0}, {for k = 0, 24, 1 : {s = s + a[i][k] * b[k][j]}}, {c[i][j] = s})}},",
+        "    {s = 0},",
+        "    {for i = 0, 24, 1 : {for j = 0, 24, 1 : {s = s + c[i][j] * (i + 1)}}},",
+        "    print_int(s),",
+        "    0",
+        ")");
+
+    /**
+     * Urejanje z vstavljanjem 400 psevdonaključnih števil.
+     */
+    public static final String INSERTION_SORT = String.join("\n",
+        "var a : arr[400] integer;",
+        "var i : integer;",
+        "var j : integer;",
+        "var v : integer;",
+        "var key : integer;",
+        "var go : logical;",
+        "fun main(x : integer) : integer = (",
+        "    {v = 1},",
+        "    {for i = 0, 400, 1 : ({v = (v * 1103 + 12345) % 65536}, {a[i] = v})},",
+        "    {for i = 1, 400, 1 : (",
+        "        {key = a[i]},",
+        "        {j = i},",
+        "        {go = true},",
+        "        {while go : (",
+        "            {if j > 0 then {go = a[j - 1] > key} else {go = false}},",
+        "            {if go then ({a[j] = a[j - 1]}, {j = j - 1})}",
+        "        )},",
+        "        {a[j] = key}",
+        "    )},",
+        "    {v = 0},",
+        "    {for i = 0, 400, 1 : {v = (v * 31 + a[i]) % 1000003}},",
+        "    print_int(v),",
+        "    0",
+        ")");
+
+    /**
+     * Rekurzivno hitro urejanje 2000 psevdonaključnih števil.
+     */
+    public static final String QUICK_SORT = String.join("\n",
+        "var a : arr[2000] integer;",
+        "var i : integer;",
+        "var v : integer;",
+        "fun quick(lo : integer, hi : integer) : integer = (",
+        "    {if lo < hi then (",
+        "        {pivot = a[(lo + hi) / 2]},",
+        "        {i = lo},",
+        "        {j = hi},",
+        "        {while i <= j : (",
+        "            {while a[i] < pivot : {i = i + 1}},",
+        "            {while a[j] > pivot : {j = j - 1}},",
+        "            {if i <= j then ({t = a[i]}, {a[i] = a[j]}, {a[j] = t}, {i = i + 1}, {j = j - 1})}",
+        "        )},",
+        "        {t = quick(lo, j)},",
+        "        {t = quick(i, hi)}",
+        "    )},",
+        "    0",
+        ") {where var pivot : integer; var i : integer; var j : integer; var t : integer};",
+        "fun main(x : integer) : integer = (",
+        "    {v = 7},",
+        "    {for i = 0, 2000, 1 : ({v = (v * 1103 + 12345) % 65536}, {a[i] = v})},",
+        "    quick(0, 1999),",
+        "    {v = 0},",
+        "    {for i = 0, 2000, 1 : {v = (v * 31 + a[i]) % 1000003}},",
+        "    print_int(v),",
+        "    0",
+        ")");
+
+    /**
+     * Skupno število korakov zaporedij Collatz za začetne vrednosti do 3000.
+     */
+    public static final String COLLATZ = String.join("\n",
+        "var n : integer;",
+        "var v : integer;",
+        "var steps : integer;",
+        "var total : integer;",
+        "fun main(x : integer) : integer = (",
+        "    {total = 0},",
+        "    {for n = 1, 3000, 1 : (",
+        "        {v = n},",
+        "        {steps = 0},",
+        "        {while v != 1 : ({if v % 2 == 0 then {v = v / 2} else {v = 3 * v + 1}}, {steps = steps + 1})},",
+        "        {total = total + steps}",
+        "    )},",
+        "    print_int(total),",
+        "    0",
+        ")");
+
+    /**
+     * Imena programov zbirke makro meritev (`MacroBenchmark`).
+     */
+    public static final String[] MACRO = { "SIEVE", "FIB", "MATMUL", "INSERTION_SORT", "QUICK_SORT", "COLLATZ" };
+
+    /**
+     * Vrne program s podanim imenom (npr. `FIB`, `GCD`, `LOOP` ali `ARRAY`).
+     */
+    public static String forName(String name) {
+        switch (name) {
+            case "FIB":
+                return FIB;
+            case "GCD":
+                return GCD;
+            case "LOOP":
+                return LOOP;
+            case "ARRAY":
+                return ARRAY;
+            case "SIEVE":
+                return SIEVE;
+            case "MATMUL":
+                return MATMUL;
+            case "INSERTION_SORT":
+                return INSERTION_SORT;
+            case "QUICK_SORT":
+                return QUICK_SORT;
+            case "COLLATZ":
+                return COLLATZ;
+            default:
+                throw new IllegalArgumentException("Unknown program " + name + "!");
+        }
+    }
+}
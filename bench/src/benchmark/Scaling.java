@@ -0,0 +1,193 @@
+/**
+ * @ Author: tevz
+ * @ Description: Meritev skaliranja faz prevajanja in izvajanja.
+ *
+ * Za eno nastavitev generatorja (`ProgramGenerator`) podvaja vrednost
+ * od `from` do `to` in za vsak generiran program izmeri čas vsake faze
+ * (najboljši od več ponovitev). Izpiše CSV (vrednost, dolžina programa,
+ * čas faz v ms), na koncu pa za vsako fazo eksponent rasti
+ * `log(t_zadnji / t_prvi) / log(v_zadnji / v_prvi)`; fazo z eksponentom
+ * nad `superlinear` označi.
+ *
+ * Uporaba: `benchmark.Scaling <nastavitev> <from> <to> [ostale nastavitve]`,
+ * npr. `make bench BENCH="benchmark.Scaling definitions 100 3200"`.
+ */
+
+package benchmark;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import compiler.frm.Access;
+import compiler.frm.Frame;
+import compiler.frm.FrameEvaluator;
+import compiler.gen.LinCodeGenerator;
+import compiler.gen.Linker;
+import compiler.gen.Memory;
+import compiler.interpret.Interpreter;
+import compiler.ir.IRCodeGenerator;
+import compiler.ir.chunk.Chunk;
+import compiler.ir.chunk.Chunk.LinkedCodeChunk;
+import compiler.lexer.Lexer;
+import compiler.lexer.Symbol;
+import compiler.parser.Parser;
+import compiler.parser.ast.Ast;
+import compiler.parser.ast.def.Def;
+import compiler.seman.common.NodeDescription;
+import compiler.seman.name.NameChecker;
+import compiler.seman.name.env.FastSymbolTable;
+import compiler.seman.type.TypeChecker;
+import compiler.seman.type.type.Type;
+
+public class Scaling {
+    private static final String[] phases = { "LEX", "SYN", "NAME", "TYP", "FRM", "IMC", "LIN", "LINK", "INT" };
+    private static final int warmup = 10;
+    private static final int repetitions = 5;
+    private static final int memorySize = 1 << 20;
+
+    /**
+     * Meja eksponenta rasti, nad katero je faza označena kot nadlinearna.
+     */
+    private static final double superlinear = 1.5;
+
+    /**
+     * Meja skupnega časa ene ponovitve (ms); ko je presežena, se podvajanje
+     * ustavi.
+     */
+    private static final double limit = 10_000;
+
+    /**
+     * Časi, krajši od te meje (ms), so preveč šumni za izračun eksponenta.
+     */
+    private static final double resolution = 0.05;
+
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length < 3) {
+            System.err.println("Usage: benchmark.Scaling <knob> <from> <to> [knob=value,...]");
+            System.exit(1);
+        }
+        // globoko gnezdeni programi potrebujejo velik sklad
+        var thread = new Thread(null, () -> sweep(args), "scaling", 1L << 26);
+        thread.start();
+        thread.join();
+    }
+
+    private static void sweep(String[] args) {
+        var knob = args[0];
+        var from = Long.parseLong(args[1]);
+        var to = Long.parseLong(args[2]);
+        var base = args.length > 3 ? args[3] : "";
+        if (from < 1 || to < from) {
+            throw new IllegalArgumentException("Expected 1 <= from <= to!");
+        }
+
+        // ogrevanje JIT na najmanjšem programu
+        var first = ProgramGenerator.parse(base).set(knob, from).generate();
+        for (int i = 0; i < warmup; i++) {
+            measure(first);
+        }
+
+        System.out.println(knob + ", chars, " + String.join(", ", phases));
+        List<Long> values = new ArrayList<>();
+        List<double[]> times = new ArrayList<>();
+        for (long value = from; value <= to; value *= 2) {
+            var source = ProgramGenerator.parse(base).set(knob, value).generate();
+            var best = new double[phases.length];
+            Arrays.fill(best, Double.MAX_VALUE);
+            double total = 0;
+            for (int i = 0; i < repetitions; i++) {
+                var measured = measure(source);
+                total = 0;
+                for (int p = 0; p < phases.length; p++) {
+                    best[p] = Math.min(best[p], measured[p]);
+                    total += measured[p];
+                }
+            }
+            var line = new StringBuilder().append(value).append(", ").append(source.length());
+            for (var time : best) {
+                line.append(String.format(", %.3f", time));
+            }
+            System.out.println(line);
+            values.add(value);
+            times.add(best);
+            if (total > limit) {
+                break;
+            }
+        }
+
+        if (values.size() < 2) {
+            return;
+        }
+        var ratio = Math.log((double) values.get(values.size() - 1) / values.get(0));
+        System.out.println();
+        System.out.println("phase, exponent");
+        for (int p = 0; p < phases.length; p++) {
+            var initial = times.get(0)[p];
+            var last = times.get(times.size() - 1)[p];
+            if (initial < resolution || last < resolution) {
+                System.out.println(phases[p] + ", ?");
+                continue;
+            }
+            var exponent = Math.log(last / initial) / ratio;
+            System.out.printf("%s, %.2f%s%n", phases[p], exponent, exponent > superlinear ? ", superlinear" : "");
+        }
+    }
+
+    /**
+     * Enkrat izvede vse faze in vrne njihove čase v ms.
+     */
+    private static double[] measure(String source) {
+        var times = new double[phases.length];
+        var timer = new Timer(times);
+
+        List<Symbol> symbols = timer.time(() -> new Lexer(source).scan());
+        Ast ast = timer.time(() -> new Parser(symbols, Optional.empty()).parse());
+        var definitions = new NodeDescription<Def>();
+        timer.run(() -> ast.accept(new NameChecker(definitions, new FastSymbolTable())));
+        var types = new NodeDescription<Type>();
+        timer.run(() -> ast.accept(new TypeChecker(definitions, types)));
+        var frames = new NodeDescription<Frame>();
+        var accesses = new NodeDescription<Access>();
+        timer.run(() -> ast.accept(new FrameEvaluator(frames, accesses, definitions, types)));
+        List<Chunk> chunks = timer.time(() -> {
+            var generator = new IRCodeGenerator(new NodeDescription<>(), frames, accesses, definitions, types);
+            ast.accept(generator);
+            return generator.chunks;
+        });
+        var memory = new Memory(memorySize);
+        var codeChunks = timer.time(() -> new LinCodeGenerator(memory).generateCode(chunks));
+        LinkedCodeChunk main = timer.time(() -> new Linker(memory).link(codeChunks)
+            .orElseThrow(() -> new IllegalArgumentException("Missing 'main'!")));
+        timer.run(() -> new Interpreter(memory, Optional.empty()).interpret(main));
+        return times;
+    }
+
+    /**
+     * Zaporedoma meri faze in shranjuje njihove čase.
+     */
+    private static class Timer {
+        final double[] times;
+        int phase = 0;
+
+        Timer(double[] times) {
+            this.times = times;
+        }
+
+        <T> T time(Supplier<T> action) {
+            var start = System.nanoTime();
+            var result = action.get();
+            times[phase++] = (System.nanoTime() - start) / 1e6;
+            return result;
+        }
+
+        void run(Runnable action) {
+            time(() -> {
+                action.run();
+                return null;
+            });
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/**
+ * @ Author: tevz
+ * @ Description: Vhodi različnih velikosti za meritve faz prevajanja.
+ *
+ * - `SMALL`: en sam kratek program (`Programs.FIB`),
+ * - `MEDIUM`: 100 funkcij z zankami in pogojnimi stavki,
+ * - `HUGE`: 2000 takih funkcij.
+ *
+ * Funkcija `f<i>` kliče `f<i-1>`, `main` pa zadnjo funkcijo, zato se
+ * pri izvajanju vsaka funkcija izvede enkrat.
+ *
+ * Namesto imena velikosti so lahko podane nastavitve generatorja
+ * (`ProgramGenerator`), npr. `definitions=500;depth=3`.
+ */
+
+package benchmark;
+
+public class Sources {
+    /**
+     * Vrne vhod s podanim imenom velikosti (`SMALL`, `MEDIUM` ali `HUGE`)
+     * ali sintetični program s podanimi nastavitvami generatorja.
+     */
+    public static String forSize(String size) {
+        switch (size) {
+            case "SMALL":
+                return Programs.FIB;
+            case "MEDIUM":
+                return functions(100);
+            case "HUGE":
+                return functions(2000);
+            default:
+                if (size.contains("=")) {
+                    return ProgramGenerator.parse(size).generate();
+                }
+                throw new IllegalArgumentException("Unknown size " + size + "!");
+        }
+    }
+
+    /**
+     * Ustvari program s `count` funkcijami.
+     */
+    public static String functions(int count) {
+        var sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.append("fun f").append(i).append("(n : integer) : integer = (\n");
+            sb.append("    {s = 0},\n");
+            sb.append("    {for j = 0, n, 1 : {if j % 3 == 0 then {s = s + j * ").append(i % 7 + 1).append("} else {s = s - 1}}},\n");
+            sb.append("    {while s > 1000 : {s = s / 2}},\n");
+            if (i > 0) {
+                sb.append("    s + f").append(i - 1).append("(n) % 100\n");
+            } else {
+                sb.append("    s\n");
+            }
+            sb.append(") {where var s : integer; var j : integer};\n");
+        }
+        sb.append("fun main(x : integer) : integer = (f").append(count - 1).append("(10), 0)\n");
+        return sb.toString();
+    }
+}
@@ -6,20 +6,49 @@
 import java.io.IOException;
 import java.io.PrintStream;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 import cli.PINS;
+import common.Report;
+import common.Statistics;
+import cli.PINS.Optimization;
 import cli.PINS.Phase;
+import compiler.aot.AotCompiler;
+import compiler.common.NodeCounter;
 import compiler.common.PrettyPrintVisitor4;
 import compiler.frm.Access;
 import compiler.frm.Frame;
 import compiler.frm.FrameEvaluator;
 import compiler.gen.LinCodeGenerator;
+import compiler.gen.Linker;
 import compiler.gen.Memory;
+import compiler.gen.Storage;
 import compiler.interpret.Interpreter;
+import compiler.interpret.StackInterpreter;
+import compiler.interpret.bytecode.BytecodeCompiler;
+import compiler.interpret.bytecode.BytecodeVM;
+import compiler.interpret.closure.ClosureCompiler;
+import compiler.interpret.closure.ClosureMachine;
+import compiler.interpret.jit.TieredInterpreter;
+import compiler.interpret.cost.CostModel;
+import compiler.interpret.cost.CycleCounter;
+import compiler.interpret.profile.ProfilingInterpreter;
 import compiler.ir.IRCodeGenerator;
+import compiler.ir.IRNodeCounter;
 import compiler.ir.IRPrettyPrint;
+import compiler.ir.SourceMap;
+import compiler.ir.chunk.Chunk.CodeChunk;
+import compiler.ir.opt.BlockLayout;
+import compiler.ir.opt.CommonSubexpressions;
+import compiler.ir.opt.ConstantFolding;
+import compiler.ir.opt.CopyPropagation;
+import compiler.ir.opt.DeadCodeElimination;
+import compiler.ir.opt.JumpThreading;
+import compiler.ir.opt.TailCallElimination;
 import compiler.lexer.Lexer;
 import compiler.parser.Parser;
 import compiler.parser.ast.def.Def;
@@ -51,10 +80,21 @@ public class Main {
     }
 
     private static void run(PINS cli, String sourceCode) {
+        var statistics = new Statistics(cli.stats);
+        try {
+            run(cli, sourceCode, statistics);
+        } finally {
+            statistics.print(System.err);
+        }
+    }
+
+    private static void run(PINS cli, String sourceCode, Statistics statistics) {
         /**
          * Izvedi leksikalno analizo.
          */
+        statistics.start("LEX");
         var symbols = new Lexer(sourceCode).scan();
+        statistics.stop("tokens", () -> symbols.size());
         if (cli.dumpPhases.contains(Phase.LEX)) {
             for (var symbol : symbols) {
                 System.out.println(symbol.toString());
@@ -69,8 +109,14 @@ public class Main {
         Optional<PrintStream> out = cli.dumpPhases.contains(Phase.SYN) 
                 ? Optional.of(System.out)
                 : Optional.empty();
+        statistics.start("SYN");
         var parser = new Parser(symbols, out);
         var ast = parser.parse();
+        statistics.stop("AST nodes", () -> {
+            var counter = new NodeCounter();
+            ast.accept(counter);
+            return counter.count;
+        });
         if (cli.execPhase == Phase.SYN) {
             return;
         }
@@ -87,10 +133,12 @@ public class Main {
         /**
          * Izvedi razreševanje imen.
          */
+        statistics.start("NAME");
         SymbolTable symbolTable = new FastSymbolTable();
         var definitions = new NodeDescription<Def>();
         var nameChecker = new NameChecker(definitions, symbolTable);
         ast.accept(nameChecker);
+        statistics.stop("definitions", () -> definitions.size());
         if (cli.dumpPhases.contains(Phase.NAME)) {
             prettyPrint.definitions = Optional.of(definitions);
             ast.accept(prettyPrint);
@@ -101,9 +149,11 @@ public class Main {
         /**
          * Izvedi preverjanje tipov.
          */
+        statistics.start("TYP");
         var types = new NodeDescription<Type>();
         var typeChecker = new TypeChecker(definitions, types);
         ast.accept(typeChecker);
+        statistics.stop("types", () -> types.size());
         if (cli.dumpPhases.contains(Phase.TYP)) {
             prettyPrint.definitions = Optional.of(definitions);
             prettyPrint.types = Optional.of(types);
@@ -117,8 +167,10 @@ public class Main {
          */
         var frames = new NodeDescription<Frame>();
         var accesses = new NodeDescription<Access>();
+        statistics.start("FRM");
         var frameEvaluator = new FrameEvaluator(frames, accesses, definitions, types);
         ast.accept(frameEvaluator);
+        statistics.stop("frames and accesses", () -> frames.size() + accesses.size());
         if (cli.dumpPhases.contains(Phase.FRM)) {
             prettyPrint.definitions = Optional.of(definitions);
             prettyPrint.types = Optional.of(types);
@@ -132,10 +184,28 @@ public class Main {
         /**
          * Generiranje vmesne kode.
          */
-        var generator = new IRCodeGenerator(new NodeDescription<>(), frames, accesses, definitions, types);
+        Optional<SourceMap> sourceMap = cli.profile ? Optional.of(new SourceMap()) : Optional.empty();
+        statistics.start("IMC");
+        var generator = new IRCodeGenerator(new NodeDescription<>(), frames, accesses, definitions, types, sourceMap);
         ast.accept(generator);
+        statistics.stop("IR nodes", () -> IRNodeCounter.count(generator.chunks));
+        var chunks = generator.chunks;
+        /**
+         * Optimizacija vmesne kode.
+         */
+        if (cli.optimizations.contains(Optimization.TAIL) || cli.optimizations.contains(Optimization.FOLD)) {
+            statistics.start("OPT");
+            if (cli.optimizations.contains(Optimization.TAIL)) {
+                chunks = new TailCallElimination(sourceMap).apply(chunks);
+            }
+            if (cli.optimizations.contains(Optimization.FOLD)) {
+                chunks = new ConstantFolding(sourceMap).apply(chunks);
+            }
+            var optimized = chunks;
+            statistics.stop("IR nodes", () -> IRNodeCounter.count(optimized));
+        }
         if (cli.dumpPhases.contains(Phase.IMC)) {
-            new IRPrettyPrint(System.out, 2).print(generator.chunks);
+            new IRPrettyPrint(System.out, 2).print(chunks);
         }
         if (cli.execPhase == Phase.IMC) {
             return;
@@ -143,18 +213,204 @@ public class Main {
         /**
          * Linearizacija vmesne kode.
          */
-        var memory = new Memory(cli.memory);
-        var mainCodeChunk = new LinCodeGenerator(memory).generateCode(generator.chunks);
+        statistics.start("LIN");
+        var memory = new Memory(cli.memory, storage(cli));
+        var linearChunks = new LinCodeGenerator(memory, sourceMap).generateCode(chunks);
+        statistics.stop("statements", () -> statements(linearChunks));
+        /**
+         * Optimizacija linearizirane kode.
+         */
+        var codeChunks = linearChunks;
+        if (cli.optimizations.contains(Optimization.CSE) || cli.optimizations.contains(Optimization.DEAD)
+                || cli.optimizations.contains(Optimization.COPY) || cli.optimizations.contains(Optimization.THREAD)
+                || cli.optimizations.contains(Optimization.LAYOUT)) {
+            statistics.start("LOPT");
+            if (cli.optimizations.contains(Optimization.THREAD)) {
+                codeChunks = new JumpThreading(sourceMap).apply(codeChunks);
+            }
+            if (cli.optimizations.contains(Optimization.LAYOUT)) {
+                codeChunks = new BlockLayout(sourceMap).apply(codeChunks);
+            }
+            if (cli.optimizations.contains(Optimization.DEAD)) {
+                codeChunks = new DeadCodeElimination(sourceMap).apply(codeChunks);
+            }
+            if (cli.optimizations.contains(Optimization.CSE)) {
+                codeChunks = new CommonSubexpressions(sourceMap).apply(codeChunks);
+            }
+            if (cli.optimizations.contains(Optimization.COPY)) {
+                codeChunks = new CopyPropagation(sourceMap).apply(codeChunks);
+            }
+            var optimized = codeChunks;
+            statistics.stop("statements", () -> statements(optimized));
+        }
+        /**
+         * Povezovanje linearizirane kode.
+         */
+        statistics.start("LINK");
+        var linkedChunks = codeChunks;
+        var mainCodeChunk = new Linker(memory).link(linkedChunks);
+        statistics.stop("functions", () -> linkedChunks.size());
+        /**
+         * Prevajanje v izvršljiv JAR.
+         */
+        if (cli.execPhase == Phase.JAR) {
+            if (mainCodeChunk.isEmpty()) {
+                Report.error("Missing 'main'");
+            }
+            Map<String, byte[]> classes = null;
+            try {
+                classes = new AotCompiler(memory).compile(chunks, mainCodeChunk.get());
+            } catch (IllegalStateException e) {
+                Report.error("Cannot compile to JAR: " + e.getMessage());
+            }
+            var jar = !cli.jar.isEmpty() ? cli.jar : cli.sourceFile.replaceFirst("(\\.pins)?$", ".jar");
+            try {
+                AotCompiler.writeJar(classes, Paths.get(jar));
+            } catch (IOException e) {
+                Report.error("Cannot write JAR: " + e.getMessage());
+            }
+            return;
+        }
         if (!cli.dumpPhases.contains(Phase.INT)) {
             return;
         }
         /**
          * Izvajanje vmesne kode.
          */
+        if (cli.profile && cli.engine != PINS.Engine.TREE) {
+            Report.error("Profiling (--profile) is only supported by --engine TREE");
+        }
+        if (cli.cycles && (cli.engine != PINS.Engine.TREE || cli.profile)) {
+            Report.error("Counting cycles (--cycles) is only supported by --engine TREE, without --profile");
+        }
         if (mainCodeChunk.isPresent()) {
             Optional<PrintStream> outputStream = cli.dumpPhases.contains(Phase.INT) ? Optional.of(System.out) : Optional.empty();
-            var interpreter = new Interpreter(memory, outputStream);
-            interpreter.interpret(mainCodeChunk.get());
+            statistics.start("INT");
+            try {
+                switch (cli.engine) {
+                    case TREE:
+                        if (cli.cycles) {
+                            var counter = new CycleCounter(memory, outputStream, costModel(cli));
+                            counter.interpret(mainCodeChunk.get());
+                            counter.report(System.err);
+                            break;
+                        }
+                        if (sourceMap.isPresent()) {
+                            var profiler = new ProfilingInterpreter(memory, outputStream, sourceMap.get());
+                            profiler.interpret(mainCodeChunk.get());
+                            report(cli, profiler);
+                            break;
+                        }
+                        var interpreter = new Interpreter(memory, outputStream);
+                        interpreter.interpret(mainCodeChunk.get());
+                        break;
+                    case BYTECODE:
+                        var program = new BytecodeCompiler(memory).compile(codeChunks);
+                        var vm = new BytecodeVM(memory, outputStream, program);
+                        vm.run(program.main().get());
+                        break;
+                    case CLOSURE:
+                        var machine = new ClosureMachine(memory, outputStream);
+                        var main = new ClosureCompiler(memory, machine).compile(mainCodeChunk.get());
+                        machine.run(main);
+                        break;
+                    case JIT:
+                        var tiered = new TieredInterpreter(memory, outputStream, cli.jitThreshold);
+                        tiered.interpret(mainCodeChunk.get());
+                        break;
+                    case STACK:
+                        new StackInterpreter(memory, outputStream).interpret(mainCodeChunk.get());
+                        break;
+                }
+            } finally {
+                if (memory.storage instanceof Storage.Paged paged) {
+                    statistics.stop("resident pages of " + paged.totalPages(), () -> paged.residentPages());
+                } else {
+                    statistics.stop();
+                }
+                if (memory.storage instanceof Storage.Mapped mapped && !cli.image.isEmpty()) {
+                    saveImage(memory, mapped);
+                }
+            }
+        }
+    }
+
+    /**
+     * Vrne skupno število stavkov lineariziranih fragmentov kode.
+     */
+    private static long statements(List<CodeChunk> chunks) {
+        long count = 0;
+        for (var chunk : chunks) {
+            count += chunk.code.statements().size();
+        }
+        return count;
+    }
+
+    /**
+     * Izpiše profil izvajanja in zapiše strnjene sklade klicev.
+     */
+    private static void report(PINS cli, ProfilingInterpreter profiler) {
+        profiler.report(System.err);
+        if (!cli.profileStacks.isEmpty()) {
+            try (var out = new PrintStream(Files.newOutputStream(Paths.get(cli.profileStacks)))) {
+                profiler.writeStacks(out);
+            } catch (IOException e) {
+                Report.error("Cannot write call stacks: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Prebere tabelo cen operacij (`--cost-model`) ali vrne privzeto.
+     */
+    private static CostModel costModel(PINS cli) {
+        if (cli.costModel.isEmpty()) {
+            return new CostModel();
+        }
+        try (var reader = Files.newBufferedReader(Paths.get(cli.costModel))) {
+            return CostModel.load(reader);
+        } catch (IOException | IllegalArgumentException e) {
+            Report.error("Cannot read cost model: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Ustvari shrambo pomnilnika glede na izbran način hranjenja.
+     */
+    private static Storage storage(PINS cli) {
+        var words = Memory.words(cli.memory);
+        switch (cli.memoryModel) {
+            case PAGED:
+                return new Storage.Paged(words);
+            case MAPPED:
+                try {
+                    Path file;
+                    if (!cli.image.isEmpty()) {
+                        file = Paths.get(cli.image);
+                    } else {
+                        file = Files.createTempFile("pins", ".mem");
+                        file.toFile().deleteOnExit();
+                    }
+                    return new Storage.Mapped(words, file);
+                } catch (IOException e) {
+                    Report.error("Cannot map memory image: " + e.getMessage());
+                    return null;
+                }
+            default:
+                return new Storage.Flat(words);
+        }
+    }
+
+    /**
+     * Ohrani preslikan pomnilnik in poleg njega zapiše tabelo simbolov.
+     */
+    private static void saveImage(Memory memory, Storage.Mapped mapped) {
+        mapped.force();
+        try (var out = new PrintStream(Files.newOutputStream(Paths.get(mapped.file.toString() + ".sym")))) {
+            memory.printSymbols(out);
+        } catch (IOException e) {
+            Report.error("Cannot write symbols: " + e.getMessage());
         }
     }
 }
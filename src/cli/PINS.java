@@ -9,6 +9,7 @@ import java.util.EnumSet;
 
 import ArgPar.Annotation.ParsableArgument;
 import ArgPar.Annotation.ParsableCommand;
+import ArgPar.Annotation.ParsableFlag;
 import ArgPar.Annotation.ParsableOption;
 import ArgPar.Exception.ParseException;
 import ArgPar.Parser.ArgumentParser;
@@ -36,6 +37,86 @@ public class PINS {
     @ParsableOption(name = "--memory")
     public int memory = 1024;
 
+    /**
+     * Način hranjenja pomnilnika navideznega stroja.
+     */
+    @ParsableOption(name = "--storage")
+    public MemoryModel memoryModel = MemoryModel.FLAT;
+
+    /**
+     * Datoteka, v katero se preslika pomnilnik (`--storage MAPPED`).
+     *
+     * Če je podana, se datoteka po izvajanju ohrani kot posnetek končnega
+     * stanja pomnilnika, poleg nje pa se zapiše še tabela simbolov
+     * (`<datoteka>.sym`) za pregledovanje posnetka. Posnetek je le izhod:
+     * ob naslednjem zagonu se ne naloži, program se izvede znova,
+     * obstoječa datoteka pa se prepiše.
+     */
+    @ParsableOption(name = "--image")
+    public String image = "";
+
+    /**
+     * Izvajalni stroj, s katerim izvedemo vmesno kodo.
+     */
+    @ParsableOption(name = "--engine")
+    public Engine engine = Engine.TREE;
+
+    /**
+     * Število klicev funkcije, po katerem jo izvajalni stroj `JIT` prevede v kodo JVM.
+     */
+    @ParsableOption(name = "--jit-threshold")
+    public int jitThreshold = 100;
+
+    /**
+     * Datoteka, v katero faza `JAR` zapiše preveden program.
+     *
+     * Privzeto ima enako ime kot izvorna datoteka, s končnico `.jar`.
+     */
+    @ParsableOption(name = "--jar")
+    public String jar = "";
+
+    /**
+     * Optimizacije vmesne kode, ki se izvedejo (privzeto nobena).
+     */
+    @ParsableOption(name = "--optimize")
+    public OptimizationsEnumSet optimizations = OptimizationsEnumSet.empty();
+
+    /**
+     * Ali naj interpreter beleži profil izvajanja (le `--engine TREE`)?
+     *
+     * Poročilo se po izvajanju izpiše na standardni izhod za napake.
+     */
+    @ParsableFlag(name = "--profile")
+    public boolean profile = false;
+
+    /**
+     * Datoteka, v katero se zapišejo strnjeni skladi klicev (`--profile`).
+     */
+    @ParsableOption(name = "--profile-stacks")
+    public String profileStacks = "";
+
+    /**
+     * Ali naj interpreter šteje abstraktne cikle izvajanja (le `--engine TREE`)?
+     *
+     * Poročilo se po izvajanju izpiše na standardni izhod za napake.
+     */
+    @ParsableFlag(name = "--cycles")
+    public boolean cycles = false;
+
+    /**
+     * Datoteka s tabelo cen operacij za `--cycles` (privzeto vgrajena tabela).
+     */
+    @ParsableOption(name = "--cost-model")
+    public String costModel = "";
+
+    /**
+     * Ali naj se za vsako fazo izpiše čas, alocirani pomnilnik in velikost rezultata?
+     *
+     * Poročilo se izpiše na standardni izhod za napake.
+     */
+    @ParsableFlag(name = "--stats")
+    public boolean stats = false;
+
     /**
      * Razčleni argumente.
      */
@@ -55,7 +136,87 @@ public class PINS {
      * Faze prevajanja.
      */
     public static enum Phase {
-        LEX, SYN, AST, NAME, TYP, FRM, IMC, INT
+        LEX, SYN, AST, NAME, TYP, FRM, IMC, INT, JAR
+    }
+
+    /**
+     * Optimizacije vmesne kode.
+     */
+    public static enum Optimization {
+        /**
+         * Odprava repnih rekurzivnih klicev.
+         */
+        TAIL,
+        /**
+         * Zlaganje konstant in algebrajske poenostavitve.
+         */
+        FOLD,
+        /**
+         * Odprava skupnih podizrazov v linearizirani kodi.
+         */
+        CSE,
+        /**
+         * Odstranjevanje mrtve kode v linearizirani kodi.
+         */
+        DEAD,
+        /**
+         * Širjenje kopij in združevanje začasnih spremenljivk v linearizirani kodi.
+         */
+        COPY,
+        /**
+         * Preusmerjanje skokov (skok na skok) v linearizirani kodi.
+         */
+        THREAD,
+        /**
+         * Razvrščanje osnovnih blokov linearizirane kode.
+         */
+        LAYOUT
+    }
+
+    /**
+     * Izvajalni stroji.
+     */
+    public static enum Engine {
+        /**
+         * Interpreter drevesa vmesne kode.
+         */
+        TREE,
+        /**
+         * Registrski navidezni stroj.
+         */
+        BYTECODE,
+        /**
+         * Izvajanje kode, prevedene v drevesa zaprtij.
+         */
+        CLOSURE,
+        /**
+         * Interpreter drevesa vmesne kode, ki pogosto klicane funkcije
+         * prevede v kodo JVM.
+         */
+        JIT,
+        /**
+         * Interpreter drevesa vmesne kode z eksplicitnim skladom klicev
+         * (globina rekurzije je omejena le z velikostjo pomnilnika).
+         */
+        STACK
+    }
+
+    /**
+     * Načini hranjenja pomnilnika.
+     */
+    public static enum MemoryModel {
+        /**
+         * Celoten pomnilnik je ena tabela.
+         */
+        FLAT,
+        /**
+         * Strani pomnilnika se ustvarijo ob prvem pisanju.
+         */
+        PAGED,
+        /**
+         * Pomnilnik je izven kopice, preslikan v datoteko.
+         */
+        MAPPED
     }
 
     /**
@@ -108,4 +269,47 @@ public class PINS {
             return sb.toString();
         }
     }
+
+    /**
+     * Razred, ki hrani izbrane optimizacije.
+     */
+    public static class OptimizationsEnumSet extends ForwardingSet<Optimization> {
+        OptimizationsEnumSet(EnumSet<Optimization> set) {
+            super(set);
+        }
+
+        /**
+         * Ustvari prazno množico.
+         */
+        static OptimizationsEnumSet empty() {
+            return new OptimizationsEnumSet(EnumSet.noneOf(Optimization.class));
+        }
+
+        /**
+         * Razčleni argument in kreira novo množico.
+         *
+         * @param arg Argument, ki ga metoda razčleni v množico optimizacij.
+         */
+        public static OptimizationsEnumSet valueOf(String arg) {
+            var set = empty();
+            for (var s : arg.split(",")) {
+                set.add(Optimization.valueOf(s.trim()));
+            }
+            return set;
+        }
+
+        @Override
+        public String toString() {
+            var sb = new StringBuilder();
+            sb.append("{");
+            for (var optimization : Optimization.values()) {
+                if (contains(optimization)) {
+                    sb.append(sb.length() > 1 ? "," : "");
+                    sb.append(optimization.toString());
+                }
+            }
+            sb.append("}");
+            return sb.toString();
+        }
+    }
 }
@@ -0,0 +1,149 @@
+/**
+ * @ Author: tevz
+ * @ Description: Merjenje posameznih faz prevajanja (`--stats`).
+ *
+ * Za vsako fazo hrani čas izvajanja, število bajtov, ki jih je nit
+ * alocirala med fazo (`com.sun.management.ThreadMXBean`), in velikost
+ * rezultata faze (npr. število simbolov ali vozlišč).
+ *
+ * Ne glede na `--stats` vsaka faza sproži dogodek JFR (`PhaseEvent`),
+ * ki se zapiše, če JVM snema (npr. `-XX:StartFlightRecording`).
+ */
+
+package common;
+
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+import common.jfr.PhaseEvent;
+
+public class Statistics {
+    /**
+     * Ali se faze merijo? Če ne, se sprožijo le dogodki JFR.
+     */
+    public final boolean enabled;
+
+    /**
+     * Merilnik alokacij (`null`, če ga JVM ne podpira).
+     */
+    private final com.sun.management.ThreadMXBean threads;
+
+    /**
+     * Izmerjene faze.
+     */
+    private final List<Entry> entries = new ArrayList<>();
+
+    private String phase;
+    private PhaseEvent event;
+    private long startTime;
+    private long startBytes;
+
+    public Statistics(boolean enabled) {
+        this.enabled = enabled;
+        this.threads = enabled ? allocationCounter() : null;
+    }
+
+    /**
+     * Začne meriti fazo.
+     */
+    public void start(String phase) {
+        this.phase = phase;
+        this.event = new PhaseEvent();
+        this.event.begin();
+        if (!enabled) {
+            return;
+        }
+        this.startBytes = allocatedBytes();
+        this.startTime = System.nanoTime();
+    }
+
+    /**
+     * Konča merjenje faze.
+     *
+     * @param unit enota velikosti rezultata (npr. "tokens").
+     * @param size velikost rezultata faze; izračuna se po koncu merjenja.
+     */
+    public void stop(String unit, LongSupplier size) {
+        event.end();
+        var time = System.nanoTime() - startTime;
+        var bytes = enabled ? allocatedBytes() : -1;
+        if (!enabled && !event.shouldCommit()) {
+            return;
+        }
+        var value = size.getAsLong();
+        if (event.shouldCommit()) {
+            event.phase = phase;
+            event.unit = unit;
+            event.size = value;
+            event.commit();
+        }
+        if (enabled) {
+            entries.add(new Entry(phase, time, bytes < 0 ? -1 : bytes - startBytes, unit, value));
+        }
+    }
+
+    /**
+     * Konča merjenje faze, ki nima rezultata.
+     */
+    public void stop() {
+        stop("", () -> -1);
+    }
+
+    /**
+     * Izpiše tabelo izmerjenih faz.
+     */
+    public void print(PrintStream out) {
+        if (!enabled || entries.isEmpty()) {
+            return;
+        }
+        out.printf("%-6s %12s %14s %12s%n", "phase", "time ms", "allocated KiB", "size");
+        long totalTime = 0;
+        long totalBytes = 0;
+        for (var entry : entries) {
+            out.printf("%-6s %12.3f %14s %12s  %s%n",
+                entry.phase,
+                entry.time / 1e6,
+                entry.bytes < 0 ? "?" : String.valueOf(entry.bytes / 1024),
+                entry.size < 0 ? "" : String.valueOf(entry.size),
+                entry.unit);
+            totalTime += entry.time;
+            totalBytes += Math.max(entry.bytes, 0);
+        }
+        out.printf("%-6s %12.3f %14d%n", "total", totalTime / 1e6, totalBytes / 1024);
+    }
+
+    private long allocatedBytes() {
+        if (threads == null) {
+            return -1;
+        }
+        return threads.getCurrentThreadAllocatedBytes();
+    }
+
+    private static com.sun.management.ThreadMXBean allocationCounter() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean threads
+                && threads.isThreadAllocatedMemorySupported()) {
+            threads.setThreadAllocatedMemoryEnabled(true);
+            return threads;
+        }
+        return null;
+    }
+
+    private static class Entry {
+        final String phase;
+        final long time;
+        final long bytes;
+        final String unit;
+        final long size;
+
+        Entry(String phase, long time, long bytes, String unit, long size) {
+            this.phase = phase;
+            this.time = time;
+            this.bytes = bytes;
+            this.unit = unit;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,41 @@
+/**
+ * @ Author: tevz
+ * @ Description: Dogodek JFR za klic funkcije v interpreterju.
+ *
+ * Klici so pogosti, zato dogodek nima sledi sklada, privzeto pa se
+ * zapišejo le klici, daljši od 1 ms. Prag se nastavi ob snemanju,
+ * npr. `-XX:StartFlightRecording:+pins.Call#threshold=0ms`.
+ *
+ * Interpreter dogodek ustvari le, ko je omogočen (`enabled`), da klic
+ * brez snemanja ne alocira objekta.
+ */
+
+package common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.EventType;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Threshold;
+
+@Name("pins.Call")
+@Label("Function Call")
+@Category("PINS")
+@Description("Klic funkcije (skupaj s klicanimi funkcijami)")
+@StackTrace(false)
+@Threshold("1 ms")
+public class CallEvent extends jdk.jfr.Event {
+    private static final EventType type = EventType.getEventType(CallEvent.class);
+
+    @Label("Function")
+    public String function;
+
+    /**
+     * Ali se dogodek trenutno snema?
+     */
+    public static boolean enabled() {
+        return type.isEnabled();
+    }
+}
@@ -0,0 +1,30 @@
+/**
+ * @ Author: tevz
+ * @ Description: Dogodek JFR za rast pomnilnika navideznega stroja.
+ *
+ * Zapiše se, ko shramba ustvari novo stran (`Storage.Paged`). Dogodek
+ * nima sledi sklada; izklopi se z `+pins.MemoryGrowth#enabled=false`.
+ */
+
+package common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("pins.MemoryGrowth")
+@Label("Memory Growth")
+@Category("PINS")
+@Description("Shramba pomnilnika je ustvarila novo stran")
+@StackTrace(false)
+public class MemoryGrowthEvent extends jdk.jfr.Event {
+    @Label("Resident Pages")
+    public int residentPages;
+
+    @Label("Resident Size")
+    @DataAmount
+    public long residentBytes;
+}
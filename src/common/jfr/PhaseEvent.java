@@ -0,0 +1,27 @@
+/**
+ * @ Author: tevz
+ * @ Description: Dogodek JFR za fazo prevajanja.
+ */
+
+package common.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("pins.Phase")
+@Label("Compiler Phase")
+@Category("PINS")
+@Description("Izvedba faze prevajanja v Main.run")
+public class PhaseEvent extends jdk.jfr.Event {
+    @Label("Phase")
+    public String phase;
+
+    @Label("Output Size")
+    @Description("Velikost rezultata faze (npr. število simbolov ali vozlišč)")
+    public long size;
+
+    @Label("Output Unit")
+    public String unit;
+}
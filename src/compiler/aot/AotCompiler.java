@@ -0,0 +1,383 @@
+/**
+ * @ Author: tevz
+ * @ Description: Prevajanje programa PINS v samostojen izvršljiv JAR.
+ *
+ * Vsak fragment kode se prevede v svoj razred s statično metodo
+ * `execute`, fragmenti podatkov pa v razred `pins.Data`, ki ob zagonu
+ * inicializira podatkovni segment. Razred `pins.Program` vsebuje metodo
+ * `main`. Prevedena koda uporablja izvajalno okolje `runtime.PinsRuntime`,
+ * ki se zapiše v isti JAR, zato za izvajanje ni potreben prevajalnik.
+ */
+
+package compiler.aot;
+
+import static common.RequireNonNull.requireNonNull;
+import static compiler.interpret.jit.ClassWriter.Code.*;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+import common.Constants;
+import compiler.frm.Frame;
+import compiler.gen.Memory;
+import compiler.interpret.StandardLibrary;
+import compiler.interpret.jit.ClassWriter;
+import compiler.ir.chunk.Chunk;
+import compiler.ir.chunk.Chunk.LinkedCodeChunk;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+import runtime.PinsRuntime;
+
+public class AotCompiler {
+    private static final String runtimeName = "runtime/PinsRuntime";
+    private static final String programName = "pins/Program";
+    private static final String dataName = "pins/Data";
+
+    // --------- lokalne spremenljivke metode `execute` ----------
+
+    private static final int framePointerLocal = 0;
+    private static final int stackPointerLocal = 1;
+    private static final int conditionLocal = 2;
+    private static final int firstTempLocal = 3;
+
+    /**
+     * Pomnilnik navideznega stroja (naslovi label in povezana koda).
+     */
+    private final Memory memory;
+
+    /**
+     * Imena razredov prevedenih funkcij.
+     */
+    private final Map<Frame.Label, String> classNames = new HashMap<>();
+
+    /**
+     * Prevedeni razredi (notranje ime -> vsebina datoteke razreda).
+     */
+    private final Map<String, byte[]> classes = new LinkedHashMap<>();
+
+    // --------- stanje prevajanja trenutne funkcije ----------
+
+    private ClassWriter writer;
+    private ClassWriter.Code code;
+    private Map<Frame.Label, ClassWriter.Code.Label> labels;
+
+    public AotCompiler(Memory memory) {
+        requireNonNull(memory);
+        this.memory = memory;
+    }
+
+    /**
+     * Prevede program.
+     *
+     * @param chunks vsi fragmenti programa (iz `IRCodeGenerator`).
+     * @param main povezana koda funkcije `main`.
+     * @return prevedeni razredi (notranje ime -> vsebina datoteke razreda).
+     */
+    public Map<String, byte[]> compile(List<Chunk> chunks, LinkedCodeChunk main) {
+        for (var chunk : chunks) {
+            if (chunk instanceof Chunk.CodeChunk code) {
+                classNames.put(code.frame.label, className(classNames.size(), code.frame.label));
+            }
+        }
+        for (var chunk : chunks) {
+            if (chunk instanceof Chunk.CodeChunk code) {
+                var linked = memory.ldCode(code.frame.label);
+                if (!(linked instanceof LinkedCodeChunk)) {
+                    throw new RuntimeException("Link code!");
+                }
+                classes.put(classNames.get(code.frame.label), compile((LinkedCodeChunk) linked));
+            }
+        }
+        classes.put(dataName, data(chunks));
+        classes.put(programName, program(main));
+        return classes;
+    }
+
+    /**
+     * Zapiše prevedene razrede in izvajalno okolje v izvršljiv JAR.
+     */
+    public static void writeJar(Map<String, byte[]> classes, Path file) throws IOException {
+        var manifest = new Manifest();
+        manifest.getMainAttributes().put(Attributes.Name.MANIFEST_VERSION, "1.0");
+        manifest.getMainAttributes().put(Attributes.Name.MAIN_CLASS, programName.replace('/', '.'));
+        try (var jar = new JarOutputStream(Files.newOutputStream(file), manifest)) {
+            for (var entry : classes.entrySet()) {
+                jar.putNextEntry(new JarEntry(entry.getKey() + ".class"));
+                jar.write(entry.getValue());
+                jar.closeEntry();
+            }
+            jar.putNextEntry(new JarEntry(runtimeName + ".class"));
+            copyRuntime(jar);
+            jar.closeEntry();
+        }
+    }
+
+    private static void copyRuntime(OutputStream out) throws IOException {
+        try (var in = PinsRuntime.class.getResourceAsStream("PinsRuntime.class")) {
+            if (in == null) {
+                throw new IOException("Cannot find runtime class!");
+            }
+            in.transferTo(out);
+        }
+    }
+
+    // --------- razredi programa ----------
+
+    /**
+     * Razred `pins.Data`: inicializacija podatkovnega segmenta.
+     */
+    private byte[] data(List<Chunk> chunks) {
+        writer = new ClassWriter(dataName, "java/lang/Object");
+        code = new ClassWriter.Code(0);
+        for (var chunk : chunks) {
+            if (chunk instanceof Chunk.DataChunk data) {
+                code.constant(memory.address(data.access.label), writer);
+                code.load(writer.string(data.data));
+                code.invoke(INVOKESTATIC, writer.methodRef(runtimeName, "stString", "(ILjava/lang/String;)V"), -2, 2);
+            }
+        }
+        code.op(RETURN, 0);
+        writer.method(ClassWriter.ACC_PUBLIC | ClassWriter.ACC_STATIC, "init", "()V", code);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Razred `pins.Program`: metoda `main`, ki pripravi pomnilnik in pokliče funkcijo `main`.
+     */
+    private byte[] program(LinkedCodeChunk main) {
+        writer = new ClassWriter(programName, "java/lang/Object");
+        code = new ClassWriter.Code(1);
+        code.constant(memory.size, writer);
+        code.invoke(INVOKESTATIC, writer.methodRef(runtimeName, "init", "(I)V"), -1, 1);
+        code.invoke(INVOKESTATIC, writer.methodRef(dataName, "init", "()V"), 0, 0);
+        code.constant(main.frame.oldFPOffset(), writer);
+        code.invoke(INVOKESTATIC, writer.methodRef(runtimeName, "start", "(I)V"), -1, 1);
+        code.invoke(INVOKESTATIC, writer.methodRef(classNames.get(main.frame.label), "execute", "()V"), 0, 0);
+        code.op(RETURN, 0);
+        writer.method(ClassWriter.ACC_PUBLIC | ClassWriter.ACC_STATIC, "main", "([Ljava/lang/String;)V", code);
+        return writer.toByteArray();
+    }
+
+    /**
+     * Razred funkcije: statična metoda `execute`, ki izvede telo funkcije.
+     * Argumenti morajo biti že shranjeni na skladu.
+     */
+    private byte[] compile(LinkedCodeChunk chunk) {
+        writer = new ClassWriter(classNames.get(chunk.frame.label), "java/lang/Object");
+        labels = new HashMap<>();
+        code = new ClassWriter.Code(firstTempLocal + chunk.temps);
+
+        var size = chunk.frame.size();
+        code.constant(size, writer);
+        code.invoke(INVOKESTATIC, writer.methodRef(runtimeName, "enter", "(I)I"), 0, 1);
+        code.op(DUP, 1);
+        code.local(ISTORE, framePointerLocal);
+        code.constant(size, writer);
+        code.op(ISUB, -1);
+        code.local(ISTORE, stackPointerLocal);
+        // JVM zahteva, da so lokalne spremenljivke pred branjem nastavljene
+        for (int i = 0; i < chunk.temps; i++) {
+            code.constant(0, writer);
+            code.local(ISTORE, firstTempLocal + i);
+        }
+
+        for (var stmt : chunk.statements) {
+            compile(stmt);
+        }
+        code.op(RETURN, 0);
+        writer.method(ClassWriter.ACC_PUBLIC | ClassWriter.ACC_STATIC, "execute", "()V", code);
+        return writer.toByteArray();
+    }
+
+    // --------- stavki ----------
+
+    private void compile(IRStmt stmt) {
+        if (stmt instanceof CJumpStmt cjump) {
+            compile(cjump.condition);
+            code.local(ISTORE, conditionLocal);
+            code.local(ILOAD, conditionLocal);
+            code.constant(1, writer);
+            code.jump(IF_ICMPEQ, label(cjump.thenLabel), -2);
+            code.local(ILOAD, conditionLocal);
+            code.jump(IFEQ, label(cjump.elseLabel), -1);
+            code.invoke(INVOKESTATIC, writer.methodRef(runtimeName, "conditionError", "()Ljava/lang/RuntimeException;"), 1, 0);
+            code.op(ATHROW, -1);
+        } else if (stmt instanceof ExpStmt exp) {
+            if (!(exp.expr instanceof TempExpr || exp.expr instanceof ConstantExpr || exp.expr instanceof NameExpr)) {
+                compile(exp.expr);
+                code.op(POP, -1);
+            }
+        } else if (stmt instanceof JumpStmt jump) {
+            code.jump(GOTO, label(jump.label), 0);
+        } else if (stmt instanceof LabelStmt label) {
+            code.place(label(label.label));
+        } else if (stmt instanceof MoveStmt move) {
+            if (move.dst instanceof TempExpr temp) {
+                compile(move.src);
+                code.local(ISTORE, firstTempLocal + temp.temp.id);
+            } else if (move.dst instanceof MemExpr mem) {
+                compile(mem.expr);
+                compile(move.src);
+                code.invoke(INVOKESTATIC, writer.methodRef(runtimeName, "stM", "(II)V"), -2, 2);
+            } else {
+                throw new RuntimeException("unexpected MOVE left child!");
+            }
+        } else {
+            throw new RuntimeException("Cannot compile this statement!");
+        }
+    }
+
+    // --------- izrazi ----------
+
+    /**
+     * Prevede izraz tako, da je njegova vrednost na vrhu sklada.
+     */
+    private void compile(IRExpr expr) {
+        if (expr instanceof BinopExpr binop) {
+            compile(binop.lhs);
+            compile(binop.rhs);
+            compile(binop.op);
+        } else if (expr instanceof CallExpr call) {
+            compile(call);
+        } else if (expr instanceof ConstantExpr constant) {
+            code.constant(constant.constant, writer);
+        } else if (expr instanceof EseqExpr) {
+            throw new RuntimeException("Cannot compile ESEQ; linearize IRCode!");
+        } else if (expr instanceof MemExpr mem) {
+            compile(mem.expr);
+            code.invoke(INVOKESTATIC, writer.methodRef(runtimeName, "ldM", "(I)I"), 0, 1);
+        } else if (expr instanceof NameExpr name) {
+            if (name.label.name.equals(Constants.framePointer)) {
+                code.local(ILOAD, framePointerLocal);
+            } else if (name.label.name.equals(Constants.stackPointer)) {
+                code.local(ILOAD, stackPointerLocal);
+            } else {
+                code.constant(memory.address(name.label), writer);
+            }
+        } else if (expr instanceof TempExpr temp) {
+            code.local(ILOAD, firstTempLocal + temp.temp.id);
+        } else {
+            throw new IllegalArgumentException("Unknown expr type");
+        }
+    }
+
+    private void compile(BinopExpr.Operator op) {
+        switch (op) {
+            case ADD:
+                code.op(IADD, -1);
+                break;
+            case SUB:
+                code.op(ISUB, -1);
+                break;
+            case MUL:
+                code.op(IMUL, -1);
+                break;
+            case DIV:
+                code.op(IDIV, -1);
+                break;
+            case MOD:
+                code.op(IREM, -1);
+                break;
+            case AND:
+                code.op(IAND, -1);
+                break;
+            case OR:
+                code.op(IOR, -1);
+                break;
+            case EQ:
+                compare(IF_ICMPEQ);
+                break;
+            case NEQ:
+                compare(IF_ICMPNE);
+                break;
+            case LT:
+                compare(IF_ICMPLT);
+                break;
+            case GT:
+                compare(IF_ICMPGT);
+                break;
+            case LEQ:
+                compare(IF_ICMPLE);
+                break;
+            case GEQ:
+                compare(IF_ICMPGE);
+                break;
+            default:
+                throw new RuntimeException("Unknown binary operator!");
+        }
+    }
+
+    /**
+     * Primerja vrednosti na vrhu sklada in namesto njiju pusti 1 ali 0.
+     */
+    private void compare(int opcode) {
+        var isTrue = code.label();
+        var end = code.label();
+        code.jump(opcode, isTrue, -2);
+        code.constant(0, writer);
+        code.jump(GOTO, end, 0);
+        code.place(isTrue);
+        code.setStack(code.stack() - 1);
+        code.constant(1, writer);
+        code.place(end);
+    }
+
+    private void compile(CallExpr call) {
+        var function = StandardLibrary.Function.forLabel(call.label);
+        if (function.isPresent()) {
+            var parameters = function.get().parameters;
+            if (call.args.size() != parameters + 1) {
+                throw new RuntimeException("Invalid argument count!");
+            }
+            compile(call.args.get(0)); // statična povezava
+            code.op(POP, -1);
+            for (int i = 1; i < call.args.size(); i++) {
+                compile(call.args.get(i));
+            }
+            var descriptor = "(" + "I".repeat(parameters) + ")I";
+            code.invoke(INVOKESTATIC, writer.methodRef(runtimeName, function.get().name, descriptor), 1 - parameters, parameters);
+        } else {
+            var className = classNames.get(call.label);
+            if (className == null) {
+                throw new RuntimeException("Only functions can be called!");
+            }
+            for (int i = 0; i < call.args.size(); i++) {
+                code.local(ILOAD, stackPointerLocal);
+                code.constant(Constants.WordSize * i, writer);
+                code.op(IADD, -1);
+                compile(call.args.get(i));
+                code.invoke(INVOKESTATIC, writer.methodRef(runtimeName, "stM", "(II)V"), -2, 2); // arguments
+            }
+            code.invoke(INVOKESTATIC, writer.methodRef(className, "execute", "()V"), 0, 0);
+            code.constant(memory.ldCode(call.label).frame.oldFPOffset(), writer);
+            code.invoke(INVOKESTATIC, writer.methodRef(runtimeName, "leave", "(I)I"), 0, 1);
+        }
+    }
+
+    // --------- pomožne funkcije ----------
+
+    private ClassWriter.Code.Label label(Frame.Label label) {
+        return labels.computeIfAbsent(label, l -> code.label());
+    }
+
+    /**
+     * Ime razreda funkcije; vsebuje ime funkcije, da je razvidno iz sledi sklada.
+     */
+    private static String className(int index, Frame.Label label) {
+        var sb = new StringBuilder("pins/F" + index + "_");
+        for (var c : label.name.toCharArray()) {
+            sb.append(Character.isLetterOrDigit(c) ? c : '_');
+        }
+        return sb.toString();
+    }
+}
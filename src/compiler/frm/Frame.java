@@ -93,6 +93,16 @@ public class Frame {
             return new Temp(count++);
         }
 
+        /**
+         * Ustvari začasno spremenljivko s podanim indeksom.
+         *
+         * Uporablja se pri povezovanju, kjer se začasne spremenljivke
+         * vsakega fragmenta preštevilčijo v zaporedne indekse od 0 naprej.
+         */
+        public static Temp slot(int index) {
+            return new Temp(index);
+        }
+
         @Override
         public String toString() {
             return "T[" + id + "]";
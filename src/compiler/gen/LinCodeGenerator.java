@@ -14,8 +14,8 @@
  import java.util.stream.Collectors;
  
  import common.Constants;
- import common.Report;
  import compiler.frm.Frame;
+ import compiler.ir.SourceMap;
  import compiler.ir.chunk.Chunk;
  import compiler.ir.code.expr.*;
  import compiler.ir.code.stmt.*;
@@ -32,43 +32,46 @@
       * Odmik v pomnilniku.
       */
      private int offset = Constants.WordSize; 
+
+     /**
+      * Linearizirani stavki tu podedujejo območja izvirnih vozlišč (le ob `--profile`).
+      */
+     private final Optional<SourceMap> sourceMap;
  
      public LinCodeGenerator(Memory memory) {
-         requireNonNull(memory);
+         this(memory, Optional.empty());
+     }
+
+     public LinCodeGenerator(Memory memory, Optional<SourceMap> sourceMap) {
+         requireNonNull(memory, sourceMap);
          this.memory = memory;
+         this.sourceMap = sourceMap;
      }
  
      /**
       * 1. Izvedemo linearizacijo kode.
       * 2. V pomnilnik shranimo fragmente programa.
-      * 3. Vrnemo kodo funkcije `main`, če le-ta obstaja.
+      * 3. Vrnemo linearizirane fragmente kode (povežemo jih z `Linker`-jem).
       */
-     public Optional<Chunk.CodeChunk> generateCode(List<Chunk> chunks) {
-         Optional<Chunk.CodeChunk> mainCodeChunk = Optional.empty();
+     public List<Chunk.CodeChunk> generateCode(List<Chunk> chunks) {
+         List<Chunk.CodeChunk> codeChunks = new ArrayList<>();
          for (var chunk : chunks) {
              if (chunk instanceof Chunk.CodeChunk code) {
                  var linearChunk = linearizeChunk(code);
                  memory.registerLabel(code.frame.label, offset);
                  offset += Constants.WordSize;
-                 memory.stM(code.frame.label, linearChunk);
- 
-                 if (code.frame.label.name.equals("main")) {
-                     if (mainCodeChunk.isEmpty()) {
-                         mainCodeChunk = Optional.of(linearChunk);
-                     } else {
-                         Report.error("Duplicate 'main'");
-                     }
-                 }
+                 memory.stCode(code.frame.label, linearChunk);
+                 codeChunks.add(linearChunk);
              } else if (chunk instanceof Chunk.DataChunk data) {
                  memory.registerLabel(data.access.label, offset);
-                 memory.stM(offset, data.data);
+                 memory.stString(offset, data.data);
                  offset += data.access.size;
              } else if (chunk instanceof Chunk.GlobalChunk global) {
                  memory.registerLabel(global.access.label, offset);
                  offset += global.access.size;
              }
          }
-         return mainCodeChunk;
+         return codeChunks;
      }
      
      private Chunk.CodeChunk linearizeChunk(Chunk.CodeChunk chunk) {
@@ -76,7 +79,16 @@
          return new Chunk.CodeChunk(chunk.frame, linCode);
      }
  
+     /**
+      * Linearizira izraz; nastali stavki podedujejo območje izraza.
+      */
      private EseqExpr linearize(IRExpr expr) {
+         var linear = linearizeExpr(expr);
+         sourceMap.ifPresent(map -> map.inherit(expr, linear.stmt.statements()));
+         return linear;
+     }
+
+     private EseqExpr linearizeExpr(IRExpr expr) {
          if (expr instanceof BinopExpr binopExpr) {
              return linearize(binopExpr);
          } else if (expr instanceof CallExpr callExpr) {
@@ -96,7 +108,16 @@
          }
      }
  
+     /**
+      * Linearizira stavek; nastali stavki podedujejo območje stavka.
+      */
      private SeqStmt linearize(IRStmt stmt) {
+         var linear = linearizeStmt(stmt);
+         sourceMap.ifPresent(map -> map.inherit(stmt, linear.statements));
+         return linear;
+     }
+
+     private SeqStmt linearizeStmt(IRStmt stmt) {
          if (stmt instanceof CJumpStmt cJumpStmt) {
              return linearize(cJumpStmt);
          } else if (stmt instanceof ExpStmt expStmt) {
@@ -0,0 +1,137 @@
+/**
+ * @ Author: tevz
+ * @ Description: Povezovanje linearizirane kode.
+ */
+
+package compiler.gen;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import common.Report;
+import compiler.frm.Frame;
+import compiler.ir.chunk.Chunk;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+
+public class Linker {
+    /**
+     * Pomnilnik navideznega stroja.
+     *
+     * Povezano kodo shranimo na mesto linearizirane kode.
+     */
+    private Memory memory;
+
+    public Linker(Memory memory) {
+        requireNonNull(memory);
+        this.memory = memory;
+    }
+
+    /**
+     * 1. Povežemo vse fragmente kode.
+     * 2. Povezane fragmente shranimo v pomnilnik.
+     * 3. Vrnemo kodo funkcije `main`, če le-ta obstaja.
+     */
+    public Optional<Chunk.LinkedCodeChunk> link(List<Chunk.CodeChunk> chunks) {
+        Optional<Chunk.LinkedCodeChunk> mainCodeChunk = Optional.empty();
+        for (var chunk : chunks) {
+            var linkedChunk = link(chunk);
+            memory.stCode(chunk.frame.label, linkedChunk);
+
+            if (chunk.frame.label.name.equals("main")) {
+                if (mainCodeChunk.isEmpty()) {
+                    mainCodeChunk = Optional.of(linkedChunk);
+                } else {
+                    Report.error("Duplicate 'main'");
+                }
+            }
+        }
+        return mainCodeChunk;
+    }
+
+    /**
+     * Poveže fragment linearizirane kode - cilje skokov
+     * razreši v indekse stavkov, začasne spremenljivke pa
+     * preštevilči v zaporedne indekse. Klici postanejo `LinkedCallExpr`,
+     * ki hranijo razrešen cilj klica.
+     */
+    public Chunk.LinkedCodeChunk link(Chunk.CodeChunk chunk) {
+        if (!(chunk.code instanceof SeqStmt seq)) {
+            throw new RuntimeException("Linearize code!");
+        }
+        Map<Frame.Temp, Frame.Temp> temps = new HashMap<>();
+        var statements = new IRStmt[seq.statements.size()];
+        for (int pc = 0; pc < statements.length; pc++) {
+            statements[pc] = renumber(seq.statements.get(pc), temps);
+        }
+
+        Map<Frame.Label, Integer> labels = new HashMap<>();
+        for (int pc = 0; pc < statements.length; pc++) {
+            if (statements[pc] instanceof LabelStmt labelStmt) {
+                labels.put(labelStmt.label, pc);
+            }
+        }
+
+        var thenTargets = new int[statements.length];
+        var elseTargets = new int[statements.length];
+        Arrays.fill(thenTargets, -1);
+        Arrays.fill(elseTargets, -1);
+        for (int pc = 0; pc < statements.length; pc++) {
+            if (statements[pc] instanceof JumpStmt jump) {
+                thenTargets[pc] = target(labels, jump.label);
+            } else if (statements[pc] instanceof CJumpStmt cjump) {
+                thenTargets[pc] = target(labels, cjump.thenLabel);
+                elseTargets[pc] = target(labels, cjump.elseLabel);
+            }
+        }
+        return new Chunk.LinkedCodeChunk(chunk.frame, chunk.code, statements, thenTargets, elseTargets, labels, temps.size());
+    }
+
+    // --------- preštevilčenje začasnih spremenljivk ----------
+
+    private IRStmt renumber(IRStmt stmt, Map<Frame.Temp, Frame.Temp> temps) {
+        if (stmt instanceof CJumpStmt cjump) {
+            return new CJumpStmt(renumber(cjump.condition, temps), cjump.thenLabel, cjump.elseLabel);
+        } else if (stmt instanceof ExpStmt exp) {
+            return new ExpStmt(renumber(exp.expr, temps));
+        } else if (stmt instanceof MoveStmt move) {
+            return new MoveStmt(renumber(move.dst, temps), renumber(move.src, temps));
+        } else {
+            return stmt;
+        }
+    }
+
+    private IRExpr renumber(IRExpr expr, Map<Frame.Temp, Frame.Temp> temps) {
+        if (expr instanceof BinopExpr binop) {
+            return new BinopExpr(renumber(binop.lhs, temps), renumber(binop.rhs, temps), binop.op);
+        } else if (expr instanceof CallExpr call) {
+            var args = new ArrayList<IRExpr>(call.args.size());
+            for (var arg : call.args) {
+                args.add(renumber(arg, temps));
+            }
+            return new LinkedCallExpr(call.label, args);
+        } else if (expr instanceof MemExpr mem) {
+            return new MemExpr(renumber(mem.expr, temps));
+        } else if (expr instanceof TempExpr temp) {
+            return new TempExpr(temps.computeIfAbsent(temp.temp, t -> Frame.Temp.slot(temps.size())));
+        } else if (expr instanceof EseqExpr) {
+            throw new RuntimeException("Linearize code!");
+        } else {
+            return expr;
+        }
+    }
+
+    private int target(Map<Frame.Label, Integer> labels, Frame.Label label) {
+        var pc = labels.get(label);
+        if (pc == null) {
+            throw new RuntimeException("Unknown label " + label.toString() + "!");
+        }
+        return pc;
+    }
+}
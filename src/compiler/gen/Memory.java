@@ -5,12 +5,16 @@
 
 package compiler.gen;
 
+import java.io.PrintStream;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 import common.Constants;
 import compiler.frm.Frame;
+import compiler.ir.chunk.Chunk;
 
 public class Memory {
     /**
@@ -19,9 +23,22 @@ public class Memory {
     public final int size;
 
     /**
-     * Emulator pomnilnika - preslikava iz naslovov v vrednosti poljubnih tipov.
+     * Emulator pomnilnika - podatkovne besede, indeksirane z `naslov / WordSize`.
+     *
+     * Nizi in koda so shranjeni v ločenih tabelah, v pomnilniku
+     * pa je shranjena njihova ročka (indeks v tabeli + 1).
      */
-    private Map<Integer, Object> memory = new HashMap<>();
+    public final Storage storage;
+
+    /**
+     * Tabela nizov.
+     */
+    private List<String> strings = new ArrayList<>();
+
+    /**
+     * Tabela fragmentov kode.
+     */
+    private List<Chunk.CodeChunk> code = new ArrayList<>();
 
     /**
      * Začasne spremenljivke ('registri').
@@ -34,28 +51,66 @@ public class Memory {
     private Map<Frame.Label, Integer> labelToAddressMapping = new HashMap<>();
 
     public Memory(int size) {
+        this(size, new Storage.Flat(words(size)));
+    }
+
+    public Memory(int size, Storage storage) {
+        if (storage.length < words(size)) {
+            throw new IllegalArgumentException("Storage too small!");
+        }
         this.size = size;
+        this.storage = storage;
+    }
+
+    /**
+     * Število besed, ki jih potrebuje pomnilnik velikosti `size` bajtov.
+     */
+    public static int words(int size) {
+        return size / Constants.WordSize + 1;
     }
 
     /**
      * Na podan naslov shrani vrednost.
      */
-    public void stM(int address, Object value) {
+    public void stM(int address, int value) {
         validateAddress(address);
-        memory.put(address, value);
+        storage.store(address / Constants.WordSize, value);
     }
 
     /**
      * Na podano imenovano lokacijo shrani vrednost.
      */
-    public void stM(Frame.Label label, Object value) {
+    public void stM(Frame.Label label, int value) {
         if (labelToAddressMapping.containsKey(label)) {
-            memory.put(address(label), value);
+            stM(address(label), value);
         } else {
             throw new IllegalArgumentException("Unknown label!");
         }
     }
 
+    /**
+     * Na podan naslov shrani niz (v pomnilnik se zapiše ročka niza).
+     */
+    public void stString(int address, String value) {
+        strings.add(value);
+        stM(address, strings.size());
+    }
+
+    /**
+     * Na podano imenovano lokacijo shrani fragment kode (v pomnilnik
+     * se zapiše ročka fragmenta). Če je na lokaciji že shranjena
+     * koda, jo zamenjamo.
+     */
+    public void stCode(Frame.Label label, Chunk.CodeChunk chunk) {
+        var handle = ldM(label);
+        if (handle > 0 && handle <= code.size()) {
+            code.set(handle - 1, chunk);
+        } else {
+            code.add(chunk);
+            stM(label, code.size());
+        }
+    }
+
     /**
      * V podan register shrani vrednost.
      */ 
@@ -66,25 +121,45 @@ public class Memory {
     /**
      * Preberi vrednost iz podanega naslova.
      */
-    public Object ldM(int address) {
+    public int ldM(int address) {
         validateAddress(address);
-        if (memory.containsKey(address)) {
-            return memory.get(address);
-        }
-        throw new IllegalArgumentException("Empty address " + address + "!");
+        return storage.load(address / Constants.WordSize);
     }
 
     /**
      * Preberi vrednost iz podane poimenovane lokacije.
      */
-    public Object ldM(Frame.Label label) {
+    public int ldM(Frame.Label label) {
         if (labelToAddressMapping.containsKey(label)) {
-            var address = labelToAddressMapping.get(label);
-            return memory.get(address);
+            return ldM(address(label));
         }
         throw new IllegalArgumentException("Empty address for label " + label.toString() + "!");
     }
 
+    /**
+     * Preberi niz, katerega ročka je shranjena na podanem naslovu.
+     *
+     * @return niz oz. `null`, če na naslovu ni ročke niza.
+     */
+    public String ldString(int address) {
+        var handle = ldM(address);
+        if (handle > 0 && handle <= strings.size()) {
+            return strings.get(handle - 1);
+        }
+        return null;
+    }
+
+    /**
+     * Preberi fragment kode, shranjen na podani poimenovani lokaciji.
+     */
+    public Chunk.CodeChunk ldCode(Frame.Label label) {
+        var handle = ldM(label);
+        if (handle > 0 && handle <= code.size()) {
+            return code.get(handle - 1);
+        }
+        throw new IllegalArgumentException("No code at label " + label.toString() + "!");
+    }
+
     /**
      * Preberi vrednost iz podane začasne spremenljivke oz. registra.
      */
@@ -110,6 +185,21 @@ public class Memory {
         return labelToAddressMapping.get(label);
     }
 
+    /**
+     * Izpiše tabelo label in tabelo nizov, s katerima je mogoče
+     * interpretirati vsebino pomnilnika.
+     */
+    public void printSymbols(PrintStream out) {
+        out.println("# labels");
+        labelToAddressMapping.entrySet().stream()
+            .sorted((o1, o2) -> o1.getValue() - o2.getValue())
+            .forEach(entry -> out.println(entry.getValue() + " " + entry.getKey().toString()));
+        out.println("# strings");
+        for (int i = 0; i < strings.size(); i++) {
+            out.println((i + 1) + " \"" + strings.get(i) + "\"");
+        }
+    }
+
     @Override
     public String toString() {
         var sb = new StringBuilder();
@@ -123,17 +213,20 @@ public class Memory {
         if (!tempsStr.isEmpty()) {
             sb.append("\n");
         }
-        var memStr = memory.entrySet().stream()
-            .sorted((o1, o2) -> o2.getKey() - o1.getKey())
-            .map(entry -> entry.getKey().toString() + ": " + entry.getValue().toString())
-            .collect(Collectors.joining("\n"));
-        sb.append(memStr);
+        for (int i = storage.length - 1; i > 0; i--) {
+            if (storage.load(i) != 0) {
+                sb.append(i * Constants.WordSize + ": " + storage.load(i) + "\n");
+            }
+        }
+        if (sb.length() > 0) {
+            sb.deleteCharAt(sb.length() - 1);
+        }
         return sb.toString();
     }
 
     private void validateAddress(int address) {
         // if debugMode
-        if (address > size) {
+        if (address > size || address < 0) {
             throw new IllegalArgumentException("Address " + address + " out of bounds!");
         }
         if (address == 0) {
@@ -144,4 +237,4 @@ public class Memory {
         }
         // endif
     }
-}
+}
\ No newline at end of file
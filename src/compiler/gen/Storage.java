@@ -0,0 +1,177 @@
+/**
+ * @ Author: tevz
+ * @ Description: Shramba podatkovnih besed pomnilnika.
+ */
+
+package compiler.gen;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import common.jfr.MemoryGrowthEvent;
+
+public abstract class Storage {
+    /**
+     * Število besed, ki jih shramba lahko hrani.
+     */
+    public final int length;
+
+    public Storage(int length) {
+        this.length = length;
+    }
+
+    /**
+     * Preberi besedo s podanim indeksom (neinicializirane besede so 0).
+     */
+    public abstract int load(int index);
+
+    /**
+     * Shrani besedo na podan indeks.
+     */
+    public abstract void store(int index, int value);
+
+    /**
+     * Shramba, ki vse besede hrani v eni tabeli.
+     */
+    public static class Flat extends Storage {
+        private final int[] words;
+
+        public Flat(int length) {
+            super(length);
+            this.words = new int[length];
+        }
+
+        @Override
+        public int load(int index) {
+            return words[index];
+        }
+
+        @Override
+        public void store(int index, int value) {
+            words[index] = value;
+        }
+    }
+
+    /**
+     * Shramba, razdeljena na strani, ki se ustvarijo ob prvem pisanju.
+     *
+     * Zgornji biti indeksa izberejo stran v tabeli strani, spodnji
+     * pa besedo znotraj strani. Neuporabljen naslovni prostor zato
+     * zasede le prazen vnos v tabeli strani.
+     */
+    public static class Paged extends Storage {
+        /**
+         * Velikost strani je 2^pageBits besed.
+         */
+        public static final int pageBits = 10;
+        public static final int pageSize = 1 << pageBits;
+        private static final int pageMask = pageSize - 1;
+
+        /**
+         * Tabela strani.
+         */
+        private final int[][] pages;
+
+        /**
+         * Število ustvarjenih strani.
+         */
+        private int residentPages = 0;
+
+        public Paged(int length) {
+            super(length);
+            this.pages = new int[(length + pageMask) >>> pageBits][];
+        }
+
+        @Override
+        public int load(int index) {
+            var page = pages[index >>> pageBits];
+            return page == null ? 0 : page[index & pageMask];
+        }
+
+        @Override
+        public void store(int index, int value) {
+            var page = pages[index >>> pageBits];
+            if (page == null) {
+                page = new int[pageSize];
+                pages[index >>> pageBits] = page;
+                residentPages++;
+                var event = new MemoryGrowthEvent();
+                if (event.shouldCommit()) {
+                    event.residentPages = residentPages;
+                    event.residentBytes = (long) residentPages * pageSize * Integer.BYTES;
+                    event.commit();
+                }
+            }
+            page[index & pageMask] = value;
+        }
+
+        /**
+         * Število strani, ki so bile ustvarjene.
+         */
+        public int residentPages() {
+            return residentPages;
+        }
+
+        /**
+         * Število vseh strani naslovnega prostora.
+         */
+        public int totalPages() {
+            return pages.length;
+        }
+    }
+
+    /**
+     * Shramba izven kopice Jave, preslikana v datoteko.
+     *
+     * Besede so zapisane v datoteko kot 32-bitna števila (little endian),
+     * beseda z indeksom `i` se nahaja na odmiku `4 * i`. Obstoječa
+     * datoteka se ob preslikavi izprazni, zato po izvajanju vsebuje le
+     * stanje pomnilnika tega izvajanja.
+     */
+    public static class Mapped extends Storage {
+        private final MappedByteBuffer buffer;
+
+        /**
+         * Datoteka, v katero je shramba preslikana.
+         */
+        public final Path file;
+
+        public Mapped(int length, Path file) throws IOException {
+            super(length);
+            var bytes = (long) length * Integer.BYTES;
+            if (bytes > Integer.MAX_VALUE) {
+                throw new IOException("Memory image too large!");
+            }
+            this.file = file;
+            try (var channel = FileChannel.open(file,
+                    StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, bytes);
+            }
+            this.buffer.order(ByteOrder.LITTLE_ENDIAN);
+        }
+
+        @Override
+        public int load(int index) {
+            return buffer.getInt(index << 2);
+        }
+
+        @Override
+        public void store(int index, int value) {
+            buffer.putInt(index << 2, value);
+        }
+
+        /**
+         * Zapiše spremembe v datoteko.
+         */
+        public void force() {
+            buffer.force();
+        }
+    }
+}
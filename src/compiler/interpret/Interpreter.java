@@ -10,18 +10,15 @@ import static common.RequireNonNull.requireNonNull;
 import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.nio.charset.Charset;
+import java.util.Arrays;
 import java.util.Optional;
-import java.util.Random;
-
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
 
 import common.Constants;
+import common.jfr.CallEvent;
 import compiler.frm.Frame;
 import compiler.gen.Memory;
 import compiler.ir.chunk.Chunk.CodeChunk;
+import compiler.ir.chunk.Chunk.LinkedCodeChunk;
 import compiler.ir.code.IRNode;
 import compiler.ir.code.expr.*;
 import compiler.ir.code.stmt.*;
@@ -31,19 +28,12 @@ public class Interpreter {
     /**
      * Pomnilnik navideznega stroja.
      */
-    private Memory memory;
+    protected Memory memory;
     
     /**
-     * Izhodni tok, kamor izpisujemo rezultate izvajanja programa.
-     * 
-     * V primeru, da rezultatov ne želimo izpisovati, nastavimo na `Optional.empty()`.
+     * Standardna knjižnica.
      */
-    private Optional<PrintStream> outputStream;
-
-    /**
-     * Generator naključnih števil.
-     */
-    private Random random;
+    protected StandardLibrary standardLibrary;
 
     /**
      * Skladovni kazalec (kaže na dno sklada).
@@ -55,10 +45,16 @@ public class Interpreter {
      */
     private int framePointer;
 
+    /**
+     * Začasne spremenljivke vseh aktivnih klicev; klic uporablja
+     * registre od svoje baze naprej (baza + indeks začasne spremenljivke).
+     */
+    protected int[] registers = new int[1024];
+
     public Interpreter(Memory memory, Optional<PrintStream> outputStream) {
         requireNonNull(memory, outputStream);
         this.memory = memory;
-        this.outputStream = outputStream;
+        this.standardLibrary = new StandardLibrary(memory, outputStream);
         this.stackPointer = memory.size - Constants.WordSize;
         this.framePointer = memory.size - Constants.WordSize;
     }
@@ -69,110 +65,152 @@ public class Interpreter {
         memory.stM(framePointer + Constants.WordSize, 0); // argument v funkcijo main
         memory.stM(framePointer - chunk.frame.oldFPOffset(), framePointer); // oldFP
 
-        internalInterpret(chunk, new HashMap<>());
+        internalInterpret(chunk, 0);
     }
 
-    private void internalInterpret(CodeChunk chunk, Map<Frame.Temp, Object> temps) {
-        framePointer = stackPointer;
-        stackPointer -= chunk.frame.size();
+    /**
+     * Pokliče funkcijo na vrhnjem nivoju, kot bi jo klic `CallExpr`:
+     * na skladu rezervira prostor za argumente (kot ga klicatelju
+     * zagotovi njegov klicni zapis), vanj shrani statično povezavo (-1)
+     * in argumente, pod njim pa oldFP, ter po izvedbi klicni zapis
+     * in argumente odstrani s sklada.
+     *
+     * @param arguments vrednosti parametrov (brez statične povezave).
+     * @return rezultat funkcije.
+     */
+    public int interpret(CodeChunk chunk, int[] arguments) {
+        var frame = chunk.frame;
+        if (frame.staticLevel > 1) {
+            throw new IllegalArgumentException("Function " + frame.label.name + " is not defined at top level!");
+        }
+        if (frame.parametersSize != Constants.WordSize * (arguments.length + 1)) {
+            throw new IllegalArgumentException("Function " + frame.label.name + " expects "
+                + (frame.parametersSize / Constants.WordSize - 1) + " arguments, got " + arguments.length + "!");
+        }
+        stackPointer -= frame.parametersSize;
+        memory.stM(stackPointer - frame.oldFPOffset(), framePointer); // oldFP
+        memory.stM(stackPointer, -1); // statična povezava
+        for (int i = 0; i < arguments.length; i++) {
+            memory.stM(stackPointer + Constants.WordSize * (i + 1), arguments[i]);
+        }
+        var result = call(resolve(frame.label), 0);
+        stackPointer += frame.parametersSize;
+        return result;
+    }
+
+    /**
+     * Izvede telo funkcije; argumenti morajo biti že shranjeni na skladu.
+     *
+     * @param base baza registrov klica.
+     */
+    protected void internalInterpret(CodeChunk chunk, int base) {
+        enter(chunk.frame.size());
         
-        Object result = null;
-        if (chunk.code instanceof SeqStmt seq) {
-            for (int pc = 0; pc < seq.statements.size(); pc++) {
-                var stmt = seq.statements.get(pc);
-                result = execute(stmt, temps);
-                if (result instanceof Frame.Label label) {
-                    for (int q = 0; q < seq.statements.size(); q++) {
-                        if (seq.statements.get(q) instanceof LabelStmt labelStmt && labelStmt.label.equals(label)) {
-                            pc = q;
-                            break;
-                        }
+        if (chunk instanceof LinkedCodeChunk linked) {
+            reserveRegisters(base + linked.temps);
+            var statements = linked.statements;
+            var executions = executions(linked);
+            int pc = 0;
+            while (pc < statements.length) {
+                var stmt = statements[pc];
+                if (executions != null) {
+                    executions[pc]++;
+                }
+                if (stmt instanceof JumpStmt) {
+                    pc = linked.thenTargets[pc];
+                } else if (stmt instanceof CJumpStmt cjump) {
+                    var taken = execute(cjump, base, base + linked.temps);
+                    if (executions != null) {
+                        branched(linked, pc, taken);
                     }
+                    pc = taken ? linked.thenTargets[pc] : linked.elseTargets[pc];
+                } else {
+                    execute(stmt, base, base + linked.temps);
+                    pc++;
                 }
             }
         } else {
-            throw new RuntimeException("Linearize code!");
+            throw new RuntimeException("Link code!");
         }
     }
 
-    private Object execute(IRStmt stmt, Map<Frame.Temp, Object> temps) {
-        if (stmt instanceof CJumpStmt cjump) {
-            return execute(cjump, temps);
-        } else if (stmt instanceof ExpStmt exp) {
-            return execute(exp, temps);
-        } else if (stmt instanceof JumpStmt jump) {
-            return execute(jump, temps);
+    /**
+     * Števci izvedb stavkov fragmenta (po indeksu stavka), ki jih povečuje
+     * `internalInterpret`, ali `null`, če izvedb ne štejemo.
+     */
+    protected long[] executions(LinkedCodeChunk chunk) {
+        return null;
+    }
+
+    /**
+     * Izid pogojnega skoka na indeksu `pc` (le, če `executions` vrne števce).
+     */
+    protected void branched(LinkedCodeChunk chunk, int pc, boolean taken) {
+    }
+
+    /**
+     * @param base baza registrov trenutnega klica.
+     * @param top prvi register, ki ga trenutni klic ne uporablja (baza klicanih funkcij).
+     */
+    protected void execute(IRStmt stmt, int base, int top) {
+        if (stmt instanceof ExpStmt exp) {
+            execute(exp.expr, base, top);
         } else if (stmt instanceof LabelStmt label) {
-            return null;
+            return;
         } else if (stmt instanceof MoveStmt move) {
-            return execute(move, temps);
+            execute(move, base, top);
         } else {
             throw new RuntimeException("Cannot execute this statement!");
         }
     }
 
-    private Object execute(CJumpStmt cjump, Map<Frame.Temp, Object> temps) {
-        int condition = toInt(execute(cjump.condition, temps));
+    protected boolean execute(CJumpStmt cjump, int base, int top) {
+        int condition = execute(cjump.condition, base, top);
         if (condition == 1) {
-            return cjump.thenLabel;
+            return true;
         } else if (condition == 0) {
-            return cjump.elseLabel;
+            return false;
         } else
             throw new RuntimeException("Condition is not logical value (not 1 or 0)");
     }
 
-    private Object execute(ExpStmt exp, Map<Frame.Temp, Object> temps) {
-        return execute(exp.expr, temps);
-    }
-
-    private Object execute(JumpStmt jump, Map<Frame.Temp, Object> temps) {
-        return jump.label;
-    }
-
-    private Object execute(MoveStmt move, Map<Frame.Temp, Object> temps) {
+    private void execute(MoveStmt move, int base, int top) {
         if (move.dst instanceof MemExpr memExpr) {
-            var addrExpr = execute(memExpr.expr, temps);
-            var src = execute(move.src, temps);
-            if (addrExpr instanceof Frame.Label frm) {
-                memory.stM(frm, src);
-            } else {
-                memory.stM(toInt(addrExpr), src);
-            }
-            return src; 
+            int address = execute(memExpr.expr, base, top);
+            memory.stM(address, execute(move.src, base, top));
         } 
         else if (move.dst instanceof TempExpr tempExpr)  {
-            var src = execute(move.src, temps);
-            temps.put(tempExpr.temp, src);
-            return src; 
+            int src = execute(move.src, base, top);
+            registers[base + tempExpr.temp.id] = src;
         }
         else {
             throw new RuntimeException("unexpected MOVE left child!");
         }
     }
 
-    private Object execute(IRExpr expr, Map<Frame.Temp, Object> temps) {
+    private int execute(IRExpr expr, int base, int top) {
         if (expr instanceof BinopExpr binopExpr) {
-            return execute(binopExpr, temps);
+            return execute(binopExpr, base, top);
         } else if (expr instanceof CallExpr callExpr) {
-            return execute(callExpr, temps);
+            return execute(callExpr, base, top);
         } else if (expr instanceof ConstantExpr constantExpr) {
-            return execute(constantExpr);
+            return constantExpr.constant;
         } else if (expr instanceof EseqExpr eseqExpr) {
             throw new RuntimeException("Cannot execute ESEQ; linearize IRCode!");
         } else if (expr instanceof MemExpr memExpr) {
-            return execute(memExpr, temps);
+            return memory.ldM(execute(memExpr.expr, base, top));
         } else if (expr instanceof NameExpr nameExpr) {
             return execute(nameExpr);
         } else if (expr instanceof TempExpr tempExpr) {
-            return execute(tempExpr, temps);
+            return registers[base + tempExpr.temp.id];
         } else {
             throw new IllegalArgumentException("Unknown expr type");
         }
     }
 
-    private Object execute(BinopExpr binop, Map<Frame.Temp, Object> temps) {
-        int left = toInt(execute(binop.lhs, temps));
-        int right = toInt(execute(binop.rhs, temps));
+    private int execute(BinopExpr binop, int base, int top) {
+        int left = execute(binop.lhs, base, top);
+        int right = execute(binop.rhs, base, top);
         switch(binop.op) {
             case ADD:
                 return left + right;
@@ -205,101 +243,124 @@ public class Interpreter {
         }
     }
 
-    private Object execute(CallExpr call, Map<Frame.Temp, Object> temps) {
-        if (call.label.name.equals(Constants.printIntLabel)) {
-            if (call.args.size() != 2) { throw new RuntimeException("Invalid argument count!"); }
-            var arg = execute(call.args.get(1), temps);
-            outputStream.ifPresent(stream -> stream.println(arg));
-            return null;
-        } else if (call.label.name.equals(Constants.printStringLabel)) {
-            if (call.args.size() != 2) { throw new RuntimeException("Invalid argument count!"); }
-            var address = execute(call.args.get(1), temps);
-            String out;
-            if (address instanceof String str)
-                out = str;
-            else {
-                var res = memory.ldM(toInt(address));
-                if (res instanceof String str)
-                    out = str;
-                else
-                    out = "";
-            }
-            outputStream.ifPresent(stream -> stream.println("\""+out+"\""));
-            return null;
-        } else if (call.label.name.equals(Constants.printLogLabel)) {
-            if (call.args.size() != 2) { throw new RuntimeException("Invalid argument count!"); }
-            var arg = execute(call.args.get(1), temps);
-            outputStream.ifPresent(stream -> stream.println(toBool(arg)));
-            return null;
-        } else if (call.label.name.equals(Constants.randIntLabel)) {
-            if (call.args.size() != 3) { throw new RuntimeException("Invalid argument count!"); }
-            var min = toInt(execute(call.args.get(1), temps));
-            var max = toInt(execute(call.args.get(2), temps));
-            return random.nextInt(min, max);
-        } else if (call.label.name.equals(Constants.seedLabel)) {
-            if (call.args.size() != 2) { throw new RuntimeException("Invalid argument count!"); }
-            var seed = toInt(execute(call.args.get(1), temps));
-            random = new Random(seed);
-            return null;
-        } else if (memory.ldM(call.label) instanceof CodeChunk chunk) {
-            List<Object> args = new ArrayList<>(call.args.size());
-            for (IRExpr a : call.args) {
-                args.add(execute(a, temps));
+    private int execute(CallExpr call, int base, int top) {
+        if (!CallEvent.enabled()) {
+            return invoke(call, base, top);
+        }
+        var event = new CallEvent();
+        event.begin();
+        var result = invoke(call, base, top);
+        event.end();
+        if (event.shouldCommit()) {
+            event.function = call.label.name;
+            event.commit();
+        }
+        return result;
+    }
+
+    private int invoke(CallExpr call, int base, int top) {
+        var target = target(call);
+        if (target instanceof StandardLibrary.Function function) {
+            var args = new int[call.args.size()];
+            for (int i = 0; i < args.length; i++) {
+                args[i] = execute(call.args.get(i), base, top);
             }
+            return standardLibrary.call(function, args);
+        }
+        storeArguments(call, base, top);
+        return call(target, top); // registri klicane funkcije sledijo registrom klicoče
+    }
 
-            int i = 0; // maybe 1?
-            for (Object a : args) {
-                memory.stM(stackPointer + Constants.WordSize * i++, a); // arguments
+    /**
+     * Vrne cilj klica; če je klic povezan, uporabi (oz. nastavi) cilj,
+     * shranjen na mestu klica.
+     */
+    protected Object target(CallExpr call) {
+        if (call instanceof LinkedCallExpr linked) {
+            if (linked.owner != this) {
+                linked.target = resolve(call.label);
+                linked.owner = this;
             }
-    
-            internalInterpret(chunk, new HashMap<>()); // HashMap - lokalni registri funkcije
-            
-            stackPointer = framePointer;
-            framePointer = toInt(memory.ldM(stackPointer - chunk.frame.oldFPOffset())); // preberi oldFP iz pomnilnika
-            return memory.ldM(stackPointer);
-        } else {
-            throw new RuntimeException("Only functions can be called!");
+            return linked.target;
         }
+        return resolve(call.label);
     }
 
-    private Object execute(ConstantExpr constant) {
-        return constant.constant;
+    /**
+     * Izračuna argumente klica in jih shrani na sklad.
+     */
+    protected void storeArguments(CallExpr call, int base, int top) {
+        int i = 0;
+        for (IRExpr a : call.args) {
+            memory.stM(stackPointer + Constants.WordSize * i++, execute(a, base, top)); // arguments
+        }
     }
 
-    private Object execute(MemExpr mem, Map<Frame.Temp, Object> temps) {
-        int addr = toInt(execute(mem.expr, temps));
-        return memory.ldM(addr);
+    /**
+     * Razreši cilj klica: funkcijo standardne knjižnice
+     * (`StandardLibrary.Function`) ali cilj, ki ga sprejme `call`.
+     */
+    protected Object resolve(Frame.Label label) {
+        var function = StandardLibrary.Function.forLabel(label);
+        if (function.isPresent()) {
+            return function.get();
+        }
+        return memory.ldCode(label);
     }
 
-    private Object execute(NameExpr name) {
-        if (name.label.name.equals(Constants.framePointer))
-            return framePointer;
-        else if (name.label.name.equals(Constants.stackPointer))
-            return stackPointer;
-        return memory.address(name.label);
+    /**
+     * Pokliče razrešen cilj klica; argumenti so že shranjeni na skladu.
+     *
+     * @param top baza registrov klicane funkcije.
+     * @return rezultat funkcije.
+     */
+    protected int call(Object target, int top) {
+        var chunk = (CodeChunk) target;
+        internalInterpret(chunk, top);
+        return leave(chunk.frame);
     }
 
-    private Object execute(TempExpr temp, Map<Frame.Temp, Object> temps) {
-            return temps.get(temp.temp);
+    /**
+     * Poskrbi, da ima tabela registrov vsaj `size` mest.
+     */
+    protected void reserveRegisters(int size) {
+        if (size > registers.length) {
+            registers = Arrays.copyOf(registers, Math.max(registers.length * 2, size));
         }
+    }
 
-    // ----------- pomožne funkcije -----------
-
-    private int toInt(Object obj) {
-        if (obj instanceof Integer integer) {
-            return integer;
-        }
-        throw new IllegalArgumentException("Could not convert obj to integer!");
+    /**
+     * Ustvari klicni zapis velikosti `size` na vrhu sklada.
+     *
+     * @return nov klicni kazalec.
+     */
+    protected int enter(int size) {
+        framePointer = stackPointer;
+        stackPointer -= size;
+        return framePointer;
     }
 
-    private boolean toBool(Object obj) {
-        return toInt(obj) == 0 ? false : true;
+    /**
+     * Odstrani klicni zapis funkcije s sklada.
+     *
+     * @return rezultat funkcije.
+     */
+    protected int leave(Frame frame) {
+        stackPointer = framePointer;
+        framePointer = memory.ldM(stackPointer - frame.oldFPOffset()); // preberi oldFP iz pomnilnika
+        return memory.ldM(stackPointer);
     }
 
-    private int toInt(boolean bool) {
-        return bool ? 1 : 0;
+    private int execute(NameExpr name) {
+        if (name.label.name.equals(Constants.framePointer))
+            return framePointer;
+        else if (name.label.name.equals(Constants.stackPointer))
+            return stackPointer;
+        return memory.address(name.label);
     }
 
+    // ----------- pomožne funkcije -----------
+
     private String prettyDescription(IRNode ir, int indent) {
         var os = new ByteArrayOutputStream();
         var ps = new PrintStream(os);
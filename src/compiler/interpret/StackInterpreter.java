@@ -0,0 +1,163 @@
+/**
+ * @ Author: tevz
+ * @ Description: Interpreter z eksplicitnim skladom klicev.
+ *
+ * Klic funkcije ne povzroči rekurzije na skladu Jave: stanje klicoče
+ * funkcije (fragment, števec ukazov, baza registrov in ciljna začasna
+ * spremenljivka) se shrani na sklad nadaljevanj, izvajanje pa se
+ * nadaljuje v klicani funkciji. Globino rekurzije tako omejuje le
+ * velikost pomnilnika (`--memory`).
+ *
+ * Po linearizaciji se klici pojavijo le kot `MOVE(TEMP, CALL(...))`
+ * oz. `EXP(CALL(...))`; le take klice izvajamo brez rekurzije.
+ *
+ * Dogodek JFR `pins.Call` klicane funkcije se začne ob klicu in konča ob
+ * vrnitvi; med tem čaka na skladu nadaljevanj.
+ */
+
+package compiler.interpret;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Optional;
+
+import common.jfr.CallEvent;
+import compiler.gen.Memory;
+import compiler.ir.chunk.Chunk.CodeChunk;
+import compiler.ir.chunk.Chunk.LinkedCodeChunk;
+import compiler.ir.code.expr.CallExpr;
+import compiler.ir.code.expr.TempExpr;
+import compiler.ir.code.stmt.*;
+
+public class StackInterpreter extends Interpreter {
+    // --------- sklad nadaljevanj ----------
+
+    /**
+     * Fragmenti klicočih funkcij.
+     */
+    private LinkedCodeChunk[] chunks = new LinkedCodeChunk[64];
+
+    /**
+     * Indeksi stavkov, kjer se klicoče funkcije nadaljujejo.
+     */
+    private int[] pcs = new int[64];
+
+    /**
+     * Baze registrov klicočih funkcij.
+     */
+    private int[] bases = new int[64];
+
+    /**
+     * Indeksi začasnih spremenljivk, v katere se shrani rezultat klica (-1, če rezultat zavržemo).
+     */
+    private int[] results = new int[64];
+
+    /**
+     * Dogodki JFR klicev, ki še niso končani (`null`, če se ne snemajo).
+     */
+    private CallEvent[] events = new CallEvent[64];
+
+    public StackInterpreter(Memory memory, Optional<PrintStream> outputStream) {
+        super(memory, outputStream);
+    }
+
+    @Override
+    protected void internalInterpret(CodeChunk entry, int entryBase) {
+        var chunk = linked(entry);
+        var base = entryBase;
+        var depth = 0;
+        int pc = 0;
+        enter(chunk.frame.size());
+        reserveRegisters(base + chunk.temps);
+
+        while (true) {
+            var statements = chunk.statements;
+            if (pc >= statements.length) {
+                if (depth == 0) {
+                    return;
+                }
+                var result = leave(chunk.frame);
+                depth--;
+                var event = events[depth];
+                if (event != null) {
+                    events[depth] = null;
+                    event.end();
+                    if (event.shouldCommit()) {
+                        event.function = chunk.frame.label.name;
+                        event.commit();
+                    }
+                }
+                chunk = chunks[depth];
+                chunks[depth] = null;
+                pc = pcs[depth];
+                base = bases[depth];
+                if (results[depth] >= 0) {
+                    registers[base + results[depth]] = result;
+                }
+                continue;
+            }
+            var stmt = statements[pc];
+            if (stmt instanceof JumpStmt) {
+                pc = chunk.thenTargets[pc];
+            } else if (stmt instanceof CJumpStmt cjump) {
+                pc = execute(cjump, base, base + chunk.temps) ? chunk.thenTargets[pc] : chunk.elseTargets[pc];
+            } else {
+                var call = call(stmt);
+                var target = call != null ? target(call) : null;
+                if (target instanceof CodeChunk callee) {
+                    var top = base + chunk.temps;
+                    storeArguments(call, base, top);
+                    if (depth == chunks.length) {
+                        grow();
+                    }
+                    chunks[depth] = chunk;
+                    pcs[depth] = pc + 1;
+                    bases[depth] = base;
+                    results[depth] = stmt instanceof MoveStmt move ? ((TempExpr) move.dst).temp.id : -1;
+                    if (CallEvent.enabled()) {
+                        events[depth] = new CallEvent();
+                        events[depth].begin();
+                    }
+                    depth++;
+
+                    chunk = linked(callee);
+                    base = top;
+                    pc = 0;
+                    enter(chunk.frame.size());
+                    reserveRegisters(base + chunk.temps);
+                } else {
+                    execute(stmt, base, base + chunk.temps);
+                    pc++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Vrne klic, če je stavek oblike `MOVE(TEMP, CALL(...))` ali `EXP(CALL(...))`.
+     */
+    private CallExpr call(IRStmt stmt) {
+        if (stmt instanceof MoveStmt move && move.dst instanceof TempExpr && move.src instanceof CallExpr call) {
+            return call;
+        } else if (stmt instanceof ExpStmt exp && exp.expr instanceof CallExpr call) {
+            return call;
+        }
+        return null;
+    }
+
+    private LinkedCodeChunk linked(CodeChunk chunk) {
+        if (chunk instanceof LinkedCodeChunk linked) {
+            return linked;
+        }
+        throw new RuntimeException("Link code!");
+    }
+
+    private void grow() {
+        var length = chunks.length * 2;
+        chunks = Arrays.copyOf(chunks, length);
+        pcs = Arrays.copyOf(pcs, length);
+        bases = Arrays.copyOf(bases, length);
+        results = Arrays.copyOf(results, length);
+        events = Arrays.copyOf(events, length);
+    }
+}
@@ -0,0 +1,127 @@
+/**
+ * @ Author: tevz
+ * @ Description: Standardna knjižnica navideznega stroja.
+ */
+
+package compiler.interpret;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.io.PrintStream;
+import java.util.Optional;
+import java.util.Random;
+
+import common.Constants;
+import compiler.frm.Frame;
+import compiler.gen.Memory;
+
+public class StandardLibrary {
+    /**
+     * Pomnilnik navideznega stroja.
+     */
+    private Memory memory;
+
+    /**
+     * Izhodni tok, kamor izpisujemo rezultate izvajanja programa.
+     */
+    private Optional<PrintStream> outputStream;
+
+    /**
+     * Generator naključnih števil.
+     */
+    private Random random;
+
+    public StandardLibrary(Memory memory, Optional<PrintStream> outputStream) {
+        requireNonNull(memory, outputStream);
+        this.memory = memory;
+        this.outputStream = outputStream;
+    }
+
+    /**
+     * Funkcije standardne knjižnice.
+     */
+    public static enum Function {
+        PRINT_INT(Constants.printIntLabel, 1),
+        PRINT_STR(Constants.printStringLabel, 1),
+        PRINT_LOG(Constants.printLogLabel, 1),
+        RAND_INT(Constants.randIntLabel, 2),
+        SEED(Constants.seedLabel, 1);
+
+        /**
+         * Ime funkcije.
+         */
+        public final String name;
+
+        /**
+         * Število parametrov (brez statične povezave).
+         */
+        public final int parameters;
+
+        Function(String name, int parameters) {
+            this.name = name;
+            this.parameters = parameters;
+        }
+
+        /**
+         * Vrne funkcijo standardne knjižnice s podano labelo, če le-ta obstaja.
+         */
+        public static Optional<Function> forLabel(Frame.Label label) {
+            for (var function : values()) {
+                if (function.name.equals(label.name)) {
+                    return Optional.of(function);
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Pokliče funkcijo standardne knjižnice.
+     *
+     * @param args argumenti klica; prvi argument je statična povezava.
+     * @return rezultat funkcije (funkcije za izpis vrnejo svoj argument).
+     */
+    public int call(Function function, int[] args) {
+        if (args.length != function.parameters + 1) { throw new RuntimeException("Invalid argument count!"); }
+        switch (function) {
+            case PRINT_INT:
+                return printInt(args[1]);
+            case PRINT_STR:
+                return printStr(args[1]);
+            case PRINT_LOG:
+                return printLog(args[1]);
+            case RAND_INT:
+                return randInt(args[1], args[2]);
+            case SEED:
+                return seed(args[1]);
+            default:
+                throw new RuntimeException("Unknown standard library function!");
+        }
+    }
+
+    public int printInt(int value) {
+        outputStream.ifPresent(stream -> stream.println(value));
+        return value;
+    }
+
+    public int printStr(int address) {
+        var str = memory.ldString(address);
+        var out = str != null ? str : "";
+        outputStream.ifPresent(stream -> stream.println("\"" + out + "\""));
+        return address;
+    }
+
+    public int printLog(int value) {
+        outputStream.ifPresent(stream -> stream.println(value != 0));
+        return value;
+    }
+
+    public int randInt(int min, int max) {
+        return random.nextInt(min, max);
+    }
+
+    public int seed(int seed) {
+        random = new Random(seed);
+        return seed;
+    }
+}
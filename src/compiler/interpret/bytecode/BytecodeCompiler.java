@@ -0,0 +1,360 @@
+/**
+ * @ Author: tevz
+ * @ Description: Prevajanje linearizirane vmesne kode v kodo registrskega navideznega stroja.
+ */
+
+package compiler.interpret.bytecode;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import common.Constants;
+import compiler.frm.Frame;
+import compiler.gen.Memory;
+import compiler.interpret.StandardLibrary;
+import compiler.ir.chunk.Chunk;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+
+public class BytecodeCompiler {
+    /**
+     * Pomnilnik navideznega stroja (naslovi label).
+     */
+    private Memory memory;
+
+    /**
+     * Preslikava iz label funkcij v indekse v tabeli funkcij.
+     */
+    private Map<Frame.Label, Integer> functionIndices = new HashMap<>();
+
+    // --------- stanje prevajanja trenutne funkcije ----------
+
+    /**
+     * Koda funkcije.
+     */
+    private int[] code;
+
+    /**
+     * Dolžina kode funkcije.
+     */
+    private int length;
+
+    /**
+     * Preslikava iz začasnih spremenljivk v registre.
+     */
+    private Map<Frame.Temp, Integer> registers;
+
+    /**
+     * Naslednji prosti register za vmesne rezultate.
+     */
+    private int nextRegister;
+
+    /**
+     * Največje število uporabljenih registrov.
+     */
+    private int maxRegisters;
+
+    /**
+     * Odmiki label v kodi.
+     */
+    private Map<Frame.Label, Integer> labels;
+
+    /**
+     * Mesta v kodi, kamor moramo vpisati odmik labele.
+     */
+    private List<Fixup> fixups;
+
+    public BytecodeCompiler(Memory memory) {
+        requireNonNull(memory);
+        this.memory = memory;
+    }
+
+    /**
+     * Prevede linearizirane fragmente kode.
+     */
+    public BytecodeProgram compile(List<Chunk.CodeChunk> chunks) {
+        for (int i = 0; i < chunks.size(); i++) {
+            functionIndices.put(chunks.get(i).frame.label, i);
+        }
+        var functions = new BytecodeProgram.Function[chunks.size()];
+        for (int i = 0; i < chunks.size(); i++) {
+            functions[i] = compile(chunks.get(i));
+        }
+        return new BytecodeProgram(functions, functionIndices);
+    }
+
+    private BytecodeProgram.Function compile(Chunk.CodeChunk chunk) {
+        if (!(chunk.code instanceof SeqStmt seq)) {
+            throw new RuntimeException("Linearize code!");
+        }
+        code = new int[64];
+        length = 0;
+        registers = new HashMap<>();
+        labels = new HashMap<>();
+        fixups = new ArrayList<>();
+        maxRegisters = 0;
+
+        for (var stmt : seq.statements) {
+            collectTemps(stmt);
+        }
+        for (var stmt : seq.statements) {
+            nextRegister = registers.size();
+            compile(stmt);
+        }
+        emit(Opcode.RET);
+
+        for (var fixup : fixups) {
+            var pc = labels.get(fixup.label);
+            if (pc == null) {
+                throw new RuntimeException("Unknown label " + fixup.label.toString() + "!");
+            }
+            code[fixup.position] = pc;
+        }
+        return new BytecodeProgram.Function(
+            chunk.frame,
+            Arrays.copyOf(code, length),
+            Math.max(maxRegisters, registers.size()));
+    }
+
+    // --------- stavki ----------
+
+    private void compile(IRStmt stmt) {
+        if (stmt instanceof CJumpStmt cjump) {
+            var condition = operand(cjump.condition);
+            emit(Opcode.CJMP, condition);
+            emitLabel(cjump.thenLabel);
+            emitLabel(cjump.elseLabel);
+        } else if (stmt instanceof ExpStmt exp) {
+            if (!(exp.expr instanceof TempExpr || exp.expr instanceof ConstantExpr || exp.expr instanceof NameExpr)) {
+                compile(exp.expr, newRegister());
+            }
+        } else if (stmt instanceof JumpStmt jump) {
+            emit(Opcode.JMP);
+            emitLabel(jump.label);
+        } else if (stmt instanceof LabelStmt label) {
+            labels.put(label.label, length);
+        } else if (stmt instanceof MoveStmt move) {
+            compile(move);
+        } else {
+            throw new RuntimeException("Cannot compile this statement!");
+        }
+    }
+
+    private void compile(MoveStmt move) {
+        if (move.dst instanceof TempExpr temp) {
+            compile(move.src, registers.get(temp.temp));
+        } else if (move.dst instanceof MemExpr mem) {
+            if (isGlobal(mem.expr)) {
+                var src = operand(move.src);
+                emit(Opcode.STG, memory.address(((NameExpr) mem.expr).label), src);
+            } else if (offset(mem.expr) != null) {
+                var base = operand(((BinopExpr) mem.expr).lhs);
+                var src = operand(move.src);
+                emit(Opcode.ST, base, offset(mem.expr), src);
+            } else {
+                var base = operand(mem.expr);
+                var src = operand(move.src);
+                emit(Opcode.ST, base, 0, src);
+            }
+        } else {
+            throw new RuntimeException("unexpected MOVE left child!");
+        }
+    }
+
+    // --------- izrazi ----------
+
+    /**
+     * Prevede izraz tako, da je njegova vrednost v registru `dst`.
+     */
+    private void compile(IRExpr expr, int dst) {
+        if (expr instanceof BinopExpr binop) {
+            var lhs = operand(binop.lhs);
+            var rhs = operand(binop.rhs);
+            emit(opcode(binop.op), dst, lhs, rhs);
+        } else if (expr instanceof CallExpr call) {
+            compile(call, dst);
+        } else if (expr instanceof ConstantExpr constant) {
+            emit(Opcode.CONST, dst, constant.constant);
+        } else if (expr instanceof EseqExpr) {
+            throw new RuntimeException("Cannot compile ESEQ; linearize IRCode!");
+        } else if (expr instanceof MemExpr mem) {
+            if (isGlobal(mem.expr)) {
+                emit(Opcode.LDG, dst, memory.address(((NameExpr) mem.expr).label));
+            } else if (offset(mem.expr) != null) {
+                var base = operand(((BinopExpr) mem.expr).lhs);
+                emit(Opcode.LD, dst, base, offset(mem.expr));
+            } else {
+                var base = operand(mem.expr);
+                emit(Opcode.LD, dst, base, 0);
+            }
+        } else if (expr instanceof NameExpr name) {
+            if (name.label.name.equals(Constants.framePointer)) {
+                emit(Opcode.FP, dst);
+            } else if (name.label.name.equals(Constants.stackPointer)) {
+                emit(Opcode.SP, dst);
+            } else {
+                emit(Opcode.CONST, dst, memory.address(name.label));
+            }
+        } else if (expr instanceof TempExpr temp) {
+            var src = registers.get(temp.temp);
+            if (src != dst) {
+                emit(Opcode.MOV, dst, src);
+            }
+        } else {
+            throw new IllegalArgumentException("Unknown expr type");
+        }
+    }
+
+    private void compile(CallExpr call, int dst) {
+        var args = new int[call.args.size()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = operand(call.args.get(i));
+        }
+        var function = StandardLibrary.Function.forLabel(call.label);
+        if (function.isPresent()) {
+            emit(Opcode.NATIVE, dst, function.get().ordinal(), args.length);
+        } else if (functionIndices.containsKey(call.label)) {
+            emit(Opcode.CALL, dst, functionIndices.get(call.label), args.length);
+        } else {
+            throw new RuntimeException("Only functions can be called!");
+        }
+        for (var arg : args) {
+            emit(arg);
+        }
+    }
+
+    /**
+     * Vrne register, v katerem je vrednost izraza.
+     */
+    private int operand(IRExpr expr) {
+        if (expr instanceof TempExpr temp) {
+            return registers.get(temp.temp);
+        }
+        var register = newRegister();
+        compile(expr, register);
+        return register;
+    }
+
+    // --------- pomožne funkcije ----------
+
+    /**
+     * Vrne ukaz, ki izvede binarni operator.
+     */
+    private static int opcode(BinopExpr.Operator op) {
+        switch (op) {
+            case ADD:
+                return Opcode.ADD;
+            case SUB:
+                return Opcode.SUB;
+            case MUL:
+                return Opcode.MUL;
+            case DIV:
+                return Opcode.DIV;
+            case MOD:
+                return Opcode.MOD;
+            case AND:
+                return Opcode.AND;
+            case OR:
+                return Opcode.OR;
+            case EQ:
+                return Opcode.EQ;
+            case NEQ:
+                return Opcode.NEQ;
+            case LT:
+                return Opcode.LT;
+            case GT:
+                return Opcode.GT;
+            case LEQ:
+                return Opcode.LEQ;
+            case GEQ:
+                return Opcode.GEQ;
+            default:
+                throw new IllegalArgumentException("Unknown operator " + op + "!");
+        }
+    }
+
+    private void collectTemps(IRStmt stmt) {
+        if (stmt instanceof CJumpStmt cjump) {
+            collectTemps(cjump.condition);
+        } else if (stmt instanceof ExpStmt exp) {
+            collectTemps(exp.expr);
+        } else if (stmt instanceof MoveStmt move) {
+            collectTemps(move.dst);
+            collectTemps(move.src);
+        }
+    }
+
+    private void collectTemps(IRExpr expr) {
+        if (expr instanceof BinopExpr binop) {
+            collectTemps(binop.lhs);
+            collectTemps(binop.rhs);
+        } else if (expr instanceof CallExpr call) {
+            call.args.forEach(this::collectTemps);
+        } else if (expr instanceof MemExpr mem) {
+            collectTemps(mem.expr);
+        } else if (expr instanceof TempExpr temp) {
+            registers.putIfAbsent(temp.temp, registers.size());
+        }
+    }
+
+    /**
+     * Ali izraz predstavlja naslov globalne spremenljivke (labelo)?
+     */
+    private boolean isGlobal(IRExpr expr) {
+        return expr instanceof NameExpr name
+            && !name.label.name.equals(Constants.framePointer)
+            && !name.label.name.equals(Constants.stackPointer);
+    }
+
+    /**
+     * Vrne odmik za naslov oblike `e + c` oz. `e - c`, sicer `null`.
+     */
+    private Integer offset(IRExpr expr) {
+        if (expr instanceof BinopExpr binop && binop.rhs instanceof ConstantExpr constant) {
+            if (binop.op == BinopExpr.Operator.ADD) {
+                return constant.constant;
+            } else if (binop.op == BinopExpr.Operator.SUB) {
+                return -constant.constant;
+            }
+        }
+        return null;
+    }
+
+    private int newRegister() {
+        var register = nextRegister++;
+        maxRegisters = Math.max(maxRegisters, nextRegister);
+        return register;
+    }
+
+    private void emitLabel(Frame.Label label) {
+        fixups.add(new Fixup(length, label));
+        emit(-1);
+    }
+
+    private void emit(int... words) {
+        if (length + words.length > code.length) {
+            code = Arrays.copyOf(code, Math.max(code.length * 2, length + words.length));
+        }
+        for (var word : words) {
+            code[length++] = word;
+        }
+    }
+
+    /**
+     * Mesto v kodi, ki se sklicuje na labelo.
+     */
+    private static class Fixup {
+        final int position;
+        final Frame.Label label;
+
+        Fixup(int position, Frame.Label label) {
+            this.position = position;
+            this.label = label;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * @ Author: tevz
+ * @ Description: Program, preveden v kodo registrskega navideznega stroja.
+ */
+
+package compiler.interpret.bytecode;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.Map;
+import java.util.Optional;
+
+import compiler.frm.Frame;
+
+public class BytecodeProgram {
+    /**
+     * Tabela funkcij; ukaz `CALL` se na funkcijo sklicuje z indeksom.
+     */
+    public final Function[] functions;
+
+    /**
+     * Preslikava iz label funkcij v indekse v tabeli funkcij.
+     */
+    public final Map<Frame.Label, Integer> functionIndices;
+
+    public BytecodeProgram(Function[] functions, Map<Frame.Label, Integer> functionIndices) {
+        requireNonNull(functions, functionIndices);
+        this.functions = functions;
+        this.functionIndices = functionIndices;
+    }
+
+    /**
+     * Vrne funkcijo `main`, če le-ta obstaja.
+     */
+    public Optional<Function> main() {
+        var index = functionIndices.get(Frame.Label.named("main"));
+        return index == null ? Optional.empty() : Optional.of(functions[index]);
+    }
+
+    /**
+     * Prevedena funkcija.
+     */
+    public static class Function {
+        /**
+         * Klicni zapis funkcije.
+         */
+        public final Frame frame;
+
+        /**
+         * Koda funkcije.
+         */
+        public final int[] code;
+
+        /**
+         * Število registrov, ki jih funkcija potrebuje.
+         */
+        public final int registers;
+
+        public Function(Frame frame, int[] code, int registers) {
+            requireNonNull(frame, code);
+            this.frame = frame;
+            this.code = code;
+            this.registers = registers;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/**
+ * @ Author: tevz
+ * @ Description: Registrski navidezni stroj.
+ */
+
+package compiler.interpret.bytecode;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Optional;
+
+import common.Constants;
+import compiler.gen.Memory;
+import compiler.interpret.StandardLibrary;
+
+public class BytecodeVM {
+    /**
+     * Funkcije standardne knjižnice, indeksirane z operandom ukaza `NATIVE`.
+     */
+    private static final StandardLibrary.Function[] nativeFunctions = StandardLibrary.Function.values();
+
+    /**
+     * Pomnilnik navideznega stroja.
+     */
+    private Memory memory;
+
+    /**
+     * Standardna knjižnica.
+     */
+    private StandardLibrary standardLibrary;
+
+    /**
+     * Preveden program.
+     */
+    private BytecodeProgram program;
+
+    /**
+     * Registri vseh aktivnih klicev; klic uporablja registre
+     * od svoje baze naprej.
+     */
+    private int[] registers = new int[1024];
+
+    /**
+     * Skladovni kazalec (kaže na dno sklada).
+     */
+    private int stackPointer;
+
+    /**
+     * Klicni kazalec (kaže na vrh aktivnega klicnega zapisa).
+     */
+    private int framePointer;
+
+    public BytecodeVM(Memory memory, Optional<PrintStream> outputStream, BytecodeProgram program) {
+        requireNonNull(memory, outputStream, program);
+        this.memory = memory;
+        this.standardLibrary = new StandardLibrary(memory, outputStream);
+        this.program = program;
+        this.stackPointer = memory.size - Constants.WordSize;
+        this.framePointer = memory.size - Constants.WordSize;
+    }
+
+    // --------- izvajanje navideznega stroja ----------
+
+    public void run(BytecodeProgram.Function main) {
+        memory.stM(framePointer + Constants.WordSize, 0); // argument v funkcijo main
+        memory.stM(framePointer - main.frame.oldFPOffset(), framePointer); // oldFP
+
+        execute(main, 0);
+    }
+
+    private void execute(BytecodeProgram.Function function, int base) {
+        framePointer = stackPointer;
+        stackPointer -= function.frame.size();
+
+        if (base + function.registers > registers.length) {
+            registers = Arrays.copyOf(registers, Math.max(registers.length * 2, base + function.registers));
+        }
+        var regs = registers;
+        var code = function.code;
+        int pc = 0;
+        while (true) {
+            switch (code[pc]) {
+                case Opcode.CONST:
+                    regs[base + code[pc + 1]] = code[pc + 2];
+                    pc += 3;
+                    break;
+                case Opcode.MOV:
+                    regs[base + code[pc + 1]] = regs[base + code[pc + 2]];
+                    pc += 3;
+                    break;
+                case Opcode.ADD:
+                    regs[base + code[pc + 1]] = regs[base + code[pc + 2]] + regs[base + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case Opcode.SUB:
+                    regs[base + code[pc + 1]] = regs[base + code[pc + 2]] - regs[base + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case Opcode.MUL:
+                    regs[base + code[pc + 1]] = regs[base + code[pc + 2]] * regs[base + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case Opcode.DIV:
+                    regs[base + code[pc + 1]] = regs[base + code[pc + 2]] / regs[base + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case Opcode.MOD:
+                    regs[base + code[pc + 1]] = regs[base + code[pc + 2]] % regs[base + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case Opcode.AND:
+                    regs[base + code[pc + 1]] = regs[base + code[pc + 2]] & regs[base + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case Opcode.OR:
+                    regs[base + code[pc + 1]] = regs[base + code[pc + 2]] | regs[base + code[pc + 3]];
+                    pc += 4;
+                    break;
+                case Opcode.EQ:
+                    regs[base + code[pc + 1]] = regs[base + code[pc + 2]] == regs[base + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case Opcode.NEQ:
+                    regs[base + code[pc + 1]] = regs[base + code[pc + 2]] != regs[base + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case Opcode.LT:
+                    regs[base + code[pc + 1]] = regs[base + code[pc + 2]] < regs[base + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case Opcode.GT:
+                    regs[base + code[pc + 1]] = regs[base + code[pc + 2]] > regs[base + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case Opcode.LEQ:
+                    regs[base + code[pc + 1]] = regs[base + code[pc + 2]] <= regs[base + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case Opcode.GEQ:
+                    regs[base + code[pc + 1]] = regs[base + code[pc + 2]] >= regs[base + code[pc + 3]] ? 1 : 0;
+                    pc += 4;
+                    break;
+                case Opcode.LD:
+                    regs[base + code[pc + 1]] = memory.ldM(regs[base + code[pc + 2]] + code[pc + 3]);
+                    pc += 4;
+                    break;
+                case Opcode.ST:
+                    memory.stM(regs[base + code[pc + 1]] + code[pc + 2], regs[base + code[pc + 3]]);
+                    pc += 4;
+                    break;
+                case Opcode.LDG:
+                    regs[base + code[pc + 1]] = memory.ldM(code[pc + 2]);
+                    pc += 3;
+                    break;
+                case Opcode.STG:
+                    memory.stM(code[pc + 1], regs[base + code[pc + 2]]);
+                    pc += 3;
+                    break;
+                case Opcode.FP:
+                    regs[base + code[pc + 1]] = framePointer;
+                    pc += 2;
+                    break;
+                case Opcode.SP:
+                    regs[base + code[pc + 1]] = stackPointer;
+                    pc += 2;
+                    break;
+                case Opcode.JMP:
+                    pc = code[pc + 1];
+                    break;
+                case Opcode.CJMP: {
+                    var condition = regs[base + code[pc + 1]];
+                    if (condition == 1) {
+                        pc = code[pc + 2];
+                    } else if (condition == 0) {
+                        pc = code[pc + 3];
+                    } else {
+                        throw new RuntimeException("Condition is not logical value (not 1 or 0)");
+                    }
+                    break;
+                }
+                case Opcode.CALL: {
+                    var callee = program.functions[code[pc + 2]];
+                    var argc = code[pc + 3];
+                    for (int i = 0; i < argc; i++) {
+                        memory.stM(stackPointer + Constants.WordSize * i, regs[base + code[pc + 4 + i]]); // arguments
+                    }
+                    execute(callee, base + function.registers);
+                    regs = registers;
+
+                    stackPointer = framePointer;
+                    framePointer = memory.ldM(stackPointer - callee.frame.oldFPOffset()); // preberi oldFP iz pomnilnika
+                    regs[base + code[pc + 1]] = memory.ldM(stackPointer);
+                    pc += 4 + argc;
+                    break;
+                }
+                case Opcode.NATIVE: {
+                    var nativeFunction = nativeFunctions[code[pc + 2]];
+                    var argc = code[pc + 3];
+                    var args = new int[argc];
+                    for (int i = 0; i < argc; i++) {
+                        args[i] = regs[base + code[pc + 4 + i]];
+                    }
+                    regs[base + code[pc + 1]] = standardLibrary.call(nativeFunction, args);
+                    pc += 4 + argc;
+                    break;
+                }
+                case Opcode.RET:
+                    return;
+                default:
+                    throw new RuntimeException("Unknown opcode " + code[pc] + "!");
+            }
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/**
+ * @ Author: tevz
+ * @ Description: Ukazi registrskega navideznega stroja.
+ */
+
+package compiler.interpret.bytecode;
+
+/**
+ * Vsak ukaz je zakodiran kot operacijska koda, ki ji sledijo operandi.
+ * Operand `r` je indeks registra, `imm` takojšnja vrednost in `pc`
+ * odmik ukaza v kodi funkcije.
+ */
+public class Opcode {
+    private Opcode() {}
+
+    public static final int CONST  = 0;  // CONST  r, imm        r = imm
+    public static final int MOV    = 1;  // MOV    r, r1         r = r1
+    public static final int ADD    = 2;  // ADD    r, r1, r2     r = r1 + r2
+    public static final int SUB    = 3;
+    public static final int MUL    = 4;
+    public static final int DIV    = 5;
+    public static final int MOD    = 6;
+    public static final int AND    = 7;
+    public static final int OR     = 8;
+    public static final int EQ     = 9;
+    public static final int NEQ    = 10;
+    public static final int LT     = 11;
+    public static final int GT     = 12;
+    public static final int LEQ    = 13;
+    public static final int GEQ    = 14;
+    public static final int LD     = 15; // LD     r, r1, imm    r = MEM[r1 + imm]
+    public static final int ST     = 16; // ST     r1, imm, r    MEM[r1 + imm] = r
+    public static final int LDG    = 17; // LDG    r, imm        r = MEM[imm]
+    public static final int STG    = 18; // STG    imm, r        MEM[imm] = r
+    public static final int FP     = 19; // FP     r             r = FP
+    public static final int SP     = 20; // SP     r             r = SP
+    public static final int JMP    = 21; // JMP    pc
+    public static final int CJMP   = 22; // CJMP   r, pc1, pc2   r == 1 ? pc1 : pc2
+    public static final int CALL   = 23; // CALL   r, f, n, r1 .. rn
+    public static final int NATIVE = 24; // NATIVE r, f, n, r1 .. rn
+    public static final int RET    = 25; // RET
+}
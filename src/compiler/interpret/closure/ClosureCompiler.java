@@ -0,0 +1,283 @@
+/**
+ * @ Author: tevz
+ * @ Description: Prevajanje povezane vmesne kode v drevesa zaprtij.
+ *
+ * Vsak izraz se prevede v `IntSupplier`, specializiran za svojo
+ * vrsto in operator, vsak stavek pa v `IntUnaryOperator`, ki vrne
+ * indeks naslednjega stavka. Pri izvajanju tako odpade preverjanje
+ * vrste vozlišča (`instanceof`) in operatorja (`switch`).
+ */
+
+package compiler.interpret.closure;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.function.IntSupplier;
+import java.util.function.IntUnaryOperator;
+
+import common.Constants;
+import compiler.frm.Frame;
+import compiler.gen.Memory;
+import compiler.interpret.StandardLibrary;
+import compiler.ir.chunk.Chunk.CodeChunk;
+import compiler.ir.chunk.Chunk.LinkedCodeChunk;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+
+public class ClosureCompiler {
+    /**
+     * Pomnilnik navideznega stroja (povezana koda in naslovi label).
+     */
+    private final Memory memory;
+
+    /**
+     * Stroj, na katerem se bodo zaprtja izvajala.
+     */
+    private final ClosureMachine machine;
+
+    /**
+     * Že ustvarjene funkcije.
+     */
+    private final Map<Frame.Label, ClosureFunction> functions = new HashMap<>();
+
+    /**
+     * Funkcije, ki jih moramo še prevesti.
+     */
+    private final Queue<LinkedCodeChunk> pending = new ArrayDeque<>();
+
+    public ClosureCompiler(Memory memory, ClosureMachine machine) {
+        requireNonNull(memory, machine);
+        this.memory = memory;
+        this.machine = machine;
+    }
+
+    /**
+     * Prevede funkcijo in vse funkcije, ki jih (posredno) kliče.
+     */
+    public ClosureFunction compile(CodeChunk chunk) {
+        var function = function(chunk);
+        while (!pending.isEmpty()) {
+            var linked = pending.remove();
+            compile(linked, functions.get(linked.frame.label));
+        }
+        return function;
+    }
+
+    private ClosureFunction function(CodeChunk chunk) {
+        var function = functions.get(chunk.frame.label);
+        if (function == null) {
+            if (!(chunk instanceof LinkedCodeChunk linked)) {
+                throw new RuntimeException("Link code!");
+            }
+            function = new ClosureFunction(linked.frame, linked.temps);
+            functions.put(linked.frame.label, function);
+            pending.add(linked);
+        }
+        return function;
+    }
+
+    private void compile(LinkedCodeChunk chunk, ClosureFunction function) {
+        var body = new IntUnaryOperator[chunk.statements.length];
+        for (int pc = 0; pc < body.length; pc++) {
+            body[pc] = compile(chunk.statements[pc], chunk.thenTargets[pc], chunk.elseTargets[pc], chunk.temps);
+        }
+        function.body = body;
+    }
+
+    // --------- stavki ----------
+
+    private IntUnaryOperator compile(IRStmt stmt, int thenTarget, int elseTarget, int temps) {
+        if (stmt instanceof CJumpStmt cjump) {
+            var condition = compile(cjump.condition, temps);
+            return pc -> {
+                var value = condition.getAsInt();
+                if (value == 1) {
+                    return thenTarget;
+                } else if (value == 0) {
+                    return elseTarget;
+                }
+                throw new RuntimeException("Condition is not logical value (not 1 or 0)");
+            };
+        } else if (stmt instanceof ExpStmt exp) {
+            if (exp.expr instanceof TempExpr || exp.expr instanceof ConstantExpr || exp.expr instanceof NameExpr) {
+                return pc -> pc + 1;
+            }
+            var expr = compile(exp.expr, temps);
+            return pc -> {
+                expr.getAsInt();
+                return pc + 1;
+            };
+        } else if (stmt instanceof JumpStmt) {
+            return pc -> thenTarget;
+        } else if (stmt instanceof LabelStmt) {
+            return pc -> pc + 1;
+        } else if (stmt instanceof MoveStmt move) {
+            return compile(move, temps);
+        } else {
+            throw new RuntimeException("Cannot compile this statement!");
+        }
+    }
+
+    private IntUnaryOperator compile(MoveStmt move, int temps) {
+        var src = compile(move.src, temps);
+        if (move.dst instanceof TempExpr temp) {
+            var id = temp.temp.id;
+            return pc -> {
+                var value = src.getAsInt(); // klic lahko poveča tabelo registrov
+                machine.registers[machine.base + id] = value;
+                return pc + 1;
+            };
+        } else if (move.dst instanceof MemExpr mem) {
+            if (offset(mem.expr) != null) {
+                var base = compile(((BinopExpr) mem.expr).lhs, temps);
+                var offset = (int) offset(mem.expr);
+                return pc -> {
+                    var address = base.getAsInt() + offset;
+                    memory.stM(address, src.getAsInt());
+                    return pc + 1;
+                };
+            }
+            var address = compile(mem.expr, temps);
+            return pc -> {
+                var value = address.getAsInt();
+                memory.stM(value, src.getAsInt());
+                return pc + 1;
+            };
+        } else {
+            throw new RuntimeException("unexpected MOVE left child!");
+        }
+    }
+
+    // --------- izrazi ----------
+
+    private IntSupplier compile(IRExpr expr, int temps) {
+        if (expr instanceof BinopExpr binop) {
+            return compile(binop, temps);
+        } else if (expr instanceof CallExpr call) {
+            return compile(call, temps);
+        } else if (expr instanceof ConstantExpr constant) {
+            var value = constant.constant;
+            return () -> value;
+        } else if (expr instanceof EseqExpr) {
+            throw new RuntimeException("Cannot compile ESEQ; linearize IRCode!");
+        } else if (expr instanceof MemExpr mem) {
+            if (offset(mem.expr) != null) {
+                var base = compile(((BinopExpr) mem.expr).lhs, temps);
+                var offset = (int) offset(mem.expr);
+                return () -> memory.ldM(base.getAsInt() + offset);
+            }
+            var address = compile(mem.expr, temps);
+            return () -> memory.ldM(address.getAsInt());
+        } else if (expr instanceof NameExpr name) {
+            if (name.label.name.equals(Constants.framePointer)) {
+                return () -> machine.framePointer;
+            } else if (name.label.name.equals(Constants.stackPointer)) {
+                return () -> machine.stackPointer;
+            }
+            var address = memory.address(name.label);
+            return () -> address;
+        } else if (expr instanceof TempExpr temp) {
+            var id = temp.temp.id;
+            return () -> machine.registers[machine.base + id];
+        } else {
+            throw new IllegalArgumentException("Unknown expr type");
+        }
+    }
+
+    private IntSupplier compile(BinopExpr binop, int temps) {
+        var lhs = compile(binop.lhs, temps);
+        if (binop.rhs instanceof ConstantExpr constant) {
+            var rhs = constant.constant;
+            switch (binop.op) {
+                case ADD:
+                    return () -> lhs.getAsInt() + rhs;
+                case SUB:
+                    return () -> lhs.getAsInt() - rhs;
+                case MUL:
+                    return () -> lhs.getAsInt() * rhs;
+                case LT:
+                    return () -> lhs.getAsInt() < rhs ? 1 : 0;
+                case EQ:
+                    return () -> lhs.getAsInt() == rhs ? 1 : 0;
+                default:
+                    break;
+            }
+        }
+        var rhs = compile(binop.rhs, temps);
+        switch (binop.op) {
+            case ADD:
+                return () -> lhs.getAsInt() + rhs.getAsInt();
+            case AND:
+                return () -> lhs.getAsInt() & rhs.getAsInt();
+            case DIV:
+                return () -> lhs.getAsInt() / rhs.getAsInt();
+            case EQ:
+                return () -> lhs.getAsInt() == rhs.getAsInt() ? 1 : 0;
+            case GEQ:
+                return () -> lhs.getAsInt() >= rhs.getAsInt() ? 1 : 0;
+            case GT:
+                return () -> lhs.getAsInt() > rhs.getAsInt() ? 1 : 0;
+            case LEQ:
+                return () -> lhs.getAsInt() <= rhs.getAsInt() ? 1 : 0;
+            case LT:
+                return () -> lhs.getAsInt() < rhs.getAsInt() ? 1 : 0;
+            case MOD:
+                return () -> lhs.getAsInt() % rhs.getAsInt();
+            case MUL:
+                return () -> lhs.getAsInt() * rhs.getAsInt();
+            case NEQ:
+                return () -> lhs.getAsInt() != rhs.getAsInt() ? 1 : 0;
+            case OR:
+                return () -> lhs.getAsInt() | rhs.getAsInt();
+            case SUB:
+                return () -> lhs.getAsInt() - rhs.getAsInt();
+            default:
+                throw new RuntimeException("Unknown binary operator!");
+        }
+    }
+
+    private IntSupplier compile(CallExpr call, int temps) {
+        var args = new IntSupplier[call.args.size()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = compile(call.args.get(i), temps);
+        }
+        var nativeFunction = StandardLibrary.Function.forLabel(call.label);
+        if (nativeFunction.isPresent()) {
+            var function = nativeFunction.get();
+            return () -> {
+                var values = new int[args.length];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = args[i].getAsInt();
+                }
+                return machine.standardLibrary.call(function, values);
+            };
+        }
+        var callee = function(memory.ldCode(call.label));
+        return () -> {
+            for (int i = 0; i < args.length; i++) {
+                memory.stM(machine.stackPointer + Constants.WordSize * i, args[i].getAsInt()); // arguments
+            }
+            return machine.call(callee, temps);
+        };
+    }
+
+    // --------- pomožne funkcije ----------
+
+    /**
+     * Vrne odmik za naslov oblike `e + c` oz. `e - c`, sicer `null`.
+     */
+    private Integer offset(IRExpr expr) {
+        if (expr instanceof BinopExpr binop && binop.rhs instanceof ConstantExpr constant) {
+            if (binop.op == BinopExpr.Operator.ADD) {
+                return constant.constant;
+            } else if (binop.op == BinopExpr.Operator.SUB) {
+                return -constant.constant;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,39 @@
+/**
+ * @ Author: tevz
+ * @ Description: Funkcija, prevedena v drevo zaprtij.
+ */
+
+package compiler.interpret.closure;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.function.IntUnaryOperator;
+
+import compiler.frm.Frame;
+
+public class ClosureFunction {
+    /**
+     * Klicni zapis funkcije.
+     */
+    public final Frame frame;
+
+    /**
+     * Število začasnih spremenljivk (registrov) funkcije.
+     */
+    public final int temps;
+
+    /**
+     * Stavki funkcije; vsak stavek prejme svoj indeks in vrne
+     * indeks naslednjega stavka.
+     *
+     * Nastavi jih prevajalnik, ko funkcijo prevede (klici se lahko
+     * sklicujejo na funkcijo, preden je ta prevedena).
+     */
+    IntUnaryOperator[] body;
+
+    public ClosureFunction(Frame frame, int temps) {
+        requireNonNull(frame);
+        this.frame = frame;
+        this.temps = temps;
+    }
+}
@@ -0,0 +1,101 @@
+/**
+ * @ Author: tevz
+ * @ Description: Izvajanje funkcij, prevedenih v drevesa zaprtij.
+ */
+
+package compiler.interpret.closure;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.Optional;
+
+import common.Constants;
+import compiler.gen.Memory;
+import compiler.interpret.StandardLibrary;
+
+public class ClosureMachine {
+    /**
+     * Pomnilnik navideznega stroja.
+     */
+    final Memory memory;
+
+    /**
+     * Standardna knjižnica.
+     */
+    final StandardLibrary standardLibrary;
+
+    /**
+     * Začasne spremenljivke vseh aktivnih klicev.
+     */
+    int[] registers = new int[1024];
+
+    /**
+     * Baza registrov aktivnega klica.
+     */
+    int base = 0;
+
+    /**
+     * Skladovni kazalec (kaže na dno sklada).
+     */
+    int stackPointer;
+
+    /**
+     * Klicni kazalec (kaže na vrh aktivnega klicnega zapisa).
+     */
+    int framePointer;
+
+    public ClosureMachine(Memory memory, Optional<PrintStream> outputStream) {
+        requireNonNull(memory, outputStream);
+        this.memory = memory;
+        this.standardLibrary = new StandardLibrary(memory, outputStream);
+    }
+
+    // --------- izvajanje ----------
+
+    /**
+     * Izvede funkcijo `main`; sklad se ob vsakem zagonu postavi na začetek,
+     * zato lahko isti prevod izvedemo večkrat.
+     */
+    public void run(ClosureFunction main) {
+        stackPointer = memory.size - Constants.WordSize;
+        framePointer = memory.size - Constants.WordSize;
+        base = 0;
+        memory.stM(framePointer + Constants.WordSize, 0); // argument v funkcijo main
+        memory.stM(framePointer - main.frame.oldFPOffset(), framePointer); // oldFP
+
+        execute(main);
+    }
+
+    /**
+     * Pokliče funkcijo; argumenti morajo biti že shranjeni na skladu.
+     *
+     * @param callerTemps število registrov klicoče funkcije.
+     * @return rezultat funkcije.
+     */
+    int call(ClosureFunction callee, int callerTemps) {
+        var savedBase = base;
+        base = savedBase + callerTemps;
+        execute(callee);
+        base = savedBase;
+
+        stackPointer = framePointer;
+        framePointer = memory.ldM(stackPointer - callee.frame.oldFPOffset()); // preberi oldFP iz pomnilnika
+        return memory.ldM(stackPointer);
+    }
+
+    private void execute(ClosureFunction function) {
+        framePointer = stackPointer;
+        stackPointer -= function.frame.size();
+
+        if (base + function.temps > registers.length) {
+            registers = Arrays.copyOf(registers, Math.max(registers.length * 2, base + function.temps));
+        }
+        var body = function.body;
+        int pc = 0;
+        while (pc < body.length) {
+            pc = body[pc].applyAsInt(pc);
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/**
+ * @ Author: tevz
+ * @ Description: Tabela cen (abstraktnih ciklov) operacij vmesne kode.
+ *
+ * Cena se določi za vsak operator `BinopExpr`, za branje (`MEM` kot
+ * izraz) in pisanje pomnilnika (`MOVE(MEM(...), ...)`), za klic in
+ * vrnitev iz funkcije, ter za brezpogojni in pogojni skok. Dostopi do
+ * registrov (`TEMP`), konstante in imena so brezplačni.
+ *
+ * Linearizirani izrazi ne vsebujejo skokov (tudi `&` in `|` izračunata
+ * oba operanda), zato je cena posameznega stavka konstantna (`cost`).
+ *
+ * Tabelo lahko preberemo iz datoteke v obliki `java.util.Properties`,
+ * npr. `MUL = 3`, `LOAD = 2`; neomenjene cene ostanejo privzete.
+ */
+
+package compiler.interpret.cost;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+
+public class CostModel {
+    /**
+     * Cene operatorjev.
+     */
+    private final Map<BinopExpr.Operator, Integer> operators = new EnumMap<>(BinopExpr.Operator.class);
+
+    public int load = 2;
+    public int store = 2;
+    public int call = 5;
+    public int ret = 3;
+    public int jump = 1;
+    public int cjump = 2;
+
+    /**
+     * Privzeta tabela: aritmetični, logični in primerjalni operatorji
+     * stanejo 1 cikel, množenje 3, deljenje in ostanek pa 20.
+     */
+    public CostModel() {
+        for (var operator : BinopExpr.Operator.values()) {
+            operators.put(operator, 1);
+        }
+        operators.put(BinopExpr.Operator.MUL, 3);
+        operators.put(BinopExpr.Operator.DIV, 20);
+        operators.put(BinopExpr.Operator.MOD, 20);
+    }
+
+    /**
+     * Prebere tabelo; ključi so imena operatorjev (`ADD`, `MUL`, ...)
+     * ter `LOAD`, `STORE`, `CALL`, `RETURN`, `JUMP` in `CJUMP`.
+     */
+    public static CostModel load(Reader reader) throws IOException {
+        requireNonNull(reader);
+        var properties = new Properties();
+        properties.load(reader);
+        var model = new CostModel();
+        for (var key : properties.stringPropertyNames()) {
+            var value = properties.getProperty(key).trim();
+            int cost;
+            try {
+                cost = Integer.parseInt(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Cost of " + key + " is not an integer: '" + value + "'!");
+            }
+            if (cost < 0) {
+                throw new IllegalArgumentException("Cost of " + key + " is negative!");
+            }
+            model.set(key.trim(), cost);
+        }
+        return model;
+    }
+
+    private void set(String key, int cost) {
+        switch (key) {
+            case "LOAD":
+                load = cost;
+                break;
+            case "STORE":
+                store = cost;
+                break;
+            case "CALL":
+                call = cost;
+                break;
+            case "RETURN":
+                ret = cost;
+                break;
+            case "JUMP":
+                jump = cost;
+                break;
+            case "CJUMP":
+                cjump = cost;
+                break;
+            default:
+                try {
+                    operators.put(BinopExpr.Operator.valueOf(key), cost);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalArgumentException("Unknown cost " + key + "!");
+                }
+        }
+    }
+
+    public int cost(BinopExpr.Operator operator) {
+        return operators.get(operator);
+    }
+
+    /**
+     * Cena ene izvedbe stavka (brez izvajanja klicanih funkcij).
+     */
+    public long cost(IRStmt stmt) {
+        if (stmt instanceof MoveStmt move) {
+            if (move.dst instanceof MemExpr mem) {
+                return store + cost(mem.expr) + cost(move.src);
+            }
+            return cost(move.dst) + cost(move.src);
+        } else if (stmt instanceof ExpStmt exp) {
+            return cost(exp.expr);
+        } else if (stmt instanceof CJumpStmt cjumpStmt) {
+            return cjump + cost(cjumpStmt.condition);
+        } else if (stmt instanceof JumpStmt) {
+            return jump;
+        } else if (stmt instanceof LabelStmt) {
+            return 0;
+        }
+        throw new IllegalArgumentException("Cannot cost " + stmt.getClass().getSimpleName() + "; linearize IRCode!");
+    }
+
+    /**
+     * Cena izračuna izraza (brez izvajanja klicanih funkcij).
+     */
+    public long cost(IRExpr expr) {
+        if (expr instanceof BinopExpr binop) {
+            return cost(binop.op) + cost(binop.lhs) + cost(binop.rhs);
+        } else if (expr instanceof MemExpr mem) {
+            return load + cost(mem.expr);
+        } else if (expr instanceof CallExpr callExpr) {
+            long cost = call + ret;
+            for (var arg : callExpr.args) {
+                cost += cost(arg);
+            }
+            return cost;
+        } else if (expr instanceof ConstantExpr || expr instanceof TempExpr || expr instanceof NameExpr) {
+            return 0;
+        }
+        throw new IllegalArgumentException("Cannot cost " + expr.getClass().getSimpleName() + "; linearize IRCode!");
+    }
+}
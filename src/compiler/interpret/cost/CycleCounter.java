@@ -0,0 +1,248 @@
+/**
+ * @ Author: tevz
+ * @ Description: Interpreter, ki šteje abstraktne cikle izvajanja.
+ *
+ * Cene stavkov se izračunajo vnaprej po tabeli `CostModel`, med izvajanjem
+ * pa se šteje le, kolikokrat se je posamezen stavek izvedel, zato je
+ * rezultat determinističen in neodvisen od hitrosti stroja in JVM.
+ *
+ * Poročilo (`report`) navede cikle po funkcijah (izključno, brez klicanih
+ * funkcij), skupno število ciklov in razčlenitev po vrstah operacij.
+ */
+
+package compiler.interpret.cost;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import compiler.frm.Frame;
+import compiler.gen.Memory;
+import compiler.interpret.Interpreter;
+import compiler.ir.chunk.Chunk.CodeChunk;
+import compiler.ir.chunk.Chunk.LinkedCodeChunk;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+
+public class CycleCounter extends Interpreter {
+    private final CostModel model;
+
+    /**
+     * Števci izvedb stavkov, po fragmentih kode.
+     */
+    private final Map<CodeChunk, ChunkCount> chunks = new IdentityHashMap<>();
+
+    /**
+     * Število klicev funkcij, v vrstnem redu prvega klica.
+     */
+    private final Map<Frame.Label, long[]> calls = new LinkedHashMap<>();
+
+    public CycleCounter(Memory memory, Optional<PrintStream> outputStream, CostModel model) {
+        super(memory, outputStream);
+        requireNonNull(model);
+        this.model = model;
+    }
+
+    // --------- izvajanje ----------
+
+    @Override
+    public void interpret(CodeChunk chunk) {
+        count(chunk);
+        super.interpret(chunk);
+    }
+
+    @Override
+    protected long[] executions(LinkedCodeChunk chunk) {
+        return chunks.computeIfAbsent(chunk, this::prepare).executed;
+    }
+
+    @Override
+    protected int call(Object target, int top) {
+        count((CodeChunk) target);
+        return super.call(target, top);
+    }
+
+    private void count(CodeChunk chunk) {
+        calls.computeIfAbsent(chunk.frame.label, l -> new long[1])[0]++;
+    }
+
+    private ChunkCount prepare(CodeChunk chunk) {
+        var linked = (LinkedCodeChunk) chunk;
+        var costs = new long[linked.statements.length];
+        for (int pc = 0; pc < costs.length; pc++) {
+            costs[pc] = model.cost(linked.statements[pc]);
+        }
+        return new ChunkCount(linked, costs);
+    }
+
+    // --------- rezultati ----------
+
+    /**
+     * Skupno število ciklov.
+     */
+    public long cycles() {
+        long cycles = 0;
+        for (var count : chunks.values()) {
+            cycles += count.cycles();
+        }
+        return cycles;
+    }
+
+    /**
+     * Skupno število izvedenih stavkov (brez oznak).
+     */
+    public long executed() {
+        long executed = 0;
+        for (var count : chunks.values()) {
+            for (int pc = 0; pc < count.executed.length; pc++) {
+                if (!(count.chunk.statements[pc] instanceof LabelStmt)) {
+                    executed += count.executed[pc];
+                }
+            }
+        }
+        return executed;
+    }
+
+    /**
+     * Izpiše cikle po funkcijah, skupno število ciklov in razčlenitev
+     * po vrstah operacij.
+     */
+    public void report(PrintStream out) {
+        Map<Frame.Label, long[]> functions = new LinkedHashMap<>();
+        var binops = new long[BinopExpr.Operator.values().length];
+        var operations = new long[Operation.values().length];
+        for (var count : chunks.values()) {
+            var function = functions.computeIfAbsent(count.chunk.frame.label, l -> new long[2]);
+            function[0] += count.cycles();
+            for (int pc = 0; pc < count.executed.length; pc++) {
+                if (count.executed[pc] == 0 || count.chunk.statements[pc] instanceof LabelStmt) {
+                    continue;
+                }
+                function[1] += count.executed[pc];
+                tally(count.chunk.statements[pc], count.executed[pc], binops, operations);
+            }
+        }
+
+        out.println("=== Cycles ===");
+        out.printf("%12s %14s %14s  %s%n", "calls", "statements", "cycles", "function");
+        var sorted = new ArrayList<>(functions.entrySet());
+        sorted.sort(Comparator.comparingLong((Map.Entry<Frame.Label, long[]> e) -> e.getValue()[0]).reversed());
+        for (var entry : sorted) {
+            out.printf("%12d %14d %14d  %s%n",
+                calls.getOrDefault(entry.getKey(), new long[1])[0],
+                entry.getValue()[1],
+                entry.getValue()[0],
+                entry.getKey().name);
+        }
+        out.printf("%12s %14d %14d  %s%n", "", executed(), cycles(), "total");
+
+        out.println("=== Operations ===");
+        out.printf("%12s %8s %14s  %s%n", "count", "cost", "cycles", "operation");
+        for (var operator : BinopExpr.Operator.values()) {
+            var count = binops[operator.ordinal()];
+            if (count > 0) {
+                out.printf("%12d %8d %14d  %s%n", count, model.cost(operator), count * model.cost(operator), operator);
+            }
+        }
+        for (var operation : Operation.values()) {
+            var count = operations[operation.ordinal()];
+            if (count > 0) {
+                out.printf("%12d %8d %14d  %s%n", count, cost(operation), count * cost(operation), operation);
+            }
+        }
+    }
+
+    /**
+     * Prišteje operacije stavka, izvedenega `times`-krat.
+     */
+    private void tally(IRStmt stmt, long times, long[] binops, long[] operations) {
+        if (stmt instanceof MoveStmt move) {
+            if (move.dst instanceof MemExpr mem) {
+                operations[Operation.STORE.ordinal()] += times;
+                tally(mem.expr, times, binops, operations);
+            } else {
+                tally(move.dst, times, binops, operations);
+            }
+            tally(move.src, times, binops, operations);
+        } else if (stmt instanceof ExpStmt exp) {
+            tally(exp.expr, times, binops, operations);
+        } else if (stmt instanceof CJumpStmt cjump) {
+            operations[Operation.CJUMP.ordinal()] += times;
+            tally(cjump.condition, times, binops, operations);
+        } else if (stmt instanceof JumpStmt) {
+            operations[Operation.JUMP.ordinal()] += times;
+        }
+    }
+
+    private void tally(IRExpr expr, long times, long[] binops, long[] operations) {
+        if (expr instanceof BinopExpr binop) {
+            binops[binop.op.ordinal()] += times;
+            tally(binop.lhs, times, binops, operations);
+            tally(binop.rhs, times, binops, operations);
+        } else if (expr instanceof MemExpr mem) {
+            operations[Operation.LOAD.ordinal()] += times;
+            tally(mem.expr, times, binops, operations);
+        } else if (expr instanceof CallExpr call) {
+            operations[Operation.CALL.ordinal()] += times;
+            operations[Operation.RETURN.ordinal()] += times;
+            for (var arg : call.args) {
+                tally(arg, times, binops, operations);
+            }
+        }
+    }
+
+    private long cost(Operation operation) {
+        switch (operation) {
+            case LOAD:
+                return model.load;
+            case STORE:
+                return model.store;
+            case CALL:
+                return model.call;
+            case RETURN:
+                return model.ret;
+            case JUMP:
+                return model.jump;
+            default:
+                return model.cjump;
+        }
+    }
+
+    // --------------------------------------------------------------
+
+    /**
+     * Operacije razčlenitve poleg operatorjev.
+     */
+    private static enum Operation {
+        LOAD, STORE, CALL, RETURN, JUMP, CJUMP
+    }
+
+    /**
+     * Števci izvedb in cene stavkov fragmenta kode.
+     */
+    private static class ChunkCount {
+        final LinkedCodeChunk chunk;
+        final long[] costs;
+        final long[] executed;
+
+        ChunkCount(LinkedCodeChunk chunk, long[] costs) {
+            this.chunk = chunk;
+            this.costs = costs;
+            this.executed = new long[costs.length];
+        }
+
+        long cycles() {
+            long cycles = 0;
+            for (int pc = 0; pc < costs.length; pc++) {
+                cycles += costs[pc] * executed[pc];
+            }
+            return cycles;
+        }
+    }
+}
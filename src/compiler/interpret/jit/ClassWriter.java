@@ -0,0 +1,423 @@
+/**
+ * @ Author: tevz
+ * @ Description: Preprost zapisovalnik razredov JVM.
+ *
+ * Zapiše razred različice 49 (Java 5), zato metode ne potrebujejo
+ * atributa `StackMapTable`; preverjanje tipov opravi JVM sama.
+ */
+
+package compiler.interpret.jit;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public final class ClassWriter {
+    private static final int CONSTANT_Utf8 = 1;
+    private static final int CONSTANT_Integer = 3;
+    private static final int CONSTANT_String = 8;
+    private static final int CONSTANT_Class = 7;
+    private static final int CONSTANT_Methodref = 10;
+    private static final int CONSTANT_InterfaceMethodref = 11;
+    private static final int CONSTANT_NameAndType = 12;
+
+    public static final int ACC_PUBLIC = 0x0001;
+    public static final int ACC_STATIC = 0x0008;
+    public static final int ACC_FINAL = 0x0010;
+    public static final int ACC_SUPER = 0x0020;
+
+    /**
+     * Zapisani vnosi zaloge konstant.
+     */
+    private final ByteArrayOutputStream pool = new ByteArrayOutputStream();
+    private final DataOutputStream poolOutput = new DataOutputStream(pool);
+
+    /**
+     * Indeksi že zapisanih vnosov zaloge konstant.
+     */
+    private final Map<String, Integer> constants = new HashMap<>();
+
+    /**
+     * Število zasedenih mest v zalogi konstant (mesto 0 je rezervirano).
+     */
+    private int poolCount = 1;
+
+    /**
+     * Metode razreda.
+     */
+    private final List<byte[]> methods = new ArrayList<>();
+
+    private final int thisClass;
+    private final int superClass;
+    private final int[] interfaces;
+
+    /**
+     * @param name notranje ime razreda (npr. `a/b/C`).
+     */
+    public ClassWriter(String name, String superName, String... interfaceNames) {
+        this.thisClass = classRef(name);
+        this.superClass = classRef(superName);
+        this.interfaces = new int[interfaceNames.length];
+        for (int i = 0; i < interfaceNames.length; i++) {
+            interfaces[i] = classRef(interfaceNames[i]);
+        }
+    }
+
+    // --------- zaloga konstant ----------
+
+    public int utf8(String value) {
+        return constant("U" + value, out -> {
+            out.writeByte(CONSTANT_Utf8);
+            out.writeUTF(value);
+        });
+    }
+
+    public int integer(int value) {
+        return constant("I" + value, out -> {
+            out.writeByte(CONSTANT_Integer);
+            out.writeInt(value);
+        });
+    }
+
+    public int string(String value) {
+        var valueIndex = utf8(value);
+        return constant("S" + value, out -> {
+            out.writeByte(CONSTANT_String);
+            out.writeShort(valueIndex);
+        });
+    }
+
+    public int classRef(String name) {
+        var nameIndex = utf8(name);
+        return constant("C" + name, out -> {
+            out.writeByte(CONSTANT_Class);
+            out.writeShort(nameIndex);
+        });
+    }
+
+    public int methodRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_Methodref, owner, name, descriptor);
+    }
+
+    public int interfaceMethodRef(String owner, String name, String descriptor) {
+        return memberRef(CONSTANT_InterfaceMethodref, owner, name, descriptor);
+    }
+
+    private int memberRef(int tag, String owner, String name, String descriptor) {
+        var classIndex = classRef(owner);
+        var nameIndex = utf8(name);
+        var descriptorIndex = utf8(descriptor);
+        var nameAndType = constant("N" + name + ":" + descriptor, out -> {
+            out.writeByte(CONSTANT_NameAndType);
+            out.writeShort(nameIndex);
+            out.writeShort(descriptorIndex);
+        });
+        return constant(tag + owner + "." + name + ":" + descriptor, out -> {
+            out.writeByte(tag);
+            out.writeShort(classIndex);
+            out.writeShort(nameAndType);
+        });
+    }
+
+    private int constant(String key, PoolEntry entry) {
+        var index = constants.get(key);
+        if (index != null) {
+            return index;
+        }
+        try {
+            entry.write(poolOutput);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        if (poolCount > 0xFFFF) {
+            throw new IllegalStateException("Constant pool too large!");
+        }
+        constants.put(key, poolCount);
+        return poolCount++;
+    }
+
+    private interface PoolEntry {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    // --------- metode ----------
+
+    /**
+     * Doda metodo z atributom `Code`.
+     */
+    public void method(int access, String name, String descriptor, Code code) {
+        if (code.length() > 0xFFFF) {
+            throw new IllegalStateException("Method too large!");
+        }
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+        try {
+            out.writeShort(access);
+            out.writeShort(utf8(name));
+            out.writeShort(utf8(descriptor));
+            out.writeShort(1); // attributes_count
+            out.writeShort(utf8("Code"));
+            out.writeInt(12 + code.length());
+            out.writeShort(code.maxStack());
+            out.writeShort(code.maxLocals());
+            out.writeInt(code.length());
+            out.write(code.toByteArray());
+            out.writeShort(0); // exception_table_length
+            out.writeShort(0); // attributes_count
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        methods.add(bytes.toByteArray());
+    }
+
+    public byte[] toByteArray() {
+        var bytes = new ByteArrayOutputStream();
+        var out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0); // minor_version
+            out.writeShort(49); // major_version
+            out.writeShort(poolCount);
+            out.write(pool.toByteArray());
+            out.writeShort(ACC_PUBLIC | ACC_FINAL | ACC_SUPER);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(interfaces.length);
+            for (var index : interfaces) {
+                out.writeShort(index);
+            }
+            out.writeShort(0); // fields_count
+            out.writeShort(methods.size());
+            for (var method : methods) {
+                out.write(method);
+            }
+            out.writeShort(0); // attributes_count
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Koda metode.
+     *
+     * Sproti spremlja globino operandnega sklada; skoki se sklicujejo
+     * na labele, katerih odmiki se vpišejo, ko je koda zaključena.
+     */
+    public static class Code {
+        public static final int ICONST_0 = 0x03;
+        public static final int BIPUSH = 0x10;
+        public static final int SIPUSH = 0x11;
+        public static final int LDC_W = 0x13;
+        public static final int ILOAD = 0x15;
+        public static final int ALOAD = 0x19;
+        public static final int ISTORE = 0x36;
+        public static final int ASTORE = 0x3a;
+        public static final int IASTORE = 0x4f;
+        public static final int POP = 0x57;
+        public static final int DUP = 0x59;
+        public static final int IADD = 0x60;
+        public static final int ISUB = 0x64;
+        public static final int IMUL = 0x68;
+        public static final int IDIV = 0x6c;
+        public static final int IREM = 0x70;
+        public static final int IAND = 0x7e;
+        public static final int IOR = 0x80;
+        public static final int IFEQ = 0x99;
+        public static final int IF_ICMPEQ = 0x9f;
+        public static final int IF_ICMPNE = 0xa0;
+        public static final int IF_ICMPLT = 0xa1;
+        public static final int IF_ICMPGE = 0xa2;
+        public static final int IF_ICMPGT = 0xa3;
+        public static final int IF_ICMPLE = 0xa4;
+        public static final int GOTO = 0xa7;
+        public static final int RETURN = 0xb1;
+        public static final int INVOKEVIRTUAL = 0xb6;
+        public static final int INVOKESPECIAL = 0xb7;
+        public static final int INVOKESTATIC = 0xb8;
+        public static final int INVOKEINTERFACE = 0xb9;
+        public static final int NEWARRAY = 0xbc;
+        public static final int ATHROW = 0xbf;
+        public static final int WIDE = 0xc4;
+
+        private static final int T_INT = 10;
+
+        private final ByteArrayOutputStream code = new ByteArrayOutputStream();
+
+        private final List<Jump> jumps = new ArrayList<>();
+
+        private int stack = 0;
+        private int maxStack = 0;
+        private int maxLocals;
+
+        public Code(int maxLocals) {
+            this.maxLocals = maxLocals;
+        }
+
+        public int length() {
+            return code.size();
+        }
+
+        public int maxStack() {
+            return maxStack;
+        }
+
+        public int maxLocals() {
+            return maxLocals;
+        }
+
+        /**
+         * Nova labela (še brez odmika).
+         */
+        public Label label() {
+            return new Label();
+        }
+
+        /**
+         * Postavi labelo na trenutno mesto v kodi.
+         */
+        public void place(Label label) {
+            label.offset = code.size();
+        }
+
+        /**
+         * Ukaz brez operandov, ki globino sklada spremeni za `delta`.
+         */
+        public void op(int opcode, int delta) {
+            code.write(opcode);
+            stack(delta);
+        }
+
+        public void constant(int value, ClassWriter writer) {
+            if (value >= -1 && value <= 5) {
+                op(ICONST_0 + value, 1);
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                code.write(BIPUSH);
+                code.write(value);
+                stack(1);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                code.write(SIPUSH);
+                u2(value);
+                stack(1);
+            } else {
+                code.write(LDC_W);
+                u2(writer.integer(value));
+                stack(1);
+            }
+        }
+
+        /**
+         * Ukaz z indeksom lokalne spremenljivke (`iload`, `istore`, `aload`, `astore`).
+         */
+        public void local(int opcode, int index) {
+            if (index > 0xFF) {
+                code.write(WIDE);
+                code.write(opcode);
+                u2(index);
+            } else {
+                code.write(opcode);
+                code.write(index);
+            }
+            maxLocals = Math.max(maxLocals, index + 1);
+            stack(opcode == ILOAD || opcode == ALOAD ? 1 : -1);
+        }
+
+        /**
+         * Klic metode; `delta` je sprememba globine sklada.
+         */
+        public void invoke(int opcode, int methodRef, int delta, int argumentSlots) {
+            code.write(opcode);
+            u2(methodRef);
+            if (opcode == INVOKEINTERFACE) {
+                code.write(argumentSlots + 1);
+                code.write(0);
+            }
+            stack(delta);
+        }
+
+        /**
+         * Naloži konstanto iz zaloge konstant (npr. niz).
+         */
+        public void load(int index) {
+            code.write(LDC_W);
+            u2(index);
+            stack(1);
+        }
+
+        public void newIntArray() {
+            code.write(NEWARRAY);
+            code.write(T_INT);
+        }
+
+        /**
+         * Skok na labelo; `delta` je sprememba globine sklada.
+         */
+        public void jump(int opcode, Label target, int delta) {
+            jumps.add(new Jump(code.size(), target));
+            code.write(opcode);
+            u2(0);
+            stack(delta);
+        }
+
+        /**
+         * Trenutna globina sklada.
+         */
+        public int stack() {
+            return stack;
+        }
+
+        /**
+         * Nastavi globino sklada (npr. na labeli, ki je cilj skoka).
+         */
+        public void setStack(int depth) {
+            stack = depth;
+        }
+
+        public byte[] toByteArray() {
+            var bytes = code.toByteArray();
+            for (var jump : jumps) {
+                if (jump.target.offset < 0) {
+                    throw new IllegalStateException("Unplaced label!");
+                }
+                var delta = jump.target.offset - jump.position;
+                if (delta < Short.MIN_VALUE || delta > Short.MAX_VALUE) {
+                    throw new IllegalStateException("Jump too long!");
+                }
+                bytes[jump.position + 1] = (byte) (delta >> 8);
+                bytes[jump.position + 2] = (byte) delta;
+            }
+            return bytes;
+        }
+
+        private void u2(int value) {
+            code.write(value >> 8);
+            code.write(value);
+        }
+
+        private void stack(int delta) {
+            stack += delta;
+            maxStack = Math.max(maxStack, stack);
+        }
+
+        /**
+         * Labela v kodi metode.
+         */
+        public static class Label {
+            private int offset = -1;
+        }
+
+        private static class Jump {
+            final int position;
+            final Label target;
+
+            Jump(int position, Label target) {
+                this.position = position;
+                this.target = target;
+            }
+        }
+    }
+}
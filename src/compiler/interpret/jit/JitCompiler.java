@@ -0,0 +1,315 @@
+/**
+ * @ Author: tevz
+ * @ Description: Prevajanje povezane vmesne kode funkcije v razred JVM.
+ *
+ * Funkcija se prevede v skrit razred (`Lookup.defineHiddenClass`), ki
+ * implementira `JitFunction`. Začasne spremenljivke postanejo lokalne
+ * spremenljivke metode, klicni in skladovni kazalec pa se hranita v
+ * lokalnih spremenljivkah, saj ju klici ne spremenijo.
+ */
+
+package compiler.interpret.jit;
+
+import static common.RequireNonNull.requireNonNull;
+import static compiler.interpret.jit.ClassWriter.Code.*;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ToIntFunction;
+
+import common.Constants;
+import compiler.frm.Frame;
+import compiler.gen.Memory;
+import compiler.interpret.StandardLibrary;
+import compiler.ir.chunk.Chunk.LinkedCodeChunk;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+
+public class JitCompiler {
+    private static final String functionName = "compiler/interpret/jit/JitFunction";
+    private static final String runtimeName = "compiler/interpret/jit/JitRuntime";
+    private static final String memoryName = "compiler/gen/Memory";
+
+    // --------- lokalne spremenljivke prevedene metode ----------
+
+    private static final int runtimeLocal = 1;
+    private static final int topLocal = 2;
+    private static final int memoryLocal = 3;
+    private static final int framePointerLocal = 4;
+    private static final int stackPointerLocal = 5;
+    private static final int conditionLocal = 6;
+    private static final int firstTempLocal = 7;
+
+    /**
+     * Pomnilnik navideznega stroja (naslovi label).
+     */
+    private final Memory memory;
+
+    /**
+     * Vrne indeks funkcije, ki ga prevedena koda poda `JitRuntime.invoke`.
+     */
+    private final ToIntFunction<Frame.Label> functionIndex;
+
+    // --------- stanje prevajanja trenutne funkcije ----------
+
+    private ClassWriter writer;
+    private ClassWriter.Code code;
+    private Map<Frame.Label, ClassWriter.Code.Label> labels;
+
+    public JitCompiler(Memory memory, ToIntFunction<Frame.Label> functionIndex) {
+        requireNonNull(memory, functionIndex);
+        this.memory = memory;
+        this.functionIndex = functionIndex;
+    }
+
+    /**
+     * Prevede in naloži funkcijo.
+     *
+     * @throws IllegalStateException, če funkcije ni mogoče prevesti
+     *         (npr. ker je metoda prevelika).
+     */
+    public JitFunction compile(LinkedCodeChunk chunk) {
+        var bytes = generate(chunk);
+        try {
+            var lookup = MethodHandles.lookup().defineHiddenClass(bytes, true);
+            var constructor = lookup.findConstructor(lookup.lookupClass(), MethodType.methodType(void.class));
+            return (JitFunction) constructor.invoke();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot load compiled function " + chunk.frame.label.name + "!", e);
+        }
+    }
+
+    /**
+     * Vrne datoteko razreda za podano funkcijo.
+     */
+    public byte[] generate(LinkedCodeChunk chunk) {
+        writer = new ClassWriter(className(chunk.frame.label), "java/lang/Object", functionName);
+        labels = new HashMap<>();
+
+        var constructor = new ClassWriter.Code(1);
+        constructor.local(ALOAD, 0);
+        constructor.invoke(INVOKESPECIAL, writer.methodRef("java/lang/Object", "<init>", "()V"), -1, 0);
+        constructor.op(RETURN, 0);
+        writer.method(ClassWriter.ACC_PUBLIC, "<init>", "()V", constructor);
+
+        code = new ClassWriter.Code(firstTempLocal + chunk.temps);
+        prologue(chunk);
+        for (var stmt : chunk.statements) {
+            compile(stmt);
+        }
+        code.op(RETURN, 0);
+        writer.method(ClassWriter.ACC_PUBLIC, "execute", "(L" + runtimeName + ";I)V", code);
+        return writer.toByteArray();
+    }
+
+    private void prologue(LinkedCodeChunk chunk) {
+        code.local(ALOAD, runtimeLocal);
+        code.invoke(INVOKEINTERFACE, writer.interfaceMethodRef(runtimeName, "memory", "()L" + memoryName + ";"), 0, 0);
+        code.local(ASTORE, memoryLocal);
+
+        var size = chunk.frame.size();
+        code.local(ALOAD, runtimeLocal);
+        code.constant(size, writer);
+        code.invoke(INVOKEINTERFACE, writer.interfaceMethodRef(runtimeName, "enter", "(I)I"), -1, 1);
+        code.op(DUP, 1);
+        code.local(ISTORE, framePointerLocal);
+        code.constant(size, writer);
+        code.op(ISUB, -1);
+        code.local(ISTORE, stackPointerLocal);
+
+        // JVM zahteva, da so lokalne spremenljivke pred branjem nastavljene
+        for (int i = 0; i < chunk.temps; i++) {
+            code.constant(0, writer);
+            code.local(ISTORE, firstTempLocal + i);
+        }
+    }
+
+    // --------- stavki ----------
+
+    private void compile(IRStmt stmt) {
+        if (stmt instanceof CJumpStmt cjump) {
+            compile(cjump.condition);
+            code.local(ISTORE, conditionLocal);
+            code.local(ILOAD, conditionLocal);
+            code.constant(1, writer);
+            code.jump(IF_ICMPEQ, label(cjump.thenLabel), -2);
+            code.local(ILOAD, conditionLocal);
+            code.jump(IFEQ, label(cjump.elseLabel), -1);
+            code.local(ALOAD, runtimeLocal);
+            code.invoke(INVOKEINTERFACE, writer.interfaceMethodRef(runtimeName, "conditionError", "()Ljava/lang/RuntimeException;"), 0, 0);
+            code.op(ATHROW, -1);
+        } else if (stmt instanceof ExpStmt exp) {
+            if (!(exp.expr instanceof TempExpr || exp.expr instanceof ConstantExpr || exp.expr instanceof NameExpr)) {
+                compile(exp.expr);
+                code.op(POP, -1);
+            }
+        } else if (stmt instanceof JumpStmt jump) {
+            code.jump(GOTO, label(jump.label), 0);
+        } else if (stmt instanceof LabelStmt label) {
+            code.place(label(label.label));
+        } else if (stmt instanceof MoveStmt move) {
+            compile(move);
+        } else {
+            throw new RuntimeException("Cannot compile this statement!");
+        }
+    }
+
+    private void compile(MoveStmt move) {
+        if (move.dst instanceof TempExpr temp) {
+            compile(move.src);
+            code.local(ISTORE, firstTempLocal + temp.temp.id);
+        } else if (move.dst instanceof MemExpr mem) {
+            code.local(ALOAD, memoryLocal);
+            compile(mem.expr);
+            compile(move.src);
+            code.invoke(INVOKEVIRTUAL, writer.methodRef(memoryName, "stM", "(II)V"), -3, 2);
+        } else {
+            throw new RuntimeException("unexpected MOVE left child!");
+        }
+    }
+
+    // --------- izrazi ----------
+
+    /**
+     * Prevede izraz tako, da je njegova vrednost na vrhu sklada.
+     */
+    private void compile(IRExpr expr) {
+        if (expr instanceof BinopExpr binop) {
+            compile(binop);
+        } else if (expr instanceof CallExpr call) {
+            compile(call);
+        } else if (expr instanceof ConstantExpr constant) {
+            code.constant(constant.constant, writer);
+        } else if (expr instanceof EseqExpr) {
+            throw new RuntimeException("Cannot compile ESEQ; linearize IRCode!");
+        } else if (expr instanceof MemExpr mem) {
+            code.local(ALOAD, memoryLocal);
+            compile(mem.expr);
+            code.invoke(INVOKEVIRTUAL, writer.methodRef(memoryName, "ldM", "(I)I"), -1, 1);
+        } else if (expr instanceof NameExpr name) {
+            if (name.label.name.equals(Constants.framePointer)) {
+                code.local(ILOAD, framePointerLocal);
+            } else if (name.label.name.equals(Constants.stackPointer)) {
+                code.local(ILOAD, stackPointerLocal);
+            } else {
+                code.constant(memory.address(name.label), writer);
+            }
+        } else if (expr instanceof TempExpr temp) {
+            code.local(ILOAD, firstTempLocal + temp.temp.id);
+        } else {
+            throw new IllegalArgumentException("Unknown expr type");
+        }
+    }
+
+    private void compile(BinopExpr binop) {
+        compile(binop.lhs);
+        compile(binop.rhs);
+        switch (binop.op) {
+            case ADD:
+                code.op(IADD, -1);
+                break;
+            case SUB:
+                code.op(ISUB, -1);
+                break;
+            case MUL:
+                code.op(IMUL, -1);
+                break;
+            case DIV:
+                code.op(IDIV, -1);
+                break;
+            case MOD:
+                code.op(IREM, -1);
+                break;
+            case AND:
+                code.op(IAND, -1);
+                break;
+            case OR:
+                code.op(IOR, -1);
+                break;
+            case EQ:
+                compare(IF_ICMPEQ);
+                break;
+            case NEQ:
+                compare(IF_ICMPNE);
+                break;
+            case LT:
+                compare(IF_ICMPLT);
+                break;
+            case GT:
+                compare(IF_ICMPGT);
+                break;
+            case LEQ:
+                compare(IF_ICMPLE);
+                break;
+            case GEQ:
+                compare(IF_ICMPGE);
+                break;
+            default:
+                throw new RuntimeException("Unknown binary operator!");
+        }
+    }
+
+    /**
+     * Primerja vrednosti na vrhu sklada in namesto njiju pusti 1 ali 0.
+     */
+    private void compare(int opcode) {
+        var isTrue = code.label();
+        var end = code.label();
+        code.jump(opcode, isTrue, -2);
+        code.constant(0, writer);
+        code.jump(GOTO, end, 0);
+        code.place(isTrue);
+        code.setStack(code.stack() - 1);
+        code.constant(1, writer);
+        code.place(end);
+    }
+
+    private void compile(CallExpr call) {
+        var function = StandardLibrary.Function.forLabel(call.label);
+        if (function.isPresent()) {
+            code.local(ALOAD, runtimeLocal);
+            code.constant(function.get().ordinal(), writer);
+            code.constant(call.args.size(), writer);
+            code.newIntArray();
+            for (int i = 0; i < call.args.size(); i++) {
+                code.op(DUP, 1);
+                code.constant(i, writer);
+                compile(call.args.get(i));
+                code.op(IASTORE, -3);
+            }
+            code.invoke(INVOKEINTERFACE, writer.interfaceMethodRef(runtimeName, "invokeNative", "(I[I)I"), -2, 2);
+        } else {
+            for (int i = 0; i < call.args.size(); i++) {
+                code.local(ALOAD, memoryLocal);
+                code.local(ILOAD, stackPointerLocal);
+                code.constant(Constants.WordSize * i, writer);
+                code.op(IADD, -1);
+                compile(call.args.get(i));
+                code.invoke(INVOKEVIRTUAL, writer.methodRef(memoryName, "stM", "(II)V"), -3, 2); // arguments
+            }
+            code.local(ALOAD, runtimeLocal);
+            code.constant(functionIndex.applyAsInt(call.label), writer);
+            code.local(ILOAD, topLocal);
+            code.invoke(INVOKEINTERFACE, writer.interfaceMethodRef(runtimeName, "invoke", "(II)I"), -2, 2);
+        }
+    }
+
+    // --------- pomožne funkcije ----------
+
+    private ClassWriter.Code.Label label(Frame.Label label) {
+        return labels.computeIfAbsent(label, l -> code.label());
+    }
+
+    /**
+     * Ime razreda; vsebuje ime funkcije, da je razvidno iz sledi sklada.
+     */
+    private static String className(Frame.Label label) {
+        var sb = new StringBuilder("compiler/interpret/jit/Pins_");
+        for (var c : label.name.toCharArray()) {
+            sb.append(Character.isLetterOrDigit(c) ? c : '_');
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,16 @@
+/**
+ * @ Author: tevz
+ * @ Description: Funkcija PINS, prevedena v razred JVM.
+ */
+
+package compiler.interpret.jit;
+
+public interface JitFunction {
+    /**
+     * Izvede telo funkcije; argumenti morajo biti že shranjeni na skladu.
+     *
+     * @param top baza registrov funkcij, ki jih ta funkcija pokliče
+     *            in se še izvajajo v interpreterju.
+     */
+    void execute(JitRuntime runtime, int top);
+}
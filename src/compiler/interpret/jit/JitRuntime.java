@@ -0,0 +1,43 @@
+/**
+ * @ Author: tevz
+ * @ Description: Storitve izvajalnega okolja, ki jih kliče prevedena koda.
+ *
+ * Prevedena koda uporablja isti pomnilnik in isto razporeditev
+ * klicnih zapisov kot interpreter, zato se lahko prevedene in
+ * interpretirane funkcije poljubno kličejo med seboj.
+ */
+
+package compiler.interpret.jit;
+
+import compiler.gen.Memory;
+
+public interface JitRuntime {
+    /**
+     * Pomnilnik navideznega stroja.
+     */
+    Memory memory();
+
+    /**
+     * Ustvari klicni zapis velikosti `size` na vrhu sklada.
+     *
+     * @return nov klicni kazalec.
+     */
+    int enter(int size);
+
+    /**
+     * Pokliče funkcijo s podanim indeksom; argumenti so že shranjeni na skladu.
+     *
+     * @return rezultat funkcije.
+     */
+    int invoke(int function, int top);
+
+    /**
+     * Pokliče funkcijo standardne knjižnice (indeks v `StandardLibrary.Function`).
+     */
+    int invokeNative(int function, int[] args);
+
+    /**
+     * Napaka, ko pogoj skoka ni logična vrednost.
+     */
+    RuntimeException conditionError();
+}
@@ -0,0 +1,182 @@
+/**
+ * @ Author: tevz
+ * @ Description: Interpreter, ki pogosto klicane funkcije prevede v kodo JVM.
+ *
+ * Za vsako funkcijo šteje klice; ko število klicev doseže prag, funkcijo
+ * prevede (`JitCompiler`) in jo od tedaj naprej kliče neposredno.
+ * Funkcije, ki jih ni mogoče prevesti, se še naprej interpretirajo.
+ */
+
+package compiler.interpret.jit;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import compiler.frm.Frame;
+import compiler.gen.Memory;
+import compiler.interpret.Interpreter;
+import compiler.interpret.StandardLibrary;
+import compiler.ir.chunk.Chunk.CodeChunk;
+import compiler.ir.chunk.Chunk.LinkedCodeChunk;
+
+public class TieredInterpreter extends Interpreter implements JitRuntime {
+    /**
+     * Funkcije standardne knjižnice, indeksirane z indeksom iz prevedene kode.
+     */
+    private static final StandardLibrary.Function[] nativeFunctions = StandardLibrary.Function.values();
+
+    /**
+     * Število klicev, po katerem se funkcija prevede.
+     */
+    private final int threshold;
+
+    /**
+     * Prevajalnik v kodo JVM.
+     */
+    private final JitCompiler compiler;
+
+    /**
+     * Podatki o funkcijah, indeksirani z labelo.
+     */
+    private final Map<Frame.Label, Entry> entries = new HashMap<>();
+
+    /**
+     * Podatki o funkcijah, indeksirani z indeksom iz prevedene kode.
+     */
+    private final List<Entry> table = new ArrayList<>();
+
+    public TieredInterpreter(Memory memory, Optional<PrintStream> outputStream, int threshold) {
+        super(memory, outputStream);
+        this.threshold = threshold;
+        this.compiler = new JitCompiler(memory, label -> entry(label).index);
+    }
+
+    /**
+     * Število prevedenih funkcij.
+     */
+    public int compiledFunctions() {
+        var count = 0;
+        for (var entry : table) {
+            if (entry.compiled != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    // --------- klici ----------
+
+    @Override
+    protected Object resolve(Frame.Label label) {
+        var target = super.resolve(label);
+        if (target instanceof StandardLibrary.Function) {
+            return target;
+        }
+        return entry(label);
+    }
+
+    @Override
+    protected int call(Object target, int top) {
+        return call((Entry) target, top);
+    }
+
+    private int call(Entry entry, int top) {
+        if (entry.compiled == null && !entry.failed && ++entry.calls >= threshold) {
+            compile(entry);
+        }
+        if (entry.compiled != null) {
+            entry.compiled.execute(this, top);
+        } else {
+            internalInterpret(entry.chunk, top);
+        }
+        return leave(entry.chunk.frame);
+    }
+
+    private void compile(Entry entry) {
+        if (!(entry.chunk instanceof LinkedCodeChunk linked)) {
+            entry.failed = true;
+            return;
+        }
+        try {
+            entry.compiled = compiler.compile(linked);
+        } catch (IllegalStateException e) {
+            entry.failed = true;
+        }
+    }
+
+    private Entry entry(Frame.Label label) {
+        var entry = entries.get(label);
+        if (entry == null) {
+            entry = new Entry(table.size(), memory.ldCode(label));
+            entries.put(label, entry);
+            table.add(entry);
+        }
+        return entry;
+    }
+
+    // --------- storitve za prevedeno kodo ----------
+
+    @Override
+    public Memory memory() {
+        return memory;
+    }
+
+    @Override
+    public int enter(int size) {
+        return super.enter(size);
+    }
+
+    @Override
+    public int invoke(int function, int top) {
+        return call(table.get(function), top);
+    }
+
+    @Override
+    public int invokeNative(int function, int[] args) {
+        return standardLibrary.call(nativeFunctions[function], args);
+    }
+
+    @Override
+    public RuntimeException conditionError() {
+        return new RuntimeException("Condition is not logical value (not 1 or 0)");
+    }
+
+    /**
+     * Podatki o funkciji.
+     */
+    private static class Entry {
+        /**
+         * Indeks funkcije v tabeli funkcij.
+         */
+        final int index;
+
+        /**
+         * Povezana koda funkcije.
+         */
+        final CodeChunk chunk;
+
+        /**
+         * Število interpretiranih klicev.
+         */
+        int calls = 0;
+
+        /**
+         * Prevedena funkcija (`null`, dokler funkcija ni prevedena).
+         */
+        JitFunction compiled;
+
+        /**
+         * Ali prevajanje ni uspelo?
+         */
+        boolean failed = false;
+
+        Entry(int index, CodeChunk chunk) {
+            this.index = index;
+            this.chunk = chunk;
+        }
+    }
+}
@@ -0,0 +1,354 @@
+/**
+ * @ Author: tevz
+ * @ Description: Interpreter, ki beleži profil izvajanja programa.
+ *
+ * Šteje izvedbe posameznih stavkov povezane kode, izida pogojnih skokov
+ * in klice funkcij, ter meri vključni (skupaj s klicanimi funkcijami) in
+ * izključni čas izvajanja funkcij. Stavki se preslikajo v območja
+ * izvorne datoteke (`SourceMap`).
+ *
+ * Rezultat je ploščato poročilo (`report`) in strnjeni skladi klicev
+ * (`writeStacks`), iz katerih se izriše plamenski graf (flame graph).
+ */
+
+package compiler.interpret.profile;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import compiler.frm.Frame;
+import compiler.gen.Memory;
+import compiler.interpret.Interpreter;
+import compiler.interpret.StandardLibrary;
+import compiler.ir.SourceMap;
+import compiler.ir.chunk.Chunk.CodeChunk;
+import compiler.ir.chunk.Chunk.LinkedCodeChunk;
+import compiler.ir.code.expr.CallExpr;
+import compiler.ir.code.stmt.*;
+
+public class ProfilingInterpreter extends Interpreter {
+    /**
+     * Največje število vrstic v posameznem razdelku poročila.
+     */
+    private static final int reportLimit = 20;
+
+    /**
+     * Območja vmesne kode v izvorni datoteki.
+     */
+    private final SourceMap sourceMap;
+
+    /**
+     * Števci izvedb stavkov, po fragmentih kode.
+     */
+    private final Map<CodeChunk, ChunkProfile> chunks = new IdentityHashMap<>();
+
+    /**
+     * Profili funkcij, v vrstnem redu prvega klica.
+     */
+    private final Map<Frame.Label, FunctionProfile> functions = new LinkedHashMap<>();
+
+    /**
+     * Število klicev funkcij standardne knjižnice.
+     */
+    private final long[] nativeCalls = new long[StandardLibrary.Function.values().length];
+
+    /**
+     * Koren drevesa klicev.
+     */
+    private final CallNode root = new CallNode(null, null);
+
+    // --------- sklad aktivnih klicev ----------
+
+    private FunctionProfile[] stackFunctions = new FunctionProfile[64];
+    private CallNode[] stackNodes = new CallNode[64];
+    private long[] stackStarts = new long[64];
+    private long[] stackChildren = new long[64];
+    private int depth = 0;
+
+    public ProfilingInterpreter(Memory memory, Optional<PrintStream> outputStream, SourceMap sourceMap) {
+        super(memory, outputStream);
+        requireNonNull(sourceMap);
+        this.sourceMap = sourceMap;
+    }
+
+    // --------- izvajanje ----------
+
+    @Override
+    public void interpret(CodeChunk chunk) {
+        push(chunk.frame.label);
+        super.interpret(chunk);
+        pop();
+    }
+
+    @Override
+    protected long[] executions(LinkedCodeChunk chunk) {
+        return chunks.computeIfAbsent(chunk, ChunkProfile::new).executed;
+    }
+
+    @Override
+    protected void branched(LinkedCodeChunk chunk, int pc, boolean taken) {
+        var profile = chunks.get(chunk);
+        if (taken) {
+            profile.taken[pc]++;
+        } else {
+            profile.notTaken[pc]++;
+        }
+    }
+
+    @Override
+    protected Object target(CallExpr call) {
+        var target = super.target(call);
+        if (target instanceof StandardLibrary.Function function) {
+            nativeCalls[function.ordinal()]++;
+        }
+        return target;
+    }
+
+    @Override
+    protected int call(Object target, int top) {
+        push(((CodeChunk) target).frame.label);
+        var result = super.call(target, top);
+        pop();
+        return result;
+    }
+
+    private void push(Frame.Label label) {
+        if (depth == stackFunctions.length) {
+            var length = depth * 2;
+            stackFunctions = Arrays.copyOf(stackFunctions, length);
+            stackNodes = Arrays.copyOf(stackNodes, length);
+            stackStarts = Arrays.copyOf(stackStarts, length);
+            stackChildren = Arrays.copyOf(stackChildren, length);
+        }
+        var function = functions.computeIfAbsent(label, FunctionProfile::new);
+        function.calls++;
+        function.active++;
+        var parent = depth > 0 ? stackNodes[depth - 1] : root;
+        var node = parent.children.computeIfAbsent(label, l -> new CallNode(l, parent));
+        node.calls++;
+
+        stackFunctions[depth] = function;
+        stackNodes[depth] = node;
+        stackChildren[depth] = 0;
+        stackStarts[depth] = System.nanoTime();
+        depth++;
+    }
+
+    private void pop() {
+        var now = System.nanoTime();
+        depth--;
+        var elapsed = now - stackStarts[depth];
+        var self = elapsed - stackChildren[depth];
+        var function = stackFunctions[depth];
+        function.exclusive += self;
+        stackNodes[depth].self += self;
+        // pri rekurziji štejemo vključni čas le najbolj zunanjega klica
+        if (--function.active == 0) {
+            function.inclusive += elapsed;
+        }
+        if (depth > 0) {
+            stackChildren[depth - 1] += elapsed;
+        }
+        stackFunctions[depth] = null;
+        stackNodes[depth] = null;
+    }
+
+    // --------- poročilo ----------
+
+    /**
+     * Izpiše ploščato poročilo: funkcije, vrstice izvorne datoteke,
+     * najpogosteje izvedene stavke in pogojne skoke.
+     */
+    public void report(PrintStream out) {
+        out.println("=== Functions ===");
+        out.printf("%12s %14s %14s  %-20s %s%n", "calls", "inclusive ms", "exclusive ms", "function", "source");
+        var sorted = new ArrayList<>(functions.values());
+        sorted.sort(Comparator.comparingLong((FunctionProfile f) -> f.exclusive).reversed());
+        for (var function : sorted) {
+            out.printf("%12d %14.3f %14.3f  %-20s %s%n",
+                function.calls,
+                function.inclusive / 1e6,
+                function.exclusive / 1e6,
+                function.label.name,
+                sourceMap.get(function.label).map(Object::toString).orElse("?"));
+        }
+        for (var function : StandardLibrary.Function.values()) {
+            if (nativeCalls[function.ordinal()] > 0) {
+                out.printf("%12d %14s %14s  %-20s %s%n", nativeCalls[function.ordinal()], "-", "-", function.name, "<stdlib>");
+            }
+        }
+
+        List<StatementProfile> statements = new ArrayList<>();
+        Map<String, long[]> lines = new HashMap<>();
+        for (var profile : chunks.values()) {
+            var code = ((SeqStmt) profile.chunk.code).statements;
+            for (int pc = 0; pc < profile.executed.length; pc++) {
+                if (profile.executed[pc] == 0 || profile.chunk.statements[pc] instanceof LabelStmt) {
+                    continue;
+                }
+                var source = position(profile.chunk, code.get(pc));
+                statements.add(new StatementProfile(profile, pc, source));
+                lines.computeIfAbsent(source, s -> new long[1])[0] += profile.executed[pc];
+            }
+        }
+
+        out.println("=== Source ===");
+        out.printf("%12s  %s%n", "executed", "source");
+        lines.entrySet().stream()
+            .sorted(Comparator.comparingLong((Map.Entry<String, long[]> e) -> e.getValue()[0]).reversed())
+            .limit(reportLimit)
+            .forEach(e -> out.printf("%12d  %s%n", e.getValue()[0], e.getKey()));
+
+        out.println("=== Statements ===");
+        out.printf("%12s  %-20s %5s  %-24s %s%n", "executed", "function", "pc", "source", "statement");
+        statements.sort(Comparator.comparingLong((StatementProfile s) -> s.profile.executed[s.pc]).reversed());
+        for (var s : statements.subList(0, Math.min(reportLimit, statements.size()))) {
+            out.printf("%12d  %-20s %5d  %-24s %s%n",
+                s.profile.executed[s.pc],
+                s.profile.chunk.frame.label.name,
+                s.pc,
+                s.source,
+                describe(s.profile.chunk.statements[s.pc]));
+        }
+
+        out.println("=== Branches ===");
+        out.printf("%12s %12s  %-20s %5s  %s%n", "taken", "not taken", "function", "pc", "source");
+        for (var s : statements) {
+            if (s.profile.chunk.statements[s.pc] instanceof CJumpStmt) {
+                out.printf("%12d %12d  %-20s %5d  %s%n",
+                    s.profile.taken[s.pc],
+                    s.profile.notTaken[s.pc],
+                    s.profile.chunk.frame.label.name,
+                    s.pc,
+                    s.source);
+            }
+        }
+    }
+
+    /**
+     * Zapiše strnjene sklade klicev (`main;f;g <izključni čas v µs>`),
+     * kot jih sprejme `flamegraph.pl`.
+     */
+    public void writeStacks(PrintStream out) {
+        var pending = new ArrayDeque<CallNode>(root.children.values());
+        while (!pending.isEmpty()) {
+            var node = pending.pop();
+            var micros = node.self / 1000;
+            if (micros > 0) {
+                out.println(node.path() + " " + micros);
+            }
+            for (var child : node.children.values()) {
+                pending.push(child);
+            }
+        }
+    }
+
+    private String position(LinkedCodeChunk chunk, IRStmt stmt) {
+        return sourceMap.get(stmt)
+            .or(() -> sourceMap.get(chunk.frame.label))
+            .map(Object::toString)
+            .orElse("?");
+    }
+
+    private static String describe(IRStmt stmt) {
+        if (stmt instanceof MoveStmt move && move.src instanceof CallExpr call) {
+            return "CALL " + call.label.name;
+        } else if (stmt instanceof ExpStmt exp && exp.expr instanceof CallExpr call) {
+            return "CALL " + call.label.name;
+        } else if (stmt instanceof MoveStmt) {
+            return "MOVE";
+        } else if (stmt instanceof ExpStmt) {
+            return "EXP";
+        } else if (stmt instanceof CJumpStmt) {
+            return "CJUMP";
+        } else if (stmt instanceof JumpStmt) {
+            return "JUMP";
+        }
+        return stmt.getClass().getSimpleName();
+    }
+
+    // --------- profili ----------
+
+    /**
+     * Števci izvedb stavkov fragmenta kode.
+     */
+    private static class ChunkProfile {
+        final LinkedCodeChunk chunk;
+        final long[] executed;
+        final long[] taken;
+        final long[] notTaken;
+
+        ChunkProfile(CodeChunk chunk) {
+            this.chunk = (LinkedCodeChunk) chunk;
+            this.executed = new long[this.chunk.statements.length];
+            this.taken = new long[this.chunk.statements.length];
+            this.notTaken = new long[this.chunk.statements.length];
+        }
+    }
+
+    /**
+     * Profil funkcije (časi so v nanosekundah).
+     */
+    private static class FunctionProfile {
+        final Frame.Label label;
+        long calls = 0;
+        long inclusive = 0;
+        long exclusive = 0;
+
+        /**
+         * Število aktivnih klicev funkcije (globina rekurzije).
+         */
+        int active = 0;
+
+        FunctionProfile(Frame.Label label) {
+            this.label = label;
+        }
+    }
+
+    /**
+     * Vozlišče drevesa klicev; hrani izključni čas funkcije na tej poti.
+     */
+    private static class CallNode {
+        final Frame.Label label;
+        final CallNode parent;
+        final Map<Frame.Label, CallNode> children = new LinkedHashMap<>();
+        long calls = 0;
+        long self = 0;
+
+        CallNode(Frame.Label label, CallNode parent) {
+            this.label = label;
+            this.parent = parent;
+        }
+
+        String path() {
+            var names = new ArrayDeque<String>();
+            for (var node = this; node.label != null; node = node.parent) {
+                names.push(node.label.name);
+            }
+            return String.join(";", names);
+        }
+    }
+
+    private static class StatementProfile {
+        final ChunkProfile profile;
+        final int pc;
+        final String source;
+
+        StatementProfile(ChunkProfile profile, int pc, String source) {
+            this.profile = profile;
+            this.pc = pc;
+            this.source = source;
+        }
+    }
+}
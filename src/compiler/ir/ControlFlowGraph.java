@@ -0,0 +1,317 @@
+/**
+ * @ Author: tevz
+ * @ Description: Graf poteka programa nad linearizirano kodo funkcije.
+ *
+ * Osnovni blok se začne z (eno ali več zaporednimi) labelami oz. za
+ * skokom in konča s skokom (`JUMP`, `CJUMP`) ali pred naslednjo labelo;
+ * blok brez skoka na koncu nadaljuje v naslednjega. Bloki si sledijo v
+ * vrstnem redu kode, prvi blok je vstop v funkcijo, zadnji (če se ne
+ * konča s skokom) izstop iz nje.
+ *
+ * Dominatorje izračuna iterativni algoritem (Cooper, Harvey, Kennedy)
+ * po obratnem vrstnem redu obhoda v globino; nedosegljivi bloki
+ * dominatorja nimajo.
+ */
+
+package compiler.ir;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import compiler.frm.Frame;
+import compiler.ir.chunk.Chunk.CodeChunk;
+import compiler.ir.code.stmt.*;
+
+public final class ControlFlowGraph {
+    /**
+     * Stavki funkcije.
+     */
+    public final List<IRStmt> statements;
+
+    /**
+     * Osnovni bloki v vrstnem redu kode.
+     */
+    public final List<Block> blocks = new ArrayList<>();
+
+    /**
+     * Bloki po labelah, s katerimi se začnejo.
+     */
+    private final Map<Frame.Label, Block> labels = new HashMap<>();
+
+    /**
+     * Dosegljivi bloki v obratnem vrstnem redu obhoda v globino.
+     */
+    private final List<Block> reversePostorder = new ArrayList<>();
+
+    public ControlFlowGraph(List<IRStmt> statements) {
+        requireNonNull(statements);
+        this.statements = statements;
+        split();
+        connect();
+        order();
+        dominators();
+    }
+
+    public static ControlFlowGraph of(CodeChunk chunk) {
+        if (!(chunk.code instanceof SeqStmt seq)) {
+            throw new RuntimeException("Linearize code!");
+        }
+        return new ControlFlowGraph(seq.statements);
+    }
+
+    // --------- poizvedbe ----------
+
+    public Block entry() {
+        return blocks.get(0);
+    }
+
+    /**
+     * Blok, ki se začne z labelo `label`.
+     */
+    public Block block(Frame.Label label) {
+        var block = labels.get(label);
+        if (block == null) {
+            throw new RuntimeException("Unknown label " + label.toString() + "!");
+        }
+        return block;
+    }
+
+    /**
+     * Dosegljivi bloki v obratnem vrstnem redu obhoda v globino (vsak
+     * blok je za svojimi predhodniki, razen ob povratnih povezavah).
+     */
+    public List<Block> reversePostorder() {
+        return Collections.unmodifiableList(reversePostorder);
+    }
+
+    /**
+     * Ali blok `a` dominira blok `b` (vsaka pot od vstopa do `b` gre skozi `a`)?
+     */
+    public boolean dominates(Block a, Block b) {
+        if (!b.isReachable()) {
+            return false;
+        }
+        for (var block = b; ; block = block.dominator) {
+            if (block == a) {
+                return true;
+            }
+            if (block.dominator == block) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * Ali je povezava `from -> to` povratna (`to` dominira `from`)? Cilj
+     * povratne povezave je glava zanke.
+     */
+    public boolean isBackEdge(Block from, Block to) {
+        return dominates(to, from);
+    }
+
+    // --------- gradnja ----------
+
+    private void split() {
+        var start = 0;
+        for (int pc = 1; pc <= statements.size(); pc++) {
+            var end = pc == statements.size()
+                || statements.get(pc) instanceof LabelStmt && !onlyLabels(start, pc)
+                || statements.get(pc - 1) instanceof JumpStmt || statements.get(pc - 1) instanceof CJumpStmt;
+            if (end) {
+                var block = new Block(this, blocks.size(), start, pc);
+                for (int i = start; i < pc && statements.get(i) instanceof LabelStmt label; i++) {
+                    labels.put(label.label, block);
+                }
+                blocks.add(block);
+                start = pc;
+            }
+        }
+    }
+
+    private boolean onlyLabels(int from, int to) {
+        for (int pc = from; pc < to; pc++) {
+            if (!(statements.get(pc) instanceof LabelStmt)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void connect() {
+        for (var block : blocks) {
+            var last = block.last();
+            if (last instanceof JumpStmt jump) {
+                edge(block, block(jump.label));
+            } else if (last instanceof CJumpStmt cjump) {
+                edge(block, block(cjump.thenLabel));
+                edge(block, block(cjump.elseLabel));
+            } else if (block.index + 1 < blocks.size()) {
+                edge(block, blocks.get(block.index + 1));
+            }
+        }
+    }
+
+    private static void edge(Block from, Block to) {
+        from.successors.add(to);
+        to.predecessors.add(from);
+    }
+
+    /**
+     * Obratni vrstni red obhoda v globino (brez rekurzije, ker imajo
+     * lahko funkcije zelo veliko blokov).
+     */
+    private void order() {
+        if (blocks.isEmpty()) {
+            return;
+        }
+        var visited = new boolean[blocks.size()];
+        var next = new int[blocks.size()];
+        List<Block> postorder = new ArrayList<>(blocks.size());
+        List<Block> stack = new ArrayList<>();
+        stack.add(entry());
+        visited[0] = true;
+        while (!stack.isEmpty()) {
+            var block = stack.get(stack.size() - 1);
+            if (next[block.index] < block.successors.size()) {
+                var successor = block.successors.get(next[block.index]++);
+                if (!visited[successor.index]) {
+                    visited[successor.index] = true;
+                    stack.add(successor);
+                }
+            } else {
+                stack.remove(stack.size() - 1);
+                postorder.add(block);
+            }
+        }
+        for (int i = postorder.size() - 1; i >= 0; i--) {
+            var block = postorder.get(i);
+            block.order = reversePostorder.size();
+            reversePostorder.add(block);
+        }
+    }
+
+    private void dominators() {
+        if (blocks.isEmpty()) {
+            return;
+        }
+        entry().dominator = entry();
+        var changed = true;
+        while (changed) {
+            changed = false;
+            for (var block : reversePostorder) {
+                if (block == entry()) {
+                    continue;
+                }
+                Block dominator = null;
+                for (var predecessor : block.predecessors) {
+                    if (predecessor.dominator != null) {
+                        dominator = dominator == null ? predecessor : intersect(predecessor, dominator);
+                    }
+                }
+                if (dominator != block.dominator) {
+                    block.dominator = dominator;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    private static Block intersect(Block a, Block b) {
+        while (a != b) {
+            while (a.order > b.order) {
+                a = a.dominator;
+            }
+            while (b.order > a.order) {
+                b = b.dominator;
+            }
+        }
+        return a;
+    }
+
+    // --------------------------------------------------------------
+
+    /**
+     * Osnovni blok: stavki [start, end) funkcije.
+     */
+    public static class Block {
+        private final ControlFlowGraph graph;
+
+        /**
+         * Zaporedna številka bloka v kodi.
+         */
+        public final int index;
+
+        public final int start;
+        public final int end;
+
+        /**
+         * Nasledniki (pri `CJUMP` najprej cilj `then`) in predhodniki bloka.
+         */
+        public final List<Block> successors = new ArrayList<>(2);
+        public final List<Block> predecessors = new ArrayList<>(2);
+
+        /**
+         * Takojšnji dominator (vstop je dominator samemu sebi, nedosegljiv
+         * blok ga nima).
+         */
+        private Block dominator;
+
+        /**
+         * Številka v obratnem vrstnem redu obhoda v globino.
+         */
+        private int order = -1;
+
+        private Block(ControlFlowGraph graph, int index, int start, int end) {
+            this.graph = graph;
+            this.index = index;
+            this.start = start;
+            this.end = end;
+        }
+
+        public List<IRStmt> statements() {
+            return graph.statements.subList(start, end);
+        }
+
+        public IRStmt last() {
+            return graph.statements.get(end - 1);
+        }
+
+        /**
+         * Prva labela bloka (če jo blok ima).
+         */
+        public Optional<Frame.Label> label() {
+            if (graph.statements.get(start) instanceof LabelStmt label) {
+                return Optional.of(label.label);
+            }
+            return Optional.empty();
+        }
+
+        /**
+         * Ali blok nadaljuje v naslednji blok v kodi (se ne konča s skokom)?
+         */
+        public boolean fallsThrough() {
+            return !(last() instanceof JumpStmt || last() instanceof CJumpStmt);
+        }
+
+        /**
+         * Ali blok vsebuje le labele in skok?
+         */
+        public boolean isTrivial() {
+            return !fallsThrough() && graph.onlyLabels(start, end - 1);
+        }
+
+        public boolean isReachable() {
+            return order >= 0;
+        }
+
+        public Optional<Block> dominator() {
+            return Optional.ofNullable(dominator);
+        }
+    }
+}
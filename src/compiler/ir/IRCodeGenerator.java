@@ -9,6 +9,7 @@ import static common.RequireNonNull.requireNonNull;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 
 import common.Constants;
 import common.Report;
@@ -24,6 +25,7 @@ import compiler.ir.code.IRNode;
 import compiler.ir.code.expr.*;
 import compiler.ir.code.expr.BinopExpr.Operator;
 import compiler.ir.code.stmt.*;
+import compiler.parser.ast.Ast;
 import compiler.parser.ast.def.*;
 import compiler.parser.ast.def.FunDef.Parameter;
 import compiler.parser.ast.expr.*;
@@ -71,6 +73,11 @@ public class IRCodeGenerator implements Visitor {
 
     private static boolean ARRAYS_AS_REF = false;
 
+    /**
+     * Sem se zapišejo območja ustvarjenih vozlišč in funkcij (le ob `--profile`).
+     */
+    private final Optional<SourceMap> sourceMap;
+
     public IRCodeGenerator(
         NodeDescription<IRNode> imcCode,
         NodeDescription<Frame> frames, 
@@ -78,12 +85,36 @@ public class IRCodeGenerator implements Visitor {
         NodeDescription<Def> definitions,
         NodeDescription<Type> types
     ) {
-        requireNonNull(imcCode, frames, accesses, definitions, types);
+        this(imcCode, frames, accesses, definitions, types, Optional.empty());
+    }
+
+    public IRCodeGenerator(
+        NodeDescription<IRNode> imcCode,
+        NodeDescription<Frame> frames, 
+        NodeDescription<Access> accesses,
+        NodeDescription<Def> definitions,
+        NodeDescription<Type> types,
+        Optional<SourceMap> sourceMap
+    ) {
+        requireNonNull(imcCode, frames, accesses, definitions, types, sourceMap);
         this.types = types;
         this.imcCode = imcCode;
         this.frames = frames;
         this.accesses = accesses;
         this.definitions = definitions;
+        this.sourceMap = sourceMap;
+    }
+
+    /**
+     * Shrani vmesno kodo za vozlišče in si zapomni njegovo območje.
+     */
+    private void store(IRNode code, Ast node) {
+        imcCode.store(code, node);
+        locate(code, node);
+    }
+
+    private void locate(IRNode code, Ast node) {
+        sourceMap.ifPresent(map -> map.put(code, node.position));
     }
 
     private EseqExpr assign(IRExpr lvalue, IRExpr rvalue) {
@@ -107,10 +138,10 @@ public class IRCodeGenerator implements Visitor {
 
         if (binary.operator.ordinal() <= Binary.Operator.GEQ.ordinal()) {
             BinopExpr.Operator op = BinopExpr.Operator.values()[binary.operator.ordinal()];
-            imcCode.store(new BinopExpr(imcLeft, imcRight, op), binary);
+            store(new BinopExpr(imcLeft, imcRight, op), binary);
         } else if (binary.operator == Binary.Operator.ASSIGN) {
             EseqExpr eseq = assign(imcLeft, imcRight);
-            imcCode.store(eseq, binary);
+            store(eseq, binary);
         } else if (binary.operator == Binary.Operator.ARR) { // test Arr[123]
             Type.Array t = (Type.Array) types.valueFor(binary.left).get().asArray().get();
             if (imcRight instanceof ConstantExpr) {
@@ -122,9 +153,9 @@ public class IRCodeGenerator implements Visitor {
                 IRExpr indexAddr = new BinopExpr(imcLeft, offset, Operator.ADD);
                 // dont use MEM if subscript value is array type
                 if (t.type.isArray())
-                    imcCode.store(indexAddr, binary);
+                    store(indexAddr, binary);
                 else
-                    imcCode.store(new MemExpr(indexAddr), binary);
+                    store(new MemExpr(indexAddr), binary);
             } else {
                 Report.error("ARRAYS_AS_REF set to true!");
                 // IRExpr address;
@@ -135,7 +166,7 @@ public class IRCodeGenerator implements Visitor {
                 // }
                 // IRExpr offset = new BinopExpr(imcRight, new ConstantExpr(Constants.WordSize), Operator.MUL);
                 // IRExpr indexAddr = new BinopExpr(address, offset, Operator.ADD);
-                // imcCode.store(new MemExpr(indexAddr), binary);
+                // store(new MemExpr(indexAddr), binary);
             }
         } else Report.error(binary.position, "IR: Binary: operator conversion broken");
     }
@@ -164,7 +195,7 @@ public class IRCodeGenerator implements Visitor {
         else {
             lastExpr = (IRExpr) lastInBlock;
         }
-        imcCode.store(new EseqExpr(new SeqStmt(stmts), lastExpr), block);
+        store(new EseqExpr(new SeqStmt(stmts), lastExpr), block);
     }
 
 
@@ -201,7 +232,7 @@ public class IRCodeGenerator implements Visitor {
             rez = new MemExpr(offset);              // ce je parameter, tudi array rabi MEM, ker se poda naslov, ne vrednost
         } else Report.error(name.position, "IMC: unknown access!");
             
-        imcCode.store(rez, name);
+        store(rez, name);
     }
 
     @Override
@@ -222,7 +253,7 @@ public class IRCodeGenerator implements Visitor {
                 rez = new NameExpr(label);
                 break;
         }
-        imcCode.store(rez, literal);
+        store(rez, literal);
     }
 
     @Override
@@ -230,12 +261,12 @@ public class IRCodeGenerator implements Visitor {
         unary.expr.accept(this);
         if (unary.operator == Unary.Operator.SUB) {
             var expr = new BinopExpr(new ConstantExpr(0), (IRExpr) imcCode.valueFor(unary.expr).get(), BinopExpr.Operator.SUB);
-            imcCode.store(expr, unary);
+            store(expr, unary);
         } else if (unary.operator == Unary.Operator.NOT) {
             var expr = new BinopExpr(new ConstantExpr(1), (IRExpr) imcCode.valueFor(unary.expr).get(), Operator.SUB);
-            imcCode.store(expr, unary);
+            store(expr, unary);
         } else {
-            imcCode.store((IRExpr) imcCode.valueFor(unary.expr).get(), unary);
+            store((IRExpr) imcCode.valueFor(unary.expr).get(), unary);
         }
     }
 
@@ -254,7 +285,9 @@ public class IRCodeGenerator implements Visitor {
             ifThenElse.elseExpression.get().accept(this);
             var elseExpr = (IRExpr) imcCode.valueFor( ifThenElse.elseExpression.get()).get();
             Label elseLabel = Label.nextAnonymous();
-            statements.add(new CJumpStmt(condition, thenLabel, elseLabel));
+            var cjump = new CJumpStmt(condition, thenLabel, elseLabel);
+            locate(cjump, ifThenElse.condition);
+            statements.add(cjump);
             statements.add(new LabelStmt(thenLabel));
             statements.add(new ExpStmt(thenExpr));
             statements.add(new JumpStmt(endLabel));
@@ -263,12 +296,14 @@ public class IRCodeGenerator implements Visitor {
             statements.add(new LabelStmt(endLabel));
         }
         else {
-            statements.add(new CJumpStmt(condition, thenLabel, endLabel));
+            var cjump = new CJumpStmt(condition, thenLabel, endLabel);
+            locate(cjump, ifThenElse.condition);
+            statements.add(cjump);
             statements.add(new LabelStmt(thenLabel));
             statements.add(new ExpStmt(thenExpr));
             statements.add(new LabelStmt(endLabel));
         }
-        imcCode.store(new SeqStmt(statements), ifThenElse);
+        store(new SeqStmt(statements), ifThenElse);
     }
 
     @Override
@@ -296,14 +331,16 @@ public class IRCodeGenerator implements Visitor {
 
         statements.add(assign(counterExpr, lowExpr).stmt);
         statements.add(new LabelStmt(startlabel));
-        statements.add(new CJumpStmt(condition, continueLabel, endLabel));
+        var cjump = new CJumpStmt(condition, continueLabel, endLabel);
+        locate(cjump, forLoop);
+        statements.add(cjump);
         statements.add(new LabelStmt(continueLabel));
         statements.add(bodyStmt);
         statements.add(increment);
         statements.add(new JumpStmt(startlabel));
         statements.add(new LabelStmt(endLabel));
 
-        imcCode.store(new SeqStmt(statements), forLoop);
+        store(new SeqStmt(statements), forLoop);
     }
 
     @Override
@@ -322,13 +359,15 @@ public class IRCodeGenerator implements Visitor {
         Label endLabel = Label.nextAnonymous();
 
         statements.add(new LabelStmt(startLabel));
-        statements.add(new CJumpStmt(condition, continueLabel, endLabel));
+        var cjump = new CJumpStmt(condition, continueLabel, endLabel);
+        locate(cjump, whileLoop.condition);
+        statements.add(cjump);
         statements.add(new LabelStmt(continueLabel));
         statements.add(bodyStmt);
         statements.add(new JumpStmt(startLabel));
         statements.add(new LabelStmt(endLabel));
 
-        imcCode.store(new SeqStmt(statements), whileLoop);
+        store(new SeqStmt(statements), whileLoop);
     }
 
     @Override
@@ -338,9 +377,9 @@ public class IRCodeGenerator implements Visitor {
 
         var expTemp = imcCode.valueFor(where.expr).get();
         if (expTemp instanceof IRExpr)
-            imcCode.store((IRExpr) expTemp, where);
+            store((IRExpr) expTemp, where);
         else
-            imcCode.store(new EseqExpr((IRStmt) expTemp, new ConstantExpr(-1)), where);
+            store(new EseqExpr((IRStmt) expTemp, new ConstantExpr(-1)), where);
     }
 
     @Override
@@ -354,7 +393,7 @@ public class IRCodeGenerator implements Visitor {
         var def = definitions.valueFor(call).get();
         if (frames.valueFor(def).isEmpty()) {  // std functions
             argv.add(0, new ConstantExpr(-1));
-            imcCode.store(new CallExpr(Label.named(call.name), argv), call);
+            store(new CallExpr(Label.named(call.name), argv), call);
             return;
         }
         var frm = frames.valueFor(def).get();
@@ -379,7 +418,7 @@ public class IRCodeGenerator implements Visitor {
         argv.add(0, staticLink);
         CallExpr callExpr = new CallExpr(frm.label, argv);
         EseqExpr eseq = new EseqExpr(eseqStmt, callExpr);
-        imcCode.store(eseq, call);
+        store(eseq, call);
     }
 
     @Override
@@ -392,8 +431,10 @@ public class IRCodeGenerator implements Visitor {
         MemExpr rv = new MemExpr(NameExpr.FP()); // rezultat f na mesto 1. argumenta (static link)
         IRStmt funStmt = new MoveStmt(rv, bodyExp);
         // dodaj funkcijo v CodeChunk
-        imcCode.store(funStmt , funDef);
-        chunks.add(new CodeChunk(frames.valueFor(funDef).get(), funStmt));
+        store(funStmt , funDef);
+        var frame = frames.valueFor(funDef).get();
+        sourceMap.ifPresent(map -> map.put(frame.label, funDef.position));
+        chunks.add(new CodeChunk(frame, funStmt));
 
         sl = prevSL;
     }
@@ -0,0 +1,62 @@
+/**
+ * @ Author: tevz
+ * @ Description: Štetje vozlišč vmesne kode.
+ */
+
+package compiler.ir;
+
+import java.util.List;
+
+import compiler.ir.chunk.Chunk;
+import compiler.ir.code.IRNode;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+
+public class IRNodeCounter {
+    private IRNodeCounter() {}
+
+    /**
+     * Vrne število vozlišč v kodi vseh fragmentov kode.
+     */
+    public static int count(List<? extends Chunk> chunks) {
+        var count = 0;
+        for (var chunk : chunks) {
+            if (chunk instanceof Chunk.CodeChunk code) {
+                count += count(code.code);
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Vrne število vozlišč drevesa vmesne kode.
+     */
+    public static int count(IRNode node) {
+        if (node instanceof BinopExpr binop) {
+            return 1 + count(binop.lhs) + count(binop.rhs);
+        } else if (node instanceof CallExpr call) {
+            var count = 1;
+            for (var arg : call.args) {
+                count += count(arg);
+            }
+            return count;
+        } else if (node instanceof EseqExpr eseq) {
+            return 1 + count(eseq.stmt) + count(eseq.expr);
+        } else if (node instanceof MemExpr mem) {
+            return 1 + count(mem.expr);
+        } else if (node instanceof CJumpStmt cjump) {
+            return 1 + count(cjump.condition);
+        } else if (node instanceof ExpStmt exp) {
+            return 1 + count(exp.expr);
+        } else if (node instanceof MoveStmt move) {
+            return 1 + count(move.dst) + count(move.src);
+        } else if (node instanceof SeqStmt seq) {
+            var count = 1;
+            for (var stmt : seq.statements) {
+                count += count(stmt);
+            }
+            return count;
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,88 @@
+/**
+ * @ Author: tevz
+ * @ Description: Preslikava iz vozlišč vmesne kode v območja izvorne datoteke.
+ *
+ * Vozlišča se primerjajo po identiteti. Vozlišča, ki nastanejo pri
+ * linearizaciji, podedujejo območje najbližjega vozlišča, iz katerega
+ * so nastala (`inherit`).
+ */
+
+package compiler.ir;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import compiler.frm.Frame;
+import compiler.ir.code.IRNode;
+import compiler.ir.code.stmt.IRStmt;
+import compiler.lexer.Position;
+
+public class SourceMap {
+    /**
+     * Območja vozlišč vmesne kode.
+     */
+    private final Map<IRNode, Position> positions = new IdentityHashMap<>();
+
+    /**
+     * Območja definicij funkcij.
+     */
+    private final Map<Frame.Label, Position> functions = new HashMap<>();
+
+    /**
+     * Shrani območje vozlišča; če vozlišče območje že ima, ga ohrani
+     * (ožje območje, ki je bilo shranjeno prej, ima prednost).
+     */
+    public void put(IRNode node, Position position) {
+        requireNonNull(node, position);
+        positions.putIfAbsent(node, position);
+    }
+
+    /**
+     * Shrani območje definicije funkcije.
+     */
+    public void put(Frame.Label function, Position position) {
+        requireNonNull(function, position);
+        functions.put(function, position);
+    }
+
+    public Optional<Position> get(IRNode node) {
+        return Optional.ofNullable(positions.get(node));
+    }
+
+    public Optional<Position> get(Frame.Label function) {
+        return Optional.ofNullable(functions.get(function));
+    }
+
+    /**
+     * Vozlišču `node`, ki nadomesti vozlišče `origin` (npr. pri optimizaciji),
+     * priredi območje nadomeščenega vozlišča.
+     *
+     * @return vozlišče `node`.
+     */
+    public <T extends IRNode> T copy(IRNode origin, T node) {
+        var position = positions.get(origin);
+        if (position != null) {
+            positions.putIfAbsent(node, position);
+        }
+        return node;
+    }
+
+    /**
+     * Stavkom brez območja, ki so nastali iz vozlišča `origin`, priredi
+     * območje tega vozlišča.
+     */
+    public void inherit(IRNode origin, List<IRStmt> statements) {
+        var position = positions.get(origin);
+        if (position == null) {
+            return;
+        }
+        for (var stmt : statements) {
+            positions.putIfAbsent(stmt, position);
+        }
+    }
+}
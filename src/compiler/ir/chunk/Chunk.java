@@ -7,6 +7,8 @@ package compiler.ir.chunk;
 
 import static common.RequireNonNull.requireNonNull;
 
+import java.util.Map;
+
 import compiler.frm.Access;
 import compiler.frm.Frame;
 import compiler.ir.code.stmt.IRStmt;
@@ -63,4 +65,58 @@ public abstract class Chunk {
             return frame.toString();
         }
     }
+
+    /**
+     * Povezan fragment kode.
+     *
+     * Stavki linearizirane kode so shranjeni v tabeli, cilji
+     * skokov pa so razrešeni v indekse stavkov (pc), tako da
+     * skok ne zahteva iskanja labele.
+     */
+    public static class LinkedCodeChunk extends CodeChunk {
+        /**
+         * Stavki linearizirane kode.
+         */
+        public final IRStmt[] statements;
+
+        /**
+         * Cilj skoka `JumpStmt` oz. cilj skoka `CJumpStmt`, če je pogoj
+         * izpolnjen (-1 za ostale stavke).
+         */
+        public final int[] thenTargets;
+
+        /**
+         * Cilj skoka `CJumpStmt`, če pogoj ni izpolnjen (-1 za ostale stavke).
+         */
+        public final int[] elseTargets;
+
+        /**
+         * Preslikava iz label v indekse stavkov.
+         */
+        public final Map<Frame.Label, Integer> labels;
+
+        /**
+         * Število začasnih spremenljivk; začasne spremenljivke v stavkih
+         * so preštevilčene v indekse od 0 do `temps - 1`.
+         */
+        public final int temps;
+
+        public LinkedCodeChunk(
+            Frame frame,
+            IRStmt code,
+            IRStmt[] statements,
+            int[] thenTargets,
+            int[] elseTargets,
+            Map<Frame.Label, Integer> labels,
+            int temps
+        ) {
+            super(frame, code);
+            requireNonNull(statements, thenTargets, elseTargets, labels);
+            this.statements = statements;
+            this.thenTargets = thenTargets;
+            this.elseTargets = elseTargets;
+            this.labels = labels;
+            this.temps = temps;
+        }
+    }
 }
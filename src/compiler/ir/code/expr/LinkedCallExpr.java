@@ -0,0 +1,30 @@
+/**
+ * @ Author: tevz
+ * @ Description: Klic funkcije v povezani kodi.
+ */
+
+package compiler.ir.code.expr;
+
+import java.util.List;
+
+import compiler.frm.Frame.Label;
+
+public class LinkedCallExpr extends CallExpr {
+    /**
+     * Izvajalni stroj, ki je razrešil cilj klica.
+     */
+    public Object owner;
+
+    /**
+     * Cilj klica, kot ga je razrešil izvajalni stroj `owner`
+     * (npr. funkcija standardne knjižnice ali fragment kode).
+     *
+     * Cilj se razreši ob prvem izvajanju klica; nadaljnji klici
+     * istega stroja ga uporabijo brez iskanja po labeli.
+     */
+    public Object target;
+
+    public LinkedCallExpr(Label label, List<IRExpr> args) {
+        super(label, args);
+    }
+}
@@ -0,0 +1,187 @@
+/**
+ * @ Author: tevz
+ * @ Description: Razvrščanje osnovnih blokov linearizirane kode.
+ *
+ * Bloke poveže v verige (sledi): za blokom je, če je le mogoče, njegov
+ * naslednik, zato skok na koncu bloka ni več potreben. Pri pogojnem skoku
+ * sledi naslednik, ki ostane v globlji zanki (zanke določijo povratne
+ * povezave v grafu dominatorjev), sicer cilj `then`; tako ostane pogosta
+ * pot v kodi strnjena, skoki pa vodijo na redkeje izvedene bloke.
+ *
+ * Vstopni blok ostane prvi, blok, ki se ne konča s skokom in je zadnji
+ * (izstop iz funkcije), pa zadnji. Skok na blok, ki mu sledi, se odstrani;
+ * blok, ki mu njegov naslednik ne sledi več, dobi skok nanj.
+ */
+
+package compiler.ir.opt;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import compiler.frm.Frame;
+import compiler.ir.ControlFlowGraph;
+import compiler.ir.ControlFlowGraph.Block;
+import compiler.ir.SourceMap;
+import compiler.ir.chunk.Chunk.CodeChunk;
+import compiler.ir.code.stmt.*;
+
+public class BlockLayout extends IRPass {
+    public BlockLayout() {
+        this(Optional.empty());
+    }
+
+    public BlockLayout(Optional<SourceMap> sourceMap) {
+        super(sourceMap);
+    }
+
+    /**
+     * Vrne linearizirane fragmente kode s prerazporejenimi bloki.
+     */
+    public List<CodeChunk> apply(List<CodeChunk> chunks) {
+        List<CodeChunk> result = new ArrayList<>(chunks.size());
+        for (var chunk : chunks) {
+            result.add(apply(chunk));
+        }
+        return result;
+    }
+
+    public CodeChunk apply(CodeChunk chunk) {
+        var graph = ControlFlowGraph.of(chunk);
+        var order = order(graph);
+        var result = emit(graph, order);
+        if (result == null) {
+            return chunk;
+        }
+        return new CodeChunk(chunk.frame, located(chunk.code, new SeqStmt(result)));
+    }
+
+    // --------- razvrščanje ----------
+
+    /**
+     * Vrne bloke v novem vrstnem redu.
+     */
+    private static List<Block> order(ControlFlowGraph graph) {
+        var blocks = graph.blocks;
+        var last = blocks.get(blocks.size() - 1);
+        var exit = last.fallsThrough() ? last : null;
+        var depths = depths(graph);
+        var placed = new boolean[blocks.size()];
+        List<Block> order = new ArrayList<>(blocks.size());
+        for (var block : blocks) {
+            for (var b = block; b != null && !placed[b.index] && b != exit; b = next(b, placed, exit, depths)) {
+                placed[b.index] = true;
+                order.add(b);
+            }
+        }
+        if (exit != null) {
+            order.add(exit);
+        }
+        return order;
+    }
+
+    /**
+     * Vrne naslednika, ki naj bloku sledi, oz. `null`, če so vsi že razporejeni.
+     */
+    private static Block next(Block block, boolean[] placed, Block exit, int[] depths) {
+        Block next = null;
+        for (var successor : block.successors) {
+            if (placed[successor.index] || successor == exit) {
+                continue;
+            }
+            if (next == null || depths[successor.index] > depths[next.index]) {
+                next = successor;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Vrne globine gnezdenja zank blokov. Zanko določa povratna povezava
+     * `n -> h` (`h` dominira `n`); telo zanke so bloki, iz katerih je
+     * `n` dosegljiv mimo glave `h`.
+     */
+    private static int[] depths(ControlFlowGraph graph) {
+        var depths = new int[graph.blocks.size()];
+        Map<Block, boolean[]> loops = new HashMap<>();
+        for (var block : graph.blocks) {
+            for (var successor : block.successors) {
+                if (!graph.isBackEdge(block, successor)) {
+                    continue;
+                }
+                var body = loops.computeIfAbsent(successor, h -> new boolean[depths.length]);
+                body[successor.index] = true;
+                var work = new ArrayDeque<Block>();
+                work.push(block);
+                while (!work.isEmpty()) {
+                    var b = work.pop();
+                    if (!body[b.index]) {
+                        body[b.index] = true;
+                        b.predecessors.forEach(work::push);
+                    }
+                }
+            }
+        }
+        for (var body : loops.values()) {
+            for (int i = 0; i < depths.length; i++) {
+                if (body[i]) {
+                    depths[i]++;
+                }
+            }
+        }
+        return depths;
+    }
+
+    // --------- prepis ----------
+
+    /**
+     * Vrne stavke blokov v vrstnem redu `order` oz. `null`, če se koda ne spremeni.
+     */
+    private List<IRStmt> emit(ControlFlowGraph graph, List<Block> order) {
+        var unchanged = true;
+        for (int i = 0; i < order.size(); i++) {
+            unchanged &= order.get(i).index == i;
+        }
+        if (unchanged) {
+            return null;
+        }
+        // blok brez labele, ki mu predhodnik ne sledi več, potrebuje labelo
+        Map<Block, Frame.Label> labels = new HashMap<>();
+        for (int i = 0; i < order.size(); i++) {
+            var block = order.get(i);
+            var following = i + 1 < order.size() ? order.get(i + 1) : null;
+            if (block.fallsThrough() && !block.successors.isEmpty()) {
+                var successor = block.successors.get(0);
+                if (successor != following && successor.label().isEmpty()) {
+                    labels.computeIfAbsent(successor, b -> Frame.Label.nextAnonymous());
+                }
+            }
+        }
+        List<IRStmt> result = new ArrayList<>(graph.statements.size());
+        for (int i = 0; i < order.size(); i++) {
+            var block = order.get(i);
+            var following = i + 1 < order.size() ? order.get(i + 1) : null;
+            var label = labels.get(block);
+            if (label != null) {
+                result.add(located(graph.statements.get(block.start), new LabelStmt(label)));
+            }
+            var statements = block.statements();
+            var last = block.last();
+            if (last instanceof JumpStmt jump && following != null && graph.block(jump.label) == following) {
+                statements = statements.subList(0, statements.size() - 1);
+            }
+            result.addAll(statements);
+            if (block.fallsThrough() && !block.successors.isEmpty()) {
+                var successor = block.successors.get(0);
+                if (successor != following) {
+                    var target = labels.getOrDefault(successor, successor.label().orElse(null));
+                    result.add(located(last, new JumpStmt(target)));
+                }
+            }
+        }
+        return result;
+    }
+}
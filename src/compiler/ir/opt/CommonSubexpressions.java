@@ -0,0 +1,543 @@
+/**
+ * @ Author: tevz
+ * @ Description: Odprava skupnih podizrazov v linearizirani kodi.
+ *
+ * Dostop do spremenljivke zunanje funkcije se prevede v verigo statičnih
+ * povezav (npr. `MEM(MEM(FP)) + -8`), ki se sicer izračuna ob vsaki uporabi.
+ * Analiza razpoložljivih izrazov po osnovnih blokih določi, kje je vrednost
+ * čistega izraza (`BINOP`, `MEM`) že izračunana in od takrat ni mogla
+ * biti spremenjena; izraz se takrat izračuna le enkrat v začasno
+ * spremenljivko, ki jo nato uporabijo vse ponovitve.
+ *
+ * Razpoložljivost izraza prekine:
+ * - prirejanje začasni spremenljivki, ki jo izraz bere,
+ * - shranjevanje v pomnilnik, ki se lahko prekriva z branjem v izrazu,
+ * - klic funkcije, ki lahko spremeni vse razen statičnih povezav.
+ *
+ * Naslov oblike `baza + odmik` je znan, če je baza `FP`, `SP` (preračunan
+ * v `FP - velikost klicnega zapisa`), veriga statičnih povezav ali globalna
+ * labela; različni znani naslovi se ne prekrivajo. Statično povezavo
+ * (odmik 0 v klicnem zapisu) spremeni le shranjevanje na njen naslov
+ * (rezultat funkcije, odpravljen repni klic); zapisi v tabele in klicane
+ * funkcije je ne spreminjajo.
+ */
+
+package compiler.ir.opt;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import common.Constants;
+import compiler.frm.Frame;
+import compiler.ir.ControlFlowGraph;
+import compiler.ir.SourceMap;
+import compiler.ir.chunk.Chunk.CodeChunk;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.expr.BinopExpr.Operator;
+import compiler.ir.code.stmt.*;
+
+public class CommonSubexpressions extends IRPass {
+    // --------- stanje obdelave trenutne funkcije ----------
+
+    /**
+     * Klicni zapis funkcije.
+     */
+    private Frame frame;
+
+    /**
+     * Indeksi čistih izrazov (po zapisu izraza, npr. `ADD(#0,C-8)`).
+     */
+    private Map<String, Integer> ids;
+
+    /**
+     * Indeksi vozlišč, ki predstavljajo čiste izraze.
+     */
+    private Map<IRExpr, Integer> nodes;
+
+    /**
+     * Izrazi, ki berejo posamezno začasno spremenljivko.
+     */
+    private Map<Frame.Temp, BitSet> readers;
+
+    /**
+     * Izrazi, ki berejo pomnilnik na znanem naslovu.
+     */
+    private Map<Address, BitSet> loads;
+
+    /**
+     * Izrazi, ki berejo pomnilnik na neznanem naslovu.
+     */
+    private BitSet unknownLoads;
+
+    /**
+     * Izrazi, ki berejo pomnilnik izven statičnih povezav.
+     */
+    private BitSet clobbered;
+
+    /**
+     * Množice (`readers`, `loads`, ...), v katerih je posamezen izraz.
+     */
+    private List<List<BitSet>> kills;
+
+    /**
+     * Začasne spremenljivke ponovno uporabljenih izrazov.
+     */
+    private Map<Integer, Frame.Temp> temps;
+
+    /**
+     * Razpoložljivi izrazi na začetku in na koncu osnovnih blokov.
+     */
+    private BitSet[] in;
+    private BitSet[] out;
+
+    public CommonSubexpressions() {
+        this(Optional.empty());
+    }
+
+    public CommonSubexpressions(Optional<SourceMap> sourceMap) {
+        super(sourceMap);
+    }
+
+    /**
+     * Vrne linearizirane fragmente kode brez ponovnih izračunov.
+     */
+    public List<CodeChunk> apply(List<CodeChunk> chunks) {
+        List<CodeChunk> result = new ArrayList<>(chunks.size());
+        for (var chunk : chunks) {
+            result.add(apply(chunk));
+        }
+        return result;
+    }
+
+    public CodeChunk apply(CodeChunk chunk) {
+        if (!(chunk.code instanceof SeqStmt seq)) {
+            throw new RuntimeException("Linearize code!");
+        }
+        frame = chunk.frame;
+        ids = new HashMap<>();
+        nodes = new IdentityHashMap<>();
+        readers = new HashMap<>();
+        loads = new HashMap<>();
+        unknownLoads = new BitSet();
+        clobbered = new BitSet();
+        kills = new ArrayList<>();
+        temps = new HashMap<>();
+
+        var statements = seq.statements;
+        for (var stmt : statements) {
+            collect(stmt);
+        }
+        if (ids.isEmpty()) {
+            return chunk;
+        }
+        var graph = new ControlFlowGraph(statements);
+        available(graph);
+        var reused = reused(graph);
+        if (reused.isEmpty()) {
+            return chunk;
+        }
+        return new CodeChunk(chunk.frame, located(seq, new SeqStmt(rewrite(graph, reused))));
+    }
+
+    // --------- zbiranje izrazov ----------
+
+    private void collect(IRStmt stmt) {
+        if (stmt instanceof MoveStmt move) {
+            if (move.dst instanceof MemExpr mem) {
+                collect(mem.expr);
+            }
+            collect(move.src);
+        } else if (stmt instanceof ExpStmt exp) {
+            collect(exp.expr);
+        } else if (stmt instanceof CJumpStmt cjump) {
+            collect(cjump.condition);
+        }
+    }
+
+    /**
+     * Izrazu in njegovim čistim podizrazom določi indekse.
+     *
+     * @return zapis izraza oz. `null`, če izraz ni čist.
+     */
+    private String collect(IRExpr expr) {
+        if (expr instanceof ConstantExpr constant) {
+            return "C" + constant.constant;
+        } else if (expr instanceof TempExpr temp) {
+            return "T" + temp.temp.id;
+        } else if (expr instanceof NameExpr name) {
+            return "N" + name.label.name;
+        } else if (expr instanceof BinopExpr binop) {
+            var lhs = collect(binop.lhs);
+            var rhs = collect(binop.rhs);
+            if (lhs == null || rhs == null) {
+                return null;
+            }
+            return register(expr, binop.op + "(" + lhs + "," + rhs + ")");
+        } else if (expr instanceof MemExpr mem) {
+            var address = collect(mem.expr);
+            if (address == null) {
+                return null;
+            }
+            return register(expr, "M(" + address + ")");
+        } else if (expr instanceof CallExpr call) {
+            for (var arg : call.args) {
+                collect(arg);
+            }
+            return null;
+        } else if (expr instanceof EseqExpr) {
+            throw new RuntimeException("Linearize code!");
+        }
+        throw new IllegalArgumentException("Unknown expr type");
+    }
+
+    /**
+     * Zapis sestavljenega izraza vsebuje indekse podizrazov (`#i`), zato
+     * je kratek ne glede na globino izraza.
+     */
+    private String register(IRExpr expr, String key) {
+        var id = ids.get(key);
+        if (id == null) {
+            id = ids.size();
+            ids.put(key, id);
+            reads(expr, id);
+        }
+        nodes.put(expr, id);
+        return "#" + id;
+    }
+
+    /**
+     * Zabeleži začasne spremenljivke in pomnilnik, ki jih izraz bere:
+     * izraz podeduje branja podizrazov, ki so že zabeleženi.
+     */
+    private void reads(IRExpr expr, int id) {
+        List<BitSet> sets = new ArrayList<>();
+        if (expr instanceof BinopExpr binop) {
+            inherit(binop.lhs, sets);
+            inherit(binop.rhs, sets);
+        } else if (expr instanceof MemExpr mem) {
+            var address = address(mem.expr);
+            if (address == null) {
+                add(unknownLoads, sets);
+                add(clobbered, sets);
+            } else {
+                add(loads.computeIfAbsent(address, a -> new BitSet()), sets);
+                if (!address.staticLink) {
+                    add(clobbered, sets);
+                }
+            }
+            inherit(mem.expr, sets);
+        }
+        for (var set : sets) {
+            set.set(id);
+        }
+        kills.add(sets);
+    }
+
+    private void inherit(IRExpr expr, List<BitSet> sets) {
+        if (expr instanceof TempExpr temp) {
+            add(readers.computeIfAbsent(temp.temp, t -> new BitSet()), sets);
+        } else if (nodes.containsKey(expr)) {
+            for (var set : kills.get(nodes.get(expr))) {
+                add(set, sets);
+            }
+        }
+    }
+
+    private static void add(BitSet set, List<BitSet> sets) {
+        for (var s : sets) {
+            if (s == set) {
+                return;
+            }
+        }
+        sets.add(set);
+    }
+
+    // --------- analiza razpoložljivih izrazov ----------
+
+    /**
+     * Izračuna izraze, ki so razpoložljivi na začetku vsakega bloka.
+     */
+    private void available(ControlFlowGraph graph) {
+        var all = new BitSet();
+        all.set(0, ids.size());
+        in = new BitSet[graph.blocks.size()];
+        out = new BitSet[graph.blocks.size()];
+        // v nedosegljivih blokih ni razpoložljivih izrazov (tudi, če jih
+        // kasnejša obdelava naredi dosegljive) in ne vplivajo na naslednike
+        for (var block : graph.blocks) {
+            in[block.index] = new BitSet();
+            out[block.index] = block.isReachable() ? (BitSet) all.clone() : new BitSet();
+        }
+        var changed = true;
+        while (changed) {
+            changed = false;
+            for (var block : graph.reversePostorder()) {
+                // na začetku funkcije ni razpoložljivih izrazov
+                var available = new BitSet();
+                if (block != graph.entry()) {
+                    available.or(all);
+                    for (var predecessor : block.predecessors) {
+                        if (predecessor.isReachable()) {
+                            available.and(out[predecessor.index]);
+                        }
+                    }
+                }
+                in[block.index] = (BitSet) available.clone();
+                for (var stmt : block.statements()) {
+                    scan(stmt, available, new BitSet());
+                    kill(stmt, available);
+                }
+                if (!available.equals(out[block.index])) {
+                    out[block.index] = available;
+                    changed = true;
+                }
+            }
+        }
+    }
+
+    /**
+     * Vrne izraze, katerih vrednost je ob vsaj enem izračunu že razpoložljiva.
+     */
+    private BitSet reused(ControlFlowGraph graph) {
+        var reused = new BitSet();
+        for (var block : graph.blocks) {
+            var available = (BitSet) in[block.index].clone();
+            for (var stmt : block.statements()) {
+                scan(stmt, available, reused);
+                kill(stmt, available);
+            }
+        }
+        return reused;
+    }
+
+    /**
+     * Izraze, ki jih stavek izračuna, doda med razpoložljive, razpoložljive
+     * (ki jih stavku ni treba izračunati) pa med ponovno uporabljene.
+     */
+    private void scan(IRStmt stmt, BitSet available, BitSet reused) {
+        if (stmt instanceof MoveStmt move) {
+            if (move.dst instanceof MemExpr mem) {
+                scan(mem.expr, available, reused);
+            }
+            scan(move.src, available, reused);
+        } else if (stmt instanceof ExpStmt exp) {
+            scan(exp.expr, available, reused);
+        } else if (stmt instanceof CJumpStmt cjump) {
+            scan(cjump.condition, available, reused);
+        }
+    }
+
+    private void scan(IRExpr expr, BitSet available, BitSet reused) {
+        var id = nodes.get(expr);
+        if (id != null && available.get(id)) {
+            reused.set(id);
+            return;
+        }
+        if (expr instanceof BinopExpr binop) {
+            scan(binop.lhs, available, reused);
+            scan(binop.rhs, available, reused);
+        } else if (expr instanceof MemExpr mem) {
+            scan(mem.expr, available, reused);
+        } else if (expr instanceof CallExpr call) {
+            for (var arg : call.args) {
+                scan(arg, available, reused);
+            }
+        }
+        if (id != null) {
+            available.set(id);
+        }
+    }
+
+    /**
+     * Odstrani izraze, katerih vrednost stavek lahko spremeni.
+     */
+    private void kill(IRStmt stmt, BitSet available) {
+        if (stmt instanceof MoveStmt move) {
+            if (move.src instanceof CallExpr) {
+                available.andNot(clobbered);
+            }
+            if (move.dst instanceof TempExpr temp) {
+                var read = readers.get(temp.temp);
+                if (read != null) {
+                    available.andNot(read);
+                }
+            } else if (move.dst instanceof MemExpr mem) {
+                var address = address(mem.expr);
+                if (address == null) {
+                    available.andNot(clobbered);
+                } else {
+                    available.andNot(unknownLoads);
+                    var read = loads.get(address);
+                    if (read != null) {
+                        available.andNot(read);
+                    }
+                }
+            }
+        } else if (stmt instanceof ExpStmt exp && exp.expr instanceof CallExpr) {
+            available.andNot(clobbered);
+        }
+    }
+
+    // --------- prepis ----------
+
+    private List<IRStmt> rewrite(ControlFlowGraph graph, BitSet reused) {
+        List<IRStmt> result = new ArrayList<>(graph.statements.size());
+        for (var block : graph.blocks) {
+            var available = (BitSet) in[block.index].clone();
+            for (var stmt : block.statements()) {
+                result.add(rewrite(stmt, available, reused, result));
+                kill(stmt, available);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Prepiše stavek; izračune ponovno uporabljenih izrazov doda v `result`
+     * pred stavek.
+     */
+    private IRStmt rewrite(IRStmt stmt, BitSet available, BitSet reused, List<IRStmt> result) {
+        if (stmt instanceof MoveStmt move) {
+            var dst = move.dst;
+            if (dst instanceof MemExpr mem) {
+                var address = rewrite(mem.expr, stmt, available, reused, result);
+                dst = address == mem.expr ? dst : located(dst, new MemExpr(address));
+            }
+            var src = rewrite(move.src, stmt, available, reused, result);
+            return dst == move.dst && src == move.src ? stmt : located(stmt, new MoveStmt(dst, src));
+        } else if (stmt instanceof ExpStmt exp) {
+            var expr = rewrite(exp.expr, stmt, available, reused, result);
+            return expr == exp.expr ? stmt : located(stmt, new ExpStmt(expr));
+        } else if (stmt instanceof CJumpStmt cjump) {
+            var condition = rewrite(cjump.condition, stmt, available, reused, result);
+            return condition == cjump.condition ? stmt : located(stmt, new CJumpStmt(condition, cjump.thenLabel, cjump.elseLabel));
+        }
+        return stmt;
+    }
+
+    private IRExpr rewrite(IRExpr expr, IRStmt origin, BitSet available, BitSet reused, List<IRStmt> result) {
+        var id = nodes.get(expr);
+        if (id != null && available.get(id)) {
+            return located(expr, new TempExpr(temp(id)));
+        }
+        var rewritten = expr;
+        if (expr instanceof BinopExpr binop) {
+            var lhs = rewrite(binop.lhs, origin, available, reused, result);
+            var rhs = rewrite(binop.rhs, origin, available, reused, result);
+            if (lhs != binop.lhs || rhs != binop.rhs) {
+                rewritten = located(expr, new BinopExpr(lhs, rhs, binop.op));
+            }
+        } else if (expr instanceof MemExpr mem) {
+            var address = rewrite(mem.expr, origin, available, reused, result);
+            if (address != mem.expr) {
+                rewritten = located(expr, new MemExpr(address));
+            }
+        } else if (expr instanceof CallExpr call) {
+            List<IRExpr> args = new ArrayList<>(call.args.size());
+            var changed = false;
+            for (var arg : call.args) {
+                var a = rewrite(arg, origin, available, reused, result);
+                changed |= a != arg;
+                args.add(a);
+            }
+            if (changed) {
+                rewritten = located(expr, new CallExpr(call.label, args));
+            }
+        }
+        if (id == null) {
+            return rewritten;
+        }
+        available.set(id);
+        if (!reused.get(id)) {
+            return rewritten;
+        }
+        result.add(located(origin, new MoveStmt(new TempExpr(temp(id)), rewritten)));
+        return located(expr, new TempExpr(temp(id)));
+    }
+
+    /**
+     * Vrne začasno spremenljivko, ki hrani vrednost izraza.
+     */
+    private Frame.Temp temp(int id) {
+        return temps.computeIfAbsent(id, i -> Frame.Temp.next());
+    }
+
+    // --------- naslovi ----------
+
+    /**
+     * Vrne naslov v obliki `baza + odmik` oz. `null`, če baza ni znana.
+     */
+    private Address address(IRExpr expr) {
+        var base = expr;
+        var offset = 0;
+        while (base instanceof BinopExpr binop && binop.rhs instanceof ConstantExpr constant
+                && (binop.op == Operator.ADD || binop.op == Operator.SUB)) {
+            offset += binop.op == Operator.ADD ? constant.constant : -constant.constant;
+            base = binop.lhs;
+        }
+        if (base instanceof NameExpr name && name.label.name.equals(Constants.stackPointer)) {
+            return new Address(0, "", offset - frame.size());
+        }
+        var level = level(base);
+        if (level >= 0) {
+            return new Address(level, "", offset);
+        }
+        if (base instanceof NameExpr name && !name.label.name.equals(Constants.framePointer)) {
+            return new Address(-1, name.label.name, offset);
+        }
+        return null;
+    }
+
+    /**
+     * Vrne število statičnih povezav, ki jih izraz prehodi od `FP`
+     * (0 za `FP`, 1 za `MEM(FP)`, ...), oz. -1, če izraz ni take oblike.
+     */
+    private static int level(IRExpr expr) {
+        if (expr instanceof NameExpr name && name.label.name.equals(Constants.framePointer)) {
+            return 0;
+        } else if (expr instanceof MemExpr mem) {
+            var level = level(mem.expr);
+            return level < 0 ? -1 : level + 1;
+        }
+        return -1;
+    }
+
+    // --------------------------------------------------------------
+
+    /**
+     * Naslov v pomnilniku: odmik od klicnega zapisa na statičnem nivoju
+     * `level` (0 za `FP`, 1 za `MEM(FP)`, ...) ali od globalne labele.
+     */
+    private static class Address {
+        final int level;
+        final String label;
+        final int offset;
+
+        /**
+         * Ali je na naslovu statična povezava klicnega zapisa?
+         */
+        final boolean staticLink;
+
+        Address(int level, String label, int offset) {
+            this.level = level;
+            this.label = label;
+            this.offset = offset;
+            this.staticLink = level >= 0 && offset == 0;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof Address a && a.level == level && a.label.equals(label) && a.offset == offset;
+        }
+
+        @Override
+        public int hashCode() {
+            return (31 * level + label.hashCode()) * 31 + offset;
+        }
+    }
+}
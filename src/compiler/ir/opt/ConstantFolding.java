@@ -0,0 +1,254 @@
+/**
+ * @ Author: tevz
+ * @ Description: Zlaganje konstant in algebrajske poenostavitve vmesne kode.
+ *
+ * Drevesa vmesne kode obdela od listov proti korenu:
+ * - izračuna operacije nad konstantami (razen deljenja z 0, ki
+ *   ostane za čas izvajanja),
+ * - odstrani nevtralne elemente (`x + 0`, `x - 0`, `x * 1`, `x / 1`),
+ * - `x * 0` in `x % 1` nadomesti z 0, če je `x` brez stranskih učinkov,
+ * - odpravi dvojno negacijo (`0 - (0 - x)` in `1 - (1 - x)`),
+ * - združi konstantne odmike, npr. `(FP + c1) + c2` v `FP + (c1 + c2)`,
+ *   in konstantne faktorje, `(x * c1) * c2` v `x * (c1 * c2)`,
+ * - pogojni skok s konstantnim pogojem nadomesti z brezpogojnim.
+ *
+ * Operacije se izvedejo v 32-bitni aritmetiki, kot v interpreterju,
+ * zato so preoblikovanja natančna tudi ob prelivu.
+ */
+
+package compiler.ir.opt;
+
+import static compiler.ir.opt.IRExprs.isPure;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import compiler.ir.SourceMap;
+import compiler.ir.chunk.Chunk;
+import compiler.ir.chunk.Chunk.CodeChunk;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.expr.BinopExpr.Operator;
+import compiler.ir.code.stmt.*;
+
+public class ConstantFolding extends IRPass {
+    public ConstantFolding() {
+        this(Optional.empty());
+    }
+
+    public ConstantFolding(Optional<SourceMap> sourceMap) {
+        super(sourceMap);
+    }
+
+    /**
+     * Vrne fragmente s poenostavljeno kodo.
+     */
+    public List<Chunk> apply(List<Chunk> chunks) {
+        List<Chunk> result = new ArrayList<>(chunks.size());
+        for (var chunk : chunks) {
+            if (chunk instanceof CodeChunk code) {
+                result.add(apply(code));
+            } else {
+                result.add(chunk);
+            }
+        }
+        return result;
+    }
+
+    public CodeChunk apply(CodeChunk chunk) {
+        var code = fold(chunk.code);
+        return code == chunk.code ? chunk : new CodeChunk(chunk.frame, code);
+    }
+
+    // --------- stavki ----------
+
+    /**
+     * Vrne poenostavljen stavek; če se ni spremenil, vrne isto vozlišče.
+     */
+    private IRStmt fold(IRStmt stmt) {
+        if (stmt instanceof MoveStmt move) {
+            var dst = move.dst instanceof MemExpr mem ? foldMem(mem) : move.dst;
+            var src = fold(move.src);
+            return dst == move.dst && src == move.src ? stmt : located(stmt, new MoveStmt(dst, src));
+        } else if (stmt instanceof ExpStmt exp) {
+            var expr = fold(exp.expr);
+            return expr == exp.expr ? stmt : located(stmt, new ExpStmt(expr));
+        } else if (stmt instanceof CJumpStmt cjump) {
+            var condition = fold(cjump.condition);
+            if (condition instanceof ConstantExpr constant && (constant.constant == 0 || constant.constant == 1)) {
+                return located(stmt, new JumpStmt(constant.constant == 1 ? cjump.thenLabel : cjump.elseLabel));
+            }
+            return condition == cjump.condition ? stmt : located(stmt, new CJumpStmt(condition, cjump.thenLabel, cjump.elseLabel));
+        } else if (stmt instanceof SeqStmt seq) {
+            List<IRStmt> statements = new ArrayList<>(seq.statements.size());
+            var changed = false;
+            for (var s : seq.statements) {
+                var folded = fold(s);
+                changed |= folded != s;
+                statements.add(folded);
+            }
+            return changed ? located(stmt, new SeqStmt(statements)) : stmt;
+        }
+        return stmt;
+    }
+
+    // --------- izrazi ----------
+
+    /**
+     * Vrne poenostavljen izraz; če se ni spremenil, vrne isto vozlišče.
+     */
+    private IRExpr fold(IRExpr expr) {
+        if (expr instanceof BinopExpr binop) {
+            return foldBinop(binop);
+        } else if (expr instanceof MemExpr mem) {
+            return foldMem(mem);
+        } else if (expr instanceof EseqExpr eseq) {
+            var stmt = fold(eseq.stmt);
+            var value = fold(eseq.expr);
+            return stmt == eseq.stmt && value == eseq.expr ? expr : located(expr, new EseqExpr(stmt, value));
+        } else if (expr instanceof CallExpr call) {
+            List<IRExpr> args = new ArrayList<>(call.args.size());
+            var changed = false;
+            for (var arg : call.args) {
+                var folded = fold(arg);
+                changed |= folded != arg;
+                args.add(folded);
+            }
+            return changed ? located(expr, new CallExpr(call.label, args)) : expr;
+        }
+        return expr;
+    }
+
+    private IRExpr foldMem(MemExpr mem) {
+        var address = fold(mem.expr);
+        return address == mem.expr ? mem : located(mem, new MemExpr(address));
+    }
+
+    private IRExpr foldBinop(BinopExpr binop) {
+        var lhs = fold(binop.lhs);
+        var rhs = fold(binop.rhs);
+        var op = binop.op;
+
+        if (lhs instanceof ConstantExpr left && rhs instanceof ConstantExpr right) {
+            var value = evaluate(op, left.constant, right.constant);
+            if (value.isPresent()) {
+                return located(binop, new ConstantExpr(value.get()));
+            }
+        }
+        // konstanta naj bo desni operand komutativne operacije
+        if (lhs instanceof ConstantExpr && !(rhs instanceof ConstantExpr) && (op == Operator.ADD || op == Operator.MUL)) {
+            var swap = lhs;
+            lhs = rhs;
+            rhs = swap;
+        }
+        if (rhs instanceof ConstantExpr right) {
+            var c = right.constant;
+            switch (op) {
+                case ADD:
+                    return offset(binop, lhs, c);
+                case SUB:
+                    return offset(binop, lhs, -c);
+                case MUL:
+                    if (c == 1) {
+                        return lhs;
+                    }
+                    if (c == 0 && isPure(lhs)) {
+                        return located(binop, new ConstantExpr(0));
+                    }
+                    if (lhs instanceof BinopExpr inner && inner.op == Operator.MUL && inner.rhs instanceof ConstantExpr factor) {
+                        return located(binop, new BinopExpr(inner.lhs, located(binop, new ConstantExpr(factor.constant * c)), Operator.MUL));
+                    }
+                    break;
+                case DIV:
+                    if (c == 1) {
+                        return lhs;
+                    }
+                    break;
+                case MOD:
+                    if ((c == 1 || c == -1) && isPure(lhs)) {
+                        return located(binop, new ConstantExpr(0));
+                    }
+                    break;
+                case OR:
+                    if (c == 0) {
+                        return lhs;
+                    }
+                    break;
+                case AND:
+                    if (c == 0 && isPure(lhs)) {
+                        return located(binop, new ConstantExpr(0));
+                    }
+                    break;
+                default:
+                    break;
+            }
+        }
+        // dvojna negacija: 0 - (0 - x) oz. 1 - (1 - x)
+        if (op == Operator.SUB && lhs instanceof ConstantExpr outer
+                && rhs instanceof BinopExpr inner && inner.op == Operator.SUB
+                && inner.lhs instanceof ConstantExpr negation && negation.constant == outer.constant
+                && (outer.constant == 0 || outer.constant == 1)) {
+            return inner.rhs;
+        }
+        if (lhs == binop.lhs && rhs == binop.rhs) {
+            return binop;
+        }
+        return located(binop, new BinopExpr(lhs, rhs, op));
+    }
+
+    /**
+     * Vrne izraz `base + c`; če je `base` že oblike `x + k`, vrne `x + (k + c)`.
+     */
+    private IRExpr offset(BinopExpr origin, IRExpr base, int c) {
+        if (base instanceof BinopExpr inner && inner.rhs instanceof ConstantExpr k
+                && (inner.op == Operator.ADD || inner.op == Operator.SUB)) {
+            c += inner.op == Operator.ADD ? k.constant : -k.constant;
+            base = inner.lhs;
+        }
+        if (c == 0) {
+            return base;
+        }
+        // nespremenjen izraz ohranimo (tudi odštevanje konstante)
+        if (origin.lhs == base && origin.rhs instanceof ConstantExpr right
+                && (origin.op == Operator.ADD && right.constant == c || origin.op == Operator.SUB && right.constant == -c)) {
+            return origin;
+        }
+        return located(origin, new BinopExpr(base, located(origin, new ConstantExpr(c)), Operator.ADD));
+    }
+
+    /**
+     * Izračuna operacijo nad konstantama; deljenja z 0 ne izračuna.
+     */
+    private static Optional<Integer> evaluate(Operator op, int left, int right) {
+        switch (op) {
+            case ADD:
+                return Optional.of(left + right);
+            case SUB:
+                return Optional.of(left - right);
+            case MUL:
+                return Optional.of(left * right);
+            case DIV:
+                return right == 0 ? Optional.empty() : Optional.of(left / right);
+            case MOD:
+                return right == 0 ? Optional.empty() : Optional.of(left % right);
+            case AND:
+                return Optional.of(left & right);
+            case OR:
+                return Optional.of(left | right);
+            case EQ:
+                return Optional.of(left == right ? 1 : 0);
+            case NEQ:
+                return Optional.of(left != right ? 1 : 0);
+            case LT:
+                return Optional.of(left < right ? 1 : 0);
+            case GT:
+                return Optional.of(left > right ? 1 : 0);
+            case LEQ:
+                return Optional.of(left <= right ? 1 : 0);
+            case GEQ:
+                return Optional.of(left >= right ? 1 : 0);
+            default:
+                throw new IllegalArgumentException("Unknown operator " + op + "!");
+        }
+    }
+}
@@ -0,0 +1,361 @@
+/**
+ * @ Author: tevz
+ * @ Description: Širjenje kopij in združevanje začasnih spremenljivk
+ * v linearizirani kodi.
+ *
+ * Linearizacija vsak argument klica in vsak rezultat klica shrani v novo
+ * začasno spremenljivko, tudi če je vrednost že konstanta ali začasna
+ * spremenljivka. Obdelava do negibne točke ponavlja:
+ * - začasno spremenljivko z eno samo definicijo `t = konstanta` (oz.
+ *   `t = ime`) povsod nadomesti z njeno vrednostjo,
+ * - znotraj osnovnega bloka branja kopije `t = s` nadomesti z `s`,
+ *   dokler se `t` ali `s` ne spremeni,
+ * - začasno spremenljivko, ki je definirana in prebrana le enkrat v istem
+ *   bloku, odpravi: kopijo `u = t` združi z definicijo (`t = e; u = t`
+ *   postane `u = e`), čist izraz `e` pa vstavi na mesto branja, če se
+ *   vmes ne spremeni nič, kar `e` bere,
+ * - odstrani prirejanja začasnim spremenljivkam, ki jih nihče ne bere
+ *   (klic ostane kot `EXP`).
+ */
+
+package compiler.ir.opt;
+
+import static compiler.ir.opt.IRExprs.isPure;
+import static compiler.ir.opt.IRExprs.reads;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import compiler.frm.Frame;
+import compiler.ir.SourceMap;
+import compiler.ir.chunk.Chunk.CodeChunk;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+
+public class CopyPropagation extends IRPass {
+    public CopyPropagation() {
+        this(Optional.empty());
+    }
+
+    public CopyPropagation(Optional<SourceMap> sourceMap) {
+        super(sourceMap);
+    }
+
+    /**
+     * Vrne linearizirane fragmente kode brez odvečnih kopij.
+     */
+    public List<CodeChunk> apply(List<CodeChunk> chunks) {
+        List<CodeChunk> result = new ArrayList<>(chunks.size());
+        for (var chunk : chunks) {
+            result.add(apply(chunk));
+        }
+        return result;
+    }
+
+    public CodeChunk apply(CodeChunk chunk) {
+        if (!(chunk.code instanceof SeqStmt seq)) {
+            throw new RuntimeException("Linearize code!");
+        }
+        List<IRStmt> statements = new ArrayList<>(seq.statements);
+        var changed = false;
+        while (constants(statements) | copies(statements) | coalesce(statements) | unused(statements)) {
+            changed = true;
+        }
+        return changed ? new CodeChunk(chunk.frame, located(seq, new SeqStmt(statements))) : chunk;
+    }
+
+    // --------- koraki ----------
+
+    /**
+     * Začasne spremenljivke, ki jim je enkrat prirejena konstanta ali
+     * ime, nadomesti z vrednostjo.
+     */
+    private boolean constants(List<IRStmt> statements) {
+        var defs = definitions(statements);
+        Map<Frame.Temp, IRExpr> values = new HashMap<>();
+        for (var stmt : statements) {
+            if (stmt instanceof MoveStmt move && move.dst instanceof TempExpr temp
+                    && (move.src instanceof ConstantExpr || move.src instanceof NameExpr)
+                    && defs.get(temp.temp) == 1) {
+                values.put(temp.temp, move.src);
+            }
+        }
+        if (values.isEmpty()) {
+            return false;
+        }
+        List<IRStmt> result = new ArrayList<>(statements.size());
+        for (var stmt : statements) {
+            if (!(stmt instanceof MoveStmt move && move.dst instanceof TempExpr temp && values.containsKey(temp.temp))) {
+                result.add(substitute(stmt, values));
+            }
+        }
+        statements.clear();
+        statements.addAll(result);
+        return true;
+    }
+
+    /**
+     * Znotraj osnovnih blokov branja kopij nadomesti z izvirniki.
+     */
+    private boolean copies(List<IRStmt> statements) {
+        Map<Frame.Temp, IRExpr> copies = new HashMap<>();
+        var changed = false;
+        for (int pc = 0; pc < statements.size(); pc++) {
+            var stmt = statements.get(pc);
+            if (stmt instanceof LabelStmt) {
+                copies.clear();
+            }
+            if (!copies.isEmpty()) {
+                var rewritten = substitute(stmt, copies);
+                if (rewritten != stmt) {
+                    statements.set(pc, rewritten);
+                    stmt = rewritten;
+                    changed = true;
+                }
+            }
+            if (stmt instanceof MoveStmt move && move.dst instanceof TempExpr temp) {
+                copies.remove(temp.temp);
+                copies.values().removeIf(source -> ((TempExpr) source).temp.equals(temp.temp));
+                if (move.src instanceof TempExpr source && !source.temp.equals(temp.temp)) {
+                    copies.put(temp.temp, source);
+                }
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Odpravi začasne spremenljivke, ki so v istem bloku definirane in
+     * prebrane le enkrat.
+     */
+    private boolean coalesce(List<IRStmt> statements) {
+        var defs = definitions(statements);
+        var uses = uses(statements);
+        var changed = false;
+        for (int def = 0; def < statements.size(); def++) {
+            if (!(statements.get(def) instanceof MoveStmt move && move.dst instanceof TempExpr temp)
+                    || defs.get(temp.temp) != 1 || uses.getOrDefault(temp.temp, 0) != 1) {
+                continue;
+            }
+            var use = use(statements, def, temp.temp);
+            if (use < 0) {
+                continue;
+            }
+            if (statements.get(use) instanceof MoveStmt copy && copy.dst instanceof TempExpr target
+                    && copy.src instanceof TempExpr source && source.temp.equals(temp.temp)
+                    && !touches(statements, def, use, target.temp)) {
+                // t = e; ...; u = t  ->  u = e; ...
+                statements.set(def, located(move, new MoveStmt(target, move.src)));
+                statements.remove(use);
+                changed = true;
+            } else if (isPure(move.src) && unchanged(statements, def, use, move.src)) {
+                // t = e; ...; f(t)  ->  ...; f(e)
+                statements.set(use, substitute(statements.get(use), Map.of(temp.temp, move.src)));
+                statements.remove(def);
+                def--;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Odstrani prirejanja začasnim spremenljivkam, ki jih nihče ne bere.
+     */
+    private boolean unused(List<IRStmt> statements) {
+        var uses = uses(statements);
+        var changed = false;
+        for (int pc = 0; pc < statements.size(); pc++) {
+            if (!(statements.get(pc) instanceof MoveStmt move && move.dst instanceof TempExpr temp)) {
+                continue;
+            }
+            var self = move.src instanceof TempExpr source && source.temp.equals(temp.temp);
+            if (self || !uses.containsKey(temp.temp) && isPure(move.src)) {
+                statements.remove(pc--);
+                changed = true;
+            } else if (!uses.containsKey(temp.temp) && move.src instanceof CallExpr call) {
+                statements.set(pc, located(move, new ExpStmt(call)));
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    // --------- analiza ----------
+
+    /**
+     * Vrne indeks stavka za `def`, ki v istem bloku bere `temp`, oz. -1.
+     */
+    private static int use(List<IRStmt> statements, int def, Frame.Temp temp) {
+        for (int pc = def + 1; pc < statements.size(); pc++) {
+            var stmt = statements.get(pc);
+            if (stmt instanceof LabelStmt) {
+                return -1;
+            }
+            Set<Frame.Temp> read = new HashSet<>();
+            reads(stmt, read);
+            if (read.contains(temp)) {
+                return pc;
+            }
+            if (stmt instanceof JumpStmt || stmt instanceof CJumpStmt) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Ali kateri od stavkov med `from` in `to` (brez njiju) bere ali spremeni `temp`?
+     */
+    private static boolean touches(List<IRStmt> statements, int from, int to, Frame.Temp temp) {
+        for (int pc = from + 1; pc < to; pc++) {
+            var stmt = statements.get(pc);
+            Set<Frame.Temp> read = new HashSet<>();
+            reads(stmt, read);
+            if (read.contains(temp) || temp.equals(defined(stmt))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Ali ima izraz `expr` med stavkoma `from` in `to` (brez njiju) isto
+     * vrednost: vmes se ne spremeni nobena začasna spremenljivka, ki jo
+     * bere, in, če bere pomnilnik, ni shranjevanja ali klica.
+     */
+    private static boolean unchanged(List<IRStmt> statements, int from, int to, IRExpr expr) {
+        Set<Frame.Temp> read = new HashSet<>();
+        reads(expr, read);
+        var memory = readsMemory(expr);
+        for (int pc = from + 1; pc < to; pc++) {
+            var stmt = statements.get(pc);
+            var defined = defined(stmt);
+            if (defined != null && read.contains(defined)) {
+                return false;
+            }
+            if (memory && (stmt instanceof MoveStmt move && (move.dst instanceof MemExpr || move.src instanceof CallExpr)
+                    || stmt instanceof ExpStmt exp && exp.expr instanceof CallExpr)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Map<Frame.Temp, Integer> definitions(List<IRStmt> statements) {
+        Map<Frame.Temp, Integer> defs = new HashMap<>();
+        for (var stmt : statements) {
+            var defined = defined(stmt);
+            if (defined != null) {
+                defs.merge(defined, 1, Integer::sum);
+            }
+        }
+        return defs;
+    }
+
+    private static Map<Frame.Temp, Integer> uses(List<IRStmt> statements) {
+        Map<Frame.Temp, Integer> uses = new HashMap<>();
+        for (var stmt : statements) {
+            count(stmt, uses);
+        }
+        return uses;
+    }
+
+    private static Frame.Temp defined(IRStmt stmt) {
+        if (stmt instanceof MoveStmt move && move.dst instanceof TempExpr temp) {
+            return temp.temp;
+        }
+        return null;
+    }
+
+    private static void count(IRStmt stmt, Map<Frame.Temp, Integer> uses) {
+        if (stmt instanceof MoveStmt move) {
+            if (move.dst instanceof MemExpr mem) {
+                count(mem.expr, uses);
+            }
+            count(move.src, uses);
+        } else if (stmt instanceof ExpStmt exp) {
+            count(exp.expr, uses);
+        } else if (stmt instanceof CJumpStmt cjump) {
+            count(cjump.condition, uses);
+        }
+    }
+
+    private static void count(IRExpr expr, Map<Frame.Temp, Integer> uses) {
+        if (expr instanceof TempExpr temp) {
+            uses.merge(temp.temp, 1, Integer::sum);
+        } else if (expr instanceof BinopExpr binop) {
+            count(binop.lhs, uses);
+            count(binop.rhs, uses);
+        } else if (expr instanceof MemExpr mem) {
+            count(mem.expr, uses);
+        } else if (expr instanceof CallExpr call) {
+            for (var arg : call.args) {
+                count(arg, uses);
+            }
+        }
+    }
+
+    private static boolean readsMemory(IRExpr expr) {
+        if (expr instanceof MemExpr) {
+            return true;
+        } else if (expr instanceof BinopExpr binop) {
+            return readsMemory(binop.lhs) || readsMemory(binop.rhs);
+        }
+        return false;
+    }
+
+    // --------- zamenjava ----------
+
+    /**
+     * Vrne stavek, v katerem so branja začasnih spremenljivk iz `values`
+     * nadomeščena z izrazi; če se ni spremenil, vrne isto vozlišče.
+     */
+    private IRStmt substitute(IRStmt stmt, Map<Frame.Temp, IRExpr> values) {
+        if (stmt instanceof MoveStmt move) {
+            var dst = move.dst;
+            if (dst instanceof MemExpr mem) {
+                var address = substitute(mem.expr, values);
+                dst = address == mem.expr ? dst : located(dst, new MemExpr(address));
+            }
+            var src = substitute(move.src, values);
+            return dst == move.dst && src == move.src ? stmt : located(stmt, new MoveStmt(dst, src));
+        } else if (stmt instanceof ExpStmt exp) {
+            var expr = substitute(exp.expr, values);
+            return expr == exp.expr ? stmt : located(stmt, new ExpStmt(expr));
+        } else if (stmt instanceof CJumpStmt cjump) {
+            var condition = substitute(cjump.condition, values);
+            return condition == cjump.condition ? stmt : located(stmt, new CJumpStmt(condition, cjump.thenLabel, cjump.elseLabel));
+        }
+        return stmt;
+    }
+
+    private IRExpr substitute(IRExpr expr, Map<Frame.Temp, IRExpr> values) {
+        if (expr instanceof TempExpr temp) {
+            var value = values.get(temp.temp);
+            return value == null ? expr : value;
+        } else if (expr instanceof BinopExpr binop) {
+            var lhs = substitute(binop.lhs, values);
+            var rhs = substitute(binop.rhs, values);
+            return lhs == binop.lhs && rhs == binop.rhs ? expr : located(expr, new BinopExpr(lhs, rhs, binop.op));
+        } else if (expr instanceof MemExpr mem) {
+            var address = substitute(mem.expr, values);
+            return address == mem.expr ? expr : located(expr, new MemExpr(address));
+        } else if (expr instanceof CallExpr call) {
+            List<IRExpr> args = new ArrayList<>(call.args.size());
+            var changed = false;
+            for (var arg : call.args) {
+                var a = substitute(arg, values);
+                changed |= a != arg;
+                args.add(a);
+            }
+            return changed ? located(expr, new CallExpr(call.label, args)) : expr;
+        }
+        return expr;
+    }
+}
@@ -0,0 +1,251 @@
+/**
+ * @ Author: tevz
+ * @ Description: Odstranjevanje mrtve kode v linearizirani kodi.
+ *
+ * Prevedeni stavki `if`, `while` in `for` pustijo za seboj labele brez
+ * stavkov med njimi, skoke na naslednji stavek in veje za pogojnimi skoki
+ * s konstantnim pogojem, prirejanja pa vrednosti, ki se zavržejo
+ * (`EXP MEM(...)`). Obdelava do negibne točke ponavlja:
+ * - pogojni skok s konstantnim pogojem (ali z enakima ciljema)
+ *   nadomesti z brezpogojnim,
+ * - odstrani stavke, ki niso dosegljivi z začetka funkcije,
+ * - odstrani skok na labelo, ki mu sledi (le labele vmes),
+ * - zaporedne labele združi v eno in odstrani labele, na katere ne
+ *   skoči noben skok,
+ * - odstrani izraze brez stranskih učinkov, katerih vrednost se zavrže
+ *   (`EXP`, prirejanje začasni spremenljivki, ki je nihče ne bere),
+ *   in prirejanja lokaciji njene lastne vrednosti (`x = x`).
+ */
+
+package compiler.ir.opt;
+
+import static compiler.ir.opt.IRExprs.isPure;
+import static compiler.ir.opt.IRExprs.reads;
+import static compiler.ir.opt.IRExprs.same;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import compiler.frm.Frame;
+import compiler.ir.SourceMap;
+import compiler.ir.chunk.Chunk.CodeChunk;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+
+public class DeadCodeElimination extends IRPass {
+    public DeadCodeElimination() {
+        this(Optional.empty());
+    }
+
+    public DeadCodeElimination(Optional<SourceMap> sourceMap) {
+        super(sourceMap);
+    }
+
+    /**
+     * Vrne linearizirane fragmente kode brez mrtve kode.
+     */
+    public List<CodeChunk> apply(List<CodeChunk> chunks) {
+        List<CodeChunk> result = new ArrayList<>(chunks.size());
+        for (var chunk : chunks) {
+            result.add(apply(chunk));
+        }
+        return result;
+    }
+
+    public CodeChunk apply(CodeChunk chunk) {
+        if (!(chunk.code instanceof SeqStmt seq)) {
+            throw new RuntimeException("Linearize code!");
+        }
+        var statements = seq.statements;
+        var changed = false;
+        while (true) {
+            var simplified = simplify(statements);
+            var reachable = reachable(simplified);
+            var jumps = fallThrough(reachable);
+            var result = referenced(jumps);
+            if (result == statements) {
+                break;
+            }
+            statements = result;
+            changed = true;
+        }
+        return changed ? new CodeChunk(chunk.frame, located(seq, new SeqStmt(statements))) : chunk;
+    }
+
+    // --------- koraki ----------
+
+    /**
+     * Poenostavi pogojne skoke in odstrani izraze, katerih vrednost se zavrže.
+     *
+     * @return isti seznam, če se ni nič spremenilo.
+     */
+    private List<IRStmt> simplify(List<IRStmt> statements) {
+        Set<Frame.Temp> read = new HashSet<>();
+        for (var stmt : statements) {
+            reads(stmt, read);
+        }
+        List<IRStmt> result = new ArrayList<>(statements.size());
+        var changed = false;
+        for (var stmt : statements) {
+            if (stmt instanceof CJumpStmt cjump) {
+                var target = target(cjump);
+                if (target != null) {
+                    result.add(located(stmt, new JumpStmt(target)));
+                    changed = true;
+                    continue;
+                }
+            } else if (stmt instanceof ExpStmt exp && isPure(exp.expr)) {
+                changed = true;
+                continue;
+            } else if (stmt instanceof MoveStmt move && move.dst instanceof TempExpr temp
+                    && !read.contains(temp.temp) && isPure(move.src)) {
+                changed = true;
+                continue;
+            } else if (stmt instanceof MoveStmt move && isPure(move.src) && same(move.dst, move.src)) {
+                changed = true;
+                continue;
+            }
+            result.add(stmt);
+        }
+        return changed ? result : statements;
+    }
+
+    /**
+     * Vrne cilj, na katerega pogojni skok vedno skoči, oz. `null`.
+     */
+    private static Frame.Label target(CJumpStmt cjump) {
+        if (cjump.condition instanceof ConstantExpr constant) {
+            if (constant.constant == 1) {
+                return cjump.thenLabel;
+            } else if (constant.constant == 0) {
+                return cjump.elseLabel;
+            }
+        } else if (cjump.thenLabel.equals(cjump.elseLabel) && isPure(cjump.condition)) {
+            return cjump.thenLabel;
+        }
+        return null;
+    }
+
+    /**
+     * Odstrani stavke, ki niso dosegljivi z začetka funkcije.
+     */
+    private List<IRStmt> reachable(List<IRStmt> statements) {
+        var labels = labels(statements);
+        var reached = new boolean[statements.size()];
+        var work = new ArrayDeque<Integer>();
+        if (!statements.isEmpty()) {
+            work.push(0);
+        }
+        while (!work.isEmpty()) {
+            int pc = work.pop();
+            if (reached[pc]) {
+                continue;
+            }
+            reached[pc] = true;
+            var stmt = statements.get(pc);
+            if (stmt instanceof JumpStmt jump) {
+                work.push(target(labels, jump.label));
+            } else if (stmt instanceof CJumpStmt cjump) {
+                work.push(target(labels, cjump.thenLabel));
+                work.push(target(labels, cjump.elseLabel));
+            } else if (pc + 1 < statements.size()) {
+                work.push(pc + 1);
+            }
+        }
+        List<IRStmt> result = new ArrayList<>(statements.size());
+        for (int pc = 0; pc < statements.size(); pc++) {
+            if (reached[pc]) {
+                result.add(statements.get(pc));
+            }
+        }
+        return result.size() == statements.size() ? statements : result;
+    }
+
+    /**
+     * Odstrani skoke na labelo, ki skoku sledi (morda za drugimi labelami).
+     */
+    private List<IRStmt> fallThrough(List<IRStmt> statements) {
+        List<IRStmt> result = new ArrayList<>(statements.size());
+        for (int pc = 0; pc < statements.size(); pc++) {
+            var stmt = statements.get(pc);
+            if (stmt instanceof JumpStmt jump && follows(statements, pc + 1, jump.label)) {
+                continue;
+            }
+            result.add(stmt);
+        }
+        return result.size() == statements.size() ? statements : result;
+    }
+
+    private static boolean follows(List<IRStmt> statements, int pc, Frame.Label label) {
+        for (; pc < statements.size() && statements.get(pc) instanceof LabelStmt next; pc++) {
+            if (next.label.equals(label)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Zaporedne labele združi v prvo (skoke na ostale preusmeri nanjo)
+     * in odstrani labele, na katere ne skoči noben skok.
+     */
+    private List<IRStmt> referenced(List<IRStmt> statements) {
+        Map<Frame.Label, Frame.Label> merged = new HashMap<>();
+        for (int pc = 1; pc < statements.size(); pc++) {
+            if (statements.get(pc) instanceof LabelStmt label && statements.get(pc - 1) instanceof LabelStmt previous) {
+                merged.put(label.label, merged.getOrDefault(previous.label, previous.label));
+            }
+        }
+        Set<Frame.Label> targets = new HashSet<>();
+        List<IRStmt> jumps = new ArrayList<>(statements.size());
+        for (var stmt : statements) {
+            if (stmt instanceof JumpStmt jump) {
+                var label = merged.getOrDefault(jump.label, jump.label);
+                targets.add(label);
+                stmt = label == jump.label ? stmt : located(stmt, new JumpStmt(label));
+            } else if (stmt instanceof CJumpStmt cjump) {
+                var thenLabel = merged.getOrDefault(cjump.thenLabel, cjump.thenLabel);
+                var elseLabel = merged.getOrDefault(cjump.elseLabel, cjump.elseLabel);
+                targets.add(thenLabel);
+                targets.add(elseLabel);
+                if (thenLabel != cjump.thenLabel || elseLabel != cjump.elseLabel) {
+                    stmt = located(stmt, new CJumpStmt(cjump.condition, thenLabel, elseLabel));
+                }
+            }
+            jumps.add(stmt);
+        }
+        List<IRStmt> result = new ArrayList<>(statements.size());
+        for (var stmt : jumps) {
+            if (!(stmt instanceof LabelStmt label) || targets.contains(label.label)) {
+                result.add(stmt);
+            }
+        }
+        return merged.isEmpty() && result.size() == statements.size() ? statements : result;
+    }
+
+    // --------- pomožne funkcije ----------
+
+    private static Map<Frame.Label, Integer> labels(List<IRStmt> statements) {
+        Map<Frame.Label, Integer> labels = new HashMap<>();
+        for (int pc = 0; pc < statements.size(); pc++) {
+            if (statements.get(pc) instanceof LabelStmt label) {
+                labels.put(label.label, pc);
+            }
+        }
+        return labels;
+    }
+
+    private static int target(Map<Frame.Label, Integer> labels, Frame.Label label) {
+        var pc = labels.get(label);
+        if (pc == null) {
+            throw new RuntimeException("Unknown label " + label.toString() + "!");
+        }
+        return pc;
+    }
+}
@@ -0,0 +1,84 @@
+/**
+ * @ Author: tevz
+ * @ Description: Skupne poizvedbe nad izrazi vmesne kode za optimizacije.
+ */
+
+package compiler.ir.opt;
+
+import java.util.Set;
+
+import compiler.frm.Frame;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.expr.BinopExpr.Operator;
+import compiler.ir.code.stmt.*;
+
+public class IRExprs {
+    private IRExprs() {
+    }
+
+    /**
+     * Ali je izračun izraza brez stranskih učinkov in napak (klicev,
+     * deljenja, ki lahko deli z 0)? Tak izraz lahko izračunamo kasneje,
+     * večkrat ali pa sploh ne.
+     */
+    public static boolean isPure(IRExpr expr) {
+        if (expr instanceof ConstantExpr || expr instanceof TempExpr || expr instanceof NameExpr) {
+            return true;
+        } else if (expr instanceof MemExpr mem) {
+            return isPure(mem.expr);
+        } else if (expr instanceof BinopExpr binop) {
+            return binop.op != Operator.DIV && binop.op != Operator.MOD && isPure(binop.lhs) && isPure(binop.rhs);
+        }
+        return false;
+    }
+
+    /**
+     * Ali izraza (brez stranskih učinkov) predstavljata isto lokacijo oz. vrednost?
+     */
+    public static boolean same(IRExpr a, IRExpr b) {
+        if (a instanceof BinopExpr x && b instanceof BinopExpr y) {
+            return x.op == y.op && same(x.lhs, y.lhs) && same(x.rhs, y.rhs);
+        } else if (a instanceof MemExpr x && b instanceof MemExpr y) {
+            return same(x.expr, y.expr);
+        } else if (a instanceof ConstantExpr x && b instanceof ConstantExpr y) {
+            return x.constant == y.constant;
+        } else if (a instanceof NameExpr x && b instanceof NameExpr y) {
+            return x.label.equals(y.label);
+        } else if (a instanceof TempExpr x && b instanceof TempExpr y) {
+            return x.temp.equals(y.temp);
+        }
+        return false;
+    }
+
+    /**
+     * Doda začasne spremenljivke, ki jih stavek bere (cilj prirejanja
+     * začasni spremenljivki ni branje).
+     */
+    public static void reads(IRStmt stmt, Set<Frame.Temp> read) {
+        if (stmt instanceof MoveStmt move) {
+            if (move.dst instanceof MemExpr mem) {
+                reads(mem.expr, read);
+            }
+            reads(move.src, read);
+        } else if (stmt instanceof ExpStmt exp) {
+            reads(exp.expr, read);
+        } else if (stmt instanceof CJumpStmt cjump) {
+            reads(cjump.condition, read);
+        }
+    }
+
+    public static void reads(IRExpr expr, Set<Frame.Temp> read) {
+        if (expr instanceof TempExpr temp) {
+            read.add(temp.temp);
+        } else if (expr instanceof BinopExpr binop) {
+            reads(binop.lhs, read);
+            reads(binop.rhs, read);
+        } else if (expr instanceof MemExpr mem) {
+            reads(mem.expr, read);
+        } else if (expr instanceof CallExpr call) {
+            for (var arg : call.args) {
+                reads(arg, read);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * @ Author: tevz
+ * @ Description: Skupna osnova optimizacij vmesne kode.
+ *
+ * Optimizacija, ki vozlišče nadomesti z novim, novemu vozlišču priredi
+ * območje izvorne datoteke nadomeščenega (`located`), da profiliranje
+ * (`--profile`) tudi po optimizaciji kaže na izvorno kodo.
+ */
+
+package compiler.ir.opt;
+
+import static common.RequireNonNull.requireNonNull;
+
+import java.util.Optional;
+
+import compiler.ir.SourceMap;
+import compiler.ir.chunk.Chunk.CodeChunk;
+import compiler.ir.code.IRNode;
+
+public abstract class IRPass {
+    /**
+     * Preslikava vmesne kode v območja izvorne datoteke (le, če jo potrebujemo).
+     */
+    private final Optional<SourceMap> sourceMap;
+
+    protected IRPass(Optional<SourceMap> sourceMap) {
+        requireNonNull(sourceMap);
+        this.sourceMap = sourceMap;
+    }
+
+    /**
+     * Vrne optimizirano kodo ene funkcije.
+     */
+    public abstract CodeChunk apply(CodeChunk chunk);
+
+    /**
+     * Novemu vozlišču priredi območje vozlišča, ki ga nadomešča.
+     */
+    protected <T extends IRNode> T located(IRNode origin, T node) {
+        sourceMap.ifPresent(map -> map.copy(origin, node));
+        return node;
+    }
+}
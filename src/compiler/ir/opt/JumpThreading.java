@@ -0,0 +1,94 @@
+/**
+ * @ Author: tevz
+ * @ Description: Preusmerjanje skokov v linearizirani kodi.
+ *
+ * Skok na blok, ki vsebuje le labele in skok, preusmeri na končni cilj
+ * verige takih blokov. Brezpogojni skok na blok, ki vsebuje le labele in
+ * pogojni skok, nadomesti s kopijo pogojnega skoka: zanka
+ * `L0: CJUMP c ? L1 : L2; L1: ...; JUMP L0` tako na koncu telesa takoj
+ * preveri pogoj (`CJUMP c ? L1 : L2`) in se v vsaki ponovitvi izvede en
+ * skok manj.
+ *
+ * Labele, na katere ne skoči nič več, in nedosegljive bloke odstrani
+ * odstranjevanje mrtve kode.
+ */
+
+package compiler.ir.opt;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import compiler.frm.Frame;
+import compiler.ir.ControlFlowGraph;
+import compiler.ir.SourceMap;
+import compiler.ir.chunk.Chunk.CodeChunk;
+import compiler.ir.code.stmt.*;
+
+public class JumpThreading extends IRPass {
+    public JumpThreading() {
+        this(Optional.empty());
+    }
+
+    public JumpThreading(Optional<SourceMap> sourceMap) {
+        super(sourceMap);
+    }
+
+    /**
+     * Vrne linearizirane fragmente kode s preusmerjenimi skoki.
+     */
+    public List<CodeChunk> apply(List<CodeChunk> chunks) {
+        List<CodeChunk> result = new ArrayList<>(chunks.size());
+        for (var chunk : chunks) {
+            result.add(apply(chunk));
+        }
+        return result;
+    }
+
+    public CodeChunk apply(CodeChunk chunk) {
+        var graph = ControlFlowGraph.of(chunk);
+        List<IRStmt> result = new ArrayList<>(graph.statements.size());
+        var changed = false;
+        for (var stmt : graph.statements) {
+            var threaded = stmt;
+            if (stmt instanceof JumpStmt jump) {
+                var label = thread(graph, jump.label);
+                var target = graph.block(label);
+                if (target.isTrivial() && target.last() instanceof CJumpStmt cjump) {
+                    threaded = located(stmt, new CJumpStmt(cjump.condition, thread(graph, cjump.thenLabel), thread(graph, cjump.elseLabel)));
+                } else if (!label.equals(jump.label)) {
+                    threaded = located(stmt, new JumpStmt(label));
+                }
+            } else if (stmt instanceof CJumpStmt cjump) {
+                var thenLabel = thread(graph, cjump.thenLabel);
+                var elseLabel = thread(graph, cjump.elseLabel);
+                if (!thenLabel.equals(cjump.thenLabel) || !elseLabel.equals(cjump.elseLabel)) {
+                    threaded = located(stmt, new CJumpStmt(cjump.condition, thenLabel, elseLabel));
+                }
+            }
+            changed |= threaded != stmt;
+            result.add(threaded);
+        }
+        if (!changed) {
+            return chunk;
+        }
+        return new CodeChunk(chunk.frame, located(chunk.code, new SeqStmt(result)));
+    }
+
+    /**
+     * Vrne končni cilj verige blokov, ki vsebujejo le labele in brezpogojni skok.
+     */
+    private static Frame.Label thread(ControlFlowGraph graph, Frame.Label label) {
+        Set<Frame.Label> visited = new HashSet<>();
+        while (visited.add(label)) {
+            var block = graph.block(label);
+            if (!(block.isTrivial() && block.last() instanceof JumpStmt jump)) {
+                break;
+            }
+            label = jump.label;
+        }
+        return label;
+    }
+}
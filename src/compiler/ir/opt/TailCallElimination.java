@@ -0,0 +1,233 @@
+/**
+ * @ Author: tevz
+ * @ Description: Odprava repnih rekurzivnih klicev.
+ *
+ * Klic funkcije same sebe, ki je zadnja stvar, ki jo funkcija izvede,
+ * nadomestimo s prirejanjem argumentov parametrom in skokom na začetek
+ * funkcije. Tak klic se tako izvede v konstantnem prostoru na skladu
+ * in brez priprave novega klicnega zapisa.
+ *
+ * Klic je v repnem položaju, če:
+ * - je vrednost telesa funkcije oz. zadnji izraz bloka v repnem položaju,
+ * - je prirejen spremenljivki `r` (`r = f(...)`) v stavku, za katerim
+ *   funkcija le še vrne vrednost `r` (npr. v obeh vejah stavka `if`
+ *   na koncu telesa oblike `({if ... }, r)`).
+ *
+ * Spremenljivka `r` mora biti lokalna spremenljivka funkcije (ali začasna
+ * spremenljivka), saj po vrnitvi nihče več ne bere njene vrednosti.
+ * Prirejanje globalni spremenljivki ali elementu tabele mora ostati.
+ */
+
+package compiler.ir.opt;
+
+import static compiler.ir.opt.IRExprs.isPure;
+import static compiler.ir.opt.IRExprs.same;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import common.Constants;
+import compiler.frm.Frame;
+import compiler.ir.SourceMap;
+import compiler.ir.chunk.Chunk;
+import compiler.ir.chunk.Chunk.CodeChunk;
+import compiler.ir.code.expr.*;
+import compiler.ir.code.stmt.*;
+
+public class TailCallElimination extends IRPass {
+    // --------- stanje obdelave trenutne funkcije ----------
+
+    /**
+     * Klicni zapis funkcije.
+     */
+    private Frame frame;
+
+    /**
+     * Labela začetka telesa funkcije (cilj skoka namesto repnega klica).
+     */
+    private Frame.Label entry;
+
+    /**
+     * Število odpravljenih klicev v trenutni funkciji.
+     */
+    private int eliminated;
+
+    public TailCallElimination() {
+        this(Optional.empty());
+    }
+
+    public TailCallElimination(Optional<SourceMap> sourceMap) {
+        super(sourceMap);
+    }
+
+    /**
+     * Vrne fragmente, v katerih so repni rekurzivni klici odpravljeni.
+     */
+    public List<Chunk> apply(List<Chunk> chunks) {
+        List<Chunk> result = new ArrayList<>(chunks.size());
+        for (var chunk : chunks) {
+            if (chunk instanceof CodeChunk code) {
+                result.add(apply(code));
+            } else {
+                result.add(chunk);
+            }
+        }
+        return result;
+    }
+
+    public CodeChunk apply(CodeChunk chunk) {
+        // telo funkcije: MOVE(MEM(FP), telo)
+        if (!(chunk.code instanceof MoveStmt move && move.dst instanceof MemExpr)) {
+            return chunk;
+        }
+        frame = chunk.frame;
+        entry = Frame.Label.nextAnonymous();
+        eliminated = 0;
+
+        var body = tailExpr(move.src);
+        if (eliminated == 0) {
+            return chunk;
+        }
+        return new CodeChunk(chunk.frame, new SeqStmt(List.of(
+            new LabelStmt(entry),
+            located(move, new MoveStmt(move.dst, body)))));
+    }
+
+    // --------- repni položaji ----------
+
+    /**
+     * Obdela izraz, katerega vrednost je rezultat funkcije.
+     */
+    private IRExpr tailExpr(IRExpr expr) {
+        var call = selfCall(expr);
+        if (call != null) {
+            return located(expr, new EseqExpr(jump(expr, call), new ConstantExpr(0)));
+        }
+        if (expr instanceof EseqExpr eseq) {
+            var stmt = isLocation(eseq.expr) ? tailStmt(eseq.stmt, eseq.expr, Set.of()) : eseq.stmt;
+            return located(expr, new EseqExpr(stmt, tailExpr(eseq.expr)));
+        }
+        return expr;
+    }
+
+    /**
+     * Obdela stavek, po katerem funkcija vrne vrednost lokacije `result`.
+     *
+     * @param exits labele, s katerih se funkcija prav tako le še vrne.
+     */
+    private IRStmt tailStmt(IRStmt stmt, IRExpr result, Set<Frame.Label> exits) {
+        if (stmt instanceof MoveStmt move && same(move.dst, result)) {
+            var call = selfCall(move.src);
+            return call != null ? located(stmt, jump(move.src, call)) : stmt;
+        } else if (stmt instanceof ExpStmt exp) {
+            return located(stmt, new ExpStmt(tailDiscard(exp.expr, result, exits)));
+        } else if (stmt instanceof SeqStmt seq) {
+            return tailSeq(seq, result, exits);
+        }
+        return stmt;
+    }
+
+    /**
+     * Obdela izraz, katerega vrednost se zavrže, nato pa funkcija vrne `result`.
+     */
+    private IRExpr tailDiscard(IRExpr expr, IRExpr result, Set<Frame.Label> exits) {
+        if (expr instanceof EseqExpr eseq) {
+            if (isPure(eseq.expr)) {
+                return located(expr, new EseqExpr(tailStmt(eseq.stmt, result, exits), eseq.expr));
+            }
+            return located(expr, new EseqExpr(eseq.stmt, tailDiscard(eseq.expr, result, exits)));
+        }
+        return expr;
+    }
+
+    /**
+     * Stavek zaporedja je v repnem položaju, če mu sledijo le labele
+     * ali pa skok na labelo, s katere se funkcija le še vrne.
+     */
+    private SeqStmt tailSeq(SeqStmt seq, IRExpr result, Set<Frame.Label> exits) {
+        var statements = seq.statements;
+        Set<Frame.Label> seqExits = new HashSet<>(exits);
+        var end = statements.size();
+        while (end > 0 && statements.get(end - 1) instanceof LabelStmt label) {
+            seqExits.add(label.label);
+            end--;
+        }
+        List<IRStmt> rewritten = new ArrayList<>(statements);
+        for (int i = 0; i < end; i++) {
+            var last = i == end - 1;
+            var jumpsOut = i + 1 < end
+                && statements.get(i + 1) instanceof JumpStmt jump
+                && seqExits.contains(jump.label);
+            if (last || jumpsOut) {
+                rewritten.set(i, tailStmt(statements.get(i), result, seqExits));
+            }
+        }
+        return located(seq, new SeqStmt(rewritten));
+    }
+
+    // --------- prepis klica ----------
+
+    /**
+     * Vrne klic, če izraz kliče funkcijo samo.
+     */
+    private CallExpr selfCall(IRExpr expr) {
+        if (expr instanceof EseqExpr eseq && eseq.stmt instanceof MoveStmt) {
+            expr = eseq.expr; // shranjevanje oldFP
+        }
+        if (expr instanceof CallExpr call && call.label.equals(frame.label)) {
+            return call;
+        }
+        return null;
+    }
+
+    /**
+     * Argumente klica najprej izračuna v začasne spremenljivke (argumenti
+     * se lahko sklicujejo na parametre), nato jih shrani v parametre
+     * in skoči na začetek funkcije.
+     *
+     * @param origin izraz, ki vsebuje klic (določa območje novih stavkov).
+     */
+    private SeqStmt jump(IRExpr origin, CallExpr call) {
+        eliminated++;
+        List<IRStmt> statements = new ArrayList<>();
+        List<TempExpr> temps = new ArrayList<>();
+        for (var arg : call.args) {
+            var temp = new TempExpr(Frame.Temp.next());
+            temps.add(temp);
+            statements.add(new MoveStmt(temp, arg));
+        }
+        for (int i = 0; i < temps.size(); i++) {
+            var parameter = new MemExpr(new BinopExpr(
+                NameExpr.FP(),
+                new ConstantExpr(Constants.WordSize * i),
+                BinopExpr.Operator.ADD));
+            statements.add(new MoveStmt(parameter, temps.get(i)));
+        }
+        statements.add(new JumpStmt(entry));
+        return located(origin, new SeqStmt(statements));
+    }
+
+    // --------- pomožne funkcije ----------
+
+    /**
+     * Ali je izraz lokalna spremenljivka trenutne funkcije (`MEM(FP + c)`
+     * z odmikom med lokalnimi spremenljivkami) ali začasna spremenljivka?
+     * Le taka lokacija je po vrnitvi iz funkcije mrtva.
+     */
+    private boolean isLocation(IRExpr expr) {
+        if (expr instanceof TempExpr) {
+            return true;
+        }
+        return expr instanceof MemExpr mem
+            && mem.expr instanceof BinopExpr binop
+            && binop.op == BinopExpr.Operator.ADD
+            && binop.lhs instanceof NameExpr name
+            && name.label.equals(NameExpr.FP().label)
+            && binop.rhs instanceof ConstantExpr offset
+            && offset.constant < 0
+            && offset.constant >= -frame.localsSize;
+    }
+}
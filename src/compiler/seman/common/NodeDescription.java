@@ -23,6 +23,13 @@ public class NodeDescription<T> {
         return Optional.ofNullable(storage.get(node));
     }
 
+    /**
+     * Vrne število vozlišč, za katera je shranjena vrednost.
+     */
+    public int size() {
+        return storage.size();
+    }
+
     /**
      * Shrani vrednost za vozlišče.
      */
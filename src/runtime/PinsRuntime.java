@@ -0,0 +1,151 @@
+/**
+ * @ Author: tevz
+ * @ Description: Izvajalno okolje programov PINS, prevedenih v JAR.
+ *
+ * Razred se skupaj s prevedenim programom zapiše v JAR, zato ne sme
+ * uporabljati razredov prevajalnika. Pomnilnik ima enako razporeditev
+ * kot pomnilnik navideznega stroja (`compiler.gen.Memory`).
+ */
+
+package runtime;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+public final class PinsRuntime {
+    private static final int WordSize = 4;
+
+    /**
+     * Velikost pomnilnika v bajtih.
+     */
+    private static int size;
+
+    /**
+     * Besede pomnilnika.
+     */
+    private static int[] words;
+
+    /**
+     * Nizi; v pomnilniku je shranjena ročka niza (indeks + 1).
+     */
+    private static final List<String> strings = new ArrayList<>();
+
+    /**
+     * Generator naključnih števil.
+     */
+    private static Random random;
+
+    /**
+     * Skladovni kazalec (kaže na dno sklada).
+     */
+    private static int stackPointer;
+
+    /**
+     * Klicni kazalec (kaže na vrh aktivnega klicnega zapisa).
+     */
+    private static int framePointer;
+
+    private PinsRuntime() {
+    }
+
+    // --------- pomnilnik ----------
+
+    public static void init(int memorySize) {
+        size = memorySize;
+        words = new int[memorySize / WordSize + 1];
+        stackPointer = memorySize - WordSize;
+        framePointer = memorySize - WordSize;
+    }
+
+    public static int ldM(int address) {
+        validateAddress(address);
+        return words[address / WordSize];
+    }
+
+    public static void stM(int address, int value) {
+        validateAddress(address);
+        words[address / WordSize] = value;
+    }
+
+    public static void stString(int address, String value) {
+        strings.add(value);
+        stM(address, strings.size());
+    }
+
+    private static void validateAddress(int address) {
+        if (address > size || address < 0) {
+            throw new IllegalArgumentException("Address " + address + " out of bounds!");
+        }
+        if (address == 0) {
+            throw new IllegalArgumentException("Cannot dereference a null pointer!");
+        }
+        if (address % WordSize != 0) {
+            throw new IllegalArgumentException("Address " + address + " not aligned!");
+        }
+    }
+
+    // --------- klici ----------
+
+    /**
+     * Pripravi klicni zapis funkcije `main`.
+     */
+    public static void start(int oldFPOffset) {
+        stM(framePointer + WordSize, 0); // argument v funkcijo main
+        stM(framePointer - oldFPOffset, framePointer); // oldFP
+    }
+
+    /**
+     * Ustvari klicni zapis velikosti `frameSize` na vrhu sklada.
+     *
+     * @return nov klicni kazalec.
+     */
+    public static int enter(int frameSize) {
+        framePointer = stackPointer;
+        stackPointer -= frameSize;
+        return framePointer;
+    }
+
+    /**
+     * Odstrani klicni zapis s sklada.
+     *
+     * @return rezultat funkcije.
+     */
+    public static int leave(int oldFPOffset) {
+        stackPointer = framePointer;
+        framePointer = ldM(stackPointer - oldFPOffset); // preberi oldFP iz pomnilnika
+        return ldM(stackPointer);
+    }
+
+    public static RuntimeException conditionError() {
+        return new RuntimeException("Condition is not logical value (not 1 or 0)");
+    }
+
+    // --------- standardna knjižnica ----------
+
+    public static int print_int(int value) {
+        System.out.println(value);
+        return value;
+    }
+
+    public static int print_str(int address) {
+        var handle = ldM(address);
+        var str = handle > 0 && handle <= strings.size() ? strings.get(handle - 1) : "";
+        System.out.println("\"" + str + "\"");
+        return address;
+    }
+
+    public static int print_log(int value) {
+        System.out.println(value != 0);
+        return value;
+    }
+
+    public static int rand_int(int min, int max) {
+        return random.nextInt(min, max);
+    }
+
+    public static int seed(int seed) {
+        random = new Random(seed);
+        return seed;
+    }
+}